@@ -0,0 +1,126 @@
+package com.poc.transaction.bench;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.transaction.model.request.TransactionRequest;
+import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.memory.InMemoryAccountRepository;
+import com.poc.transaction.repository.memory.InMemoryOpenTransactionRepository;
+import com.poc.transaction.repository.memory.InMemoryOperationTypeRepository;
+import com.poc.transaction.repository.memory.InMemoryOutboxEventRepository;
+import com.poc.transaction.repository.memory.InMemoryTransactionRepository;
+import com.poc.transaction.service.account.MissingAccountCache;
+import com.poc.transaction.service.cache.InMemoryCacheInvalidationBus;
+import com.poc.transaction.service.execution.AccountLaneExecutor;
+import com.poc.transaction.service.execution.ConflictRetry;
+import com.poc.transaction.service.execution.GroupCommitter;
+import com.poc.transaction.service.metrics.StageMetrics;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.service.outbox.OutboxServiceImpl;
+import com.poc.transaction.service.transaction.TransactionServiceImpl;
+import com.poc.transaction.service.transaction.discharge.LedgerDischargeStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 1000 transactions over `accounts` accounts (2 purchases per payment), sent as 1000 single creates one after the other
+ * or as one POST /transactions/batch, through the real service on the in-memory repositories. Commits cost a fixed
+ * `commitMicros` (stand-in for the Postgres commit + fsync, see {@link FixedCostTransactionManager}); the rest is the
+ * service's own CPU. The saved INSERT round trips of JDBC batching aren't modelled, so on Postgres the gap is wider.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchTransactionBenchmark {
+
+    private static final int ITEMS = 1_000;
+
+    @Param({"single", "batch"})
+    public String mode;
+
+    @Param({"10", "1000"})
+    public int accounts;
+
+    @Param({"500"})
+    public long commitMicros;
+
+    private AccountLaneExecutor laneExecutor;
+    private TransactionServiceImpl transactionService;
+    private List<TransactionRequest> requests;
+
+    @Setup
+    public void setUp() {
+        // every discharge is audit-logged, which would otherwise be most of what gets measured
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        InMemoryAccountRepository accountRepository = new InMemoryAccountRepository();
+        InMemoryOpenTransactionRepository openTransactionRepository = new InMemoryOpenTransactionRepository();
+        InMemoryTransactionRepository transactionRepository = new InMemoryTransactionRepository(openTransactionRepository);
+        for (int i = 0; i < accounts; i++) {
+            accountRepository.save(AccountEntity.builder().documentNumber(Integer.toString(10_000_000 + i)).build());
+        }
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new FixedCostTransactionManager(commitMicros));
+        laneExecutor = new AccountLaneExecutor(8, meterRegistry);
+        StageMetrics stageMetrics = new StageMetrics(meterRegistry, 100);
+        OperationTypeCatalog operationTypeCatalog = new OperationTypeCatalog(new InMemoryOperationTypeRepository(),
+                transactionTemplate, new InMemoryCacheInvalidationBus());
+        ConflictRetry conflictRetry = new ConflictRetry(1, Duration.ZERO, Duration.ZERO, meterRegistry);
+        transactionService = new TransactionServiceImpl(transactionRepository, accountRepository, openTransactionRepository,
+                transactionTemplate,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                laneExecutor,
+                new LedgerDischargeStrategy(transactionRepository, openTransactionRepository, 10_000_000L, Duration.ofHours(1),
+                        meterRegistry, stageMetrics, operationTypeCatalog),
+                new MissingAccountCache(new InMemoryCacheInvalidationBus(), Duration.ofSeconds(30), 1_000, meterRegistry),
+                // no window: a client sending one request after the other never has company to group with
+                new GroupCommitter(laneExecutor, transactionTemplate, conflictRetry, Duration.ZERO, 1, meterRegistry),
+                conflictRetry,
+                new OutboxServiceImpl(new InMemoryOutboxEventRepository(), new ObjectMapper().findAndRegisterModules()),
+                stageMetrics,
+                operationTypeCatalog,
+                false);
+
+        Random random = new Random(42);
+        requests = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            long accountId = 1 + random.nextInt(accounts);
+            requests.add(i % 3 == 2
+                    ? new TransactionRequest(accountId, 4, new BigDecimal("60.00"))
+                    : new TransactionRequest(accountId, 1 + random.nextInt(3), new BigDecimal("25.00")));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        laneExecutor.destroy();
+    }
+
+    @Benchmark
+    public int create1000() {
+        if ("batch".equals(mode)) {
+            return transactionService.createTransactions(requests).getSucceeded();
+        }
+        int created = 0;
+        for (TransactionRequest request : requests) {
+            transactionService.createTransaction(request);
+            created++;
+        }
+        return created;
+    }
+}
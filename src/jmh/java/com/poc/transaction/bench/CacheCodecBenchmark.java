@@ -0,0 +1,69 @@
+package com.poc.transaction.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.poc.transaction.model.response.AccountResponse;
+import com.poc.transaction.model.response.TransactionResponse;
+import com.poc.transaction.service.cache.codec.CacheCodecProperties;
+import com.poc.transaction.service.cache.codec.CacheCodecs;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost of cached values: the JSON format (GenericJackson2JsonRedisSerializer, @class type hints) against
+ * the compact binary codecs. The encoded size per entry is printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheCodecBenchmark {
+
+    @Param({"json", "binary"})
+    public String format;
+
+    @Param({"account", "transaction"})
+    public String type;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        RedisSerializer<Object> json = GenericJackson2JsonRedisSerializer.builder()
+                .objectMapper(new ObjectMapper().registerModule(new JavaTimeModule()))
+                .defaultTyping(true)
+                .build();
+        serializer = new CacheCodecs(new CacheCodecProperties(format, null, null), json).forKey(type + ":1");
+        value = "account".equals(type)
+                ? AccountResponse.builder().accountId(1_234_567L).documentNumber("12345678900").build()
+                : TransactionResponse.builder()
+                        .transactionId(98_765_432L)
+                        .accountId(1_234_567L)
+                        .operationTypeId(1)
+                        .amount(new BigDecimal("-50.00"))
+                        .balance(new BigDecimal("-50.00"))
+                        .eventDate(LocalDateTime.of(2025, 1, 1, 10, 0, 0, 123_456_000))
+                        .build();
+        encoded = serializer.serialize(value);
+        System.out.printf("%n%s/%s: %d bytes per entry%n", format, type, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+}
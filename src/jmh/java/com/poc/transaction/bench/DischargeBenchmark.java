@@ -0,0 +1,174 @@
+package com.poc.transaction.bench;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.poc.transaction.repository.OpenTransactionRepository;
+import com.poc.transaction.repository.OperationTypeRepository;
+import com.poc.transaction.repository.TransactionRepository;
+import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.repository.projection.OpenItemView;
+import com.poc.transaction.service.cache.InMemoryCacheInvalidationBus;
+import com.poc.transaction.service.metrics.StageMetrics;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.service.operationtype.OperationTypes;
+import com.poc.transaction.service.transaction.discharge.DischargeStrategy;
+import com.poc.transaction.service.transaction.discharge.EntityDischargeStrategy;
+import com.poc.transaction.service.transaction.discharge.LedgerDischargeStrategy;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One payment against an account with `openPurchases` unpaid purchases, per discharge strategy. Steady state: every
+ * payment pays off the oldest `paidPerPayment` purchases and as many new ones are opened, so the account keeps the same
+ * number of open items.
+ * Repositories are stubs - this is the CPU and allocation cost of the discharge itself, not the SQL around it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DischargeBenchmark {
+
+    private static final BigDecimal PURCHASE = new BigDecimal("-50.00");
+
+    @Param({"entity", "ledger"})
+    public String strategy;
+
+    @Param({"10", "1000", "100000"})
+    public int openPurchases;
+
+    // stage metrics: off = denied by a meter filter (no-op meters), sampled = 1 in 100 payments (the default), all = every payment
+    @Param({"off", "sampled", "all"})
+    public String metrics;
+
+    // purchases one payment pays off - the per-purchase (money arithmetic) share of the cost and allocations
+    @Param({"1", "10"})
+    public int paidPerPayment;
+
+    private DischargeStrategy discharge;
+    private StageMetrics stageMetrics;
+    private AccountEntity account;
+    private TransactionEntity payment;
+    private TransactionEntity purchase;
+    private List<TransactionEntity> purchases;
+    private long nextId;
+    // the account version each payment reads, moved on by every transaction like AccountRepository does
+    private long version;
+
+    @Setup
+    public void setUp() {
+        // both strategies audit-log every discharge, which would otherwise be most of what gets measured
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        account = AccountEntity.builder().accountId(1L).documentNumber("12345678900").build();
+        LocalDateTime firstPurchase = LocalDateTime.now().minusDays(1);
+        purchases = new ArrayList<>(openPurchases);
+        List<OpenItemView> openItems = new ArrayList<>(openPurchases);
+        for (nextId = 1; nextId <= openPurchases; nextId++) {
+            TransactionEntity open = transaction(nextId, 1, PURCHASE, firstPurchase.plusNanos(nextId * 1_000));
+            purchases.add(open);
+            openItems.add(new OpenItem(open.getTransactionId(), open.getEventDate(), open.getBalance()));
+        }
+
+        TransactionRepository transactionRepository = stub(TransactionRepository.class, "fetchTransactions", purchases);
+        OpenTransactionRepository openTransactionRepository = stub(OpenTransactionRepository.class, "fetchOpenItems", openItems);
+
+        // Prometheus with histogram buckets, like the service exports them
+        PrometheusMeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        meterRegistry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return "transaction.stage".equals(id.getName())
+                        ? DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config)
+                        : config;
+            }
+        });
+        if ("off".equals(metrics)) {
+            meterRegistry.config().meterFilter(MeterFilter.denyNameStartsWith("transaction."));
+        }
+        stageMetrics = new StageMetrics(meterRegistry, "all".equals(metrics) ? 1 : 100);
+        // never loaded, serves the default operation types
+        OperationTypeCatalog operationTypeCatalog = new OperationTypeCatalog(
+                stub(OperationTypeRepository.class, "findAll", OperationTypes.DEFAULT_TYPES), new TransactionTemplate(),
+                new InMemoryCacheInvalidationBus());
+        discharge = "entity".equals(strategy)
+                ? new EntityDischargeStrategy(transactionRepository, openTransactionRepository, stageMetrics, operationTypeCatalog)
+                : new LedgerDischargeStrategy(transactionRepository, openTransactionRepository, 10_000_000L,
+                        Duration.ofHours(1), new SimpleMeterRegistry(), stageMetrics, operationTypeCatalog);
+        payment = transaction(0L, 4, PURCHASE.negate().multiply(BigDecimal.valueOf(paidPerPayment)), firstPurchase);
+        purchase = transaction(0L, 1, PURCHASE, firstPurchase);
+        // first payment hydrates the ledger, keep that out of the measurement
+        payAndPurchase();
+    }
+
+    @Benchmark
+    public long payAndPurchase() {
+        // each payment is its own operation, sampled like the service does it
+        long remaining = discharge.discharge(payment, version++, stageMetrics.sample());
+        for (int i = 0; i < paidPerPayment; i++) {
+            if (discharge instanceof LedgerDischargeStrategy) {
+                purchase.setTransactionId(nextId++);
+                purchase.setEventDate(LocalDateTime.now().minusSeconds(1));
+                discharge.onRecorded(purchase);
+                version++;
+            } else {
+                // the entity strategy re-reads every open purchase, re-opening the paid ones has the same effect
+                purchases.get(i).setBalance(PURCHASE);
+            }
+        }
+        return remaining;
+    }
+
+    // plain JDK proxy rather than a mock - mock invocation handling would cost more than the discharge being measured
+    private static <T> T stub(Class<T> repository, String fetchMethod, List<?> rows) {
+        return repository.cast(Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[]{repository},
+                (proxy, method, args) -> fetchMethod.equals(method.getName()) ? rows : null));
+    }
+
+    private TransactionEntity transaction(long id, int operationTypeId, BigDecimal amount, LocalDateTime eventDate) {
+        return TransactionEntity.builder()
+                .transactionId(id)
+                .account(account)
+                .operationTypeId(operationTypeId)
+                .amount(amount)
+                .balance(amount)
+                .eventDate(eventDate)
+                .build();
+    }
+
+    private record OpenItem(Long transactionId, LocalDateTime eventDate, BigDecimal balance) implements OpenItemView {
+
+        @Override
+        public Long getTransactionId() {
+            return transactionId;
+        }
+
+        @Override
+        public LocalDateTime getEventDate() {
+            return eventDate;
+        }
+
+        @Override
+        public BigDecimal getBalance() {
+            return balance;
+        }
+    }
+}
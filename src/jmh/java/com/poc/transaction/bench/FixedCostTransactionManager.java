@@ -0,0 +1,32 @@
+package com.poc.transaction.bench;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Stand-in for the Postgres commit + fsync: every commit takes a fixed time, nothing else costs anything
+record FixedCostTransactionManager(long commitMicros) implements PlatformTransactionManager {
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) {
+        return new SimpleTransactionStatus();
+    }
+
+    @Override
+    public void commit(TransactionStatus status) {
+        // lane threads get unparked by every submission, so keep parking until the full cost is paid
+        long end = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(commitMicros);
+        long remaining;
+        while ((remaining = end - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.poc.transaction.bench;
+
+import com.poc.transaction.service.execution.AccountLaneExecutor;
+import com.poc.transaction.service.execution.ConflictRetry;
+import com.poc.transaction.service.execution.GroupCommitter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput against latency of the group commit window: 32 callers create "transactions" on random accounts against a
+ * transaction manager whose commit costs a fixed time (stand-in for the Postgres commit + fsync). Window 0 is the
+ * one-commit-per-request baseline. Throughput mode gives ops/s, sample mode the per-call latency percentiles.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(32)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GroupCommitBenchmark {
+
+    @Param({"0", "100", "500", "2000"})
+    public long windowMicros;
+
+    @Param({"32"})
+    public int maxBatch;
+
+    @Param({"500"})
+    public long commitMicros;
+
+    private AccountLaneExecutor laneExecutor;
+    private GroupCommitter committer;
+
+    @Setup
+    public void setUp() {
+        laneExecutor = new AccountLaneExecutor(8, new SimpleMeterRegistry());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new FixedCostTransactionManager(commitMicros));
+        committer = new GroupCommitter(laneExecutor, transactionTemplate,
+                new ConflictRetry(1, Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry()), Duration.ofNanos(windowMicros * 1000), maxBatch,
+                new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() {
+        laneExecutor.destroy();
+    }
+
+    @Benchmark
+    public Long createTransaction() {
+        long accountId = ThreadLocalRandom.current().nextLong(1, 10_000);
+        return committer.execute(accountId, () -> accountId);
+    }
+}
@@ -0,0 +1,73 @@
+package com.poc.transaction.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.transaction.model.request.TransactionRequest;
+import com.poc.transaction.model.response.TransactionResponse;
+import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.service.operationtype.OperationTypes;
+import com.poc.transaction.service.transaction.TransactionAmountRule;
+import com.poc.transaction.utils.Money;
+import com.poc.transaction.utils.mappers.TransactionMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU-only steps every POST /transactions goes through: the sign rule, request -> entity -> response mapping and the
+ * Jackson serialization of the response body (same ObjectMapper setup Spring Boot builds for MVC).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionHotPathBenchmark {
+
+    @Param({"1", "4"})
+    public int operationTypeId;
+
+    private BigDecimal amount;
+    private TransactionRequest request;
+    private AccountEntity account;
+    private TransactionEntity entity;
+    private TransactionResponse response;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        amount = new BigDecimal("123.45");
+        request = TransactionRequest.builder().accountId(1_234_567L).operationTypeId(operationTypeId).amount(amount).build();
+        account = AccountEntity.builder().accountId(1_234_567L).documentNumber("12345678900").build();
+        entity = TransactionMapper.toEntity(request, account, Money.toBigDecimal(TransactionAmountRule.applySignRule(OperationTypes.DEFAULTS, operationTypeId, amount)), null);
+        entity.setTransactionId(98_765_432L);
+        entity.setBalance(entity.getAmount());
+        entity.setEventDate(LocalDateTime.of(2025, 1, 1, 10, 0, 0, 123_456_000));
+        response = TransactionMapper.toResponse(entity);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public long applySignRule() {
+        return TransactionAmountRule.applySignRule(OperationTypes.DEFAULTS, operationTypeId, amount);
+    }
+
+    @Benchmark
+    public TransactionEntity toEntity() {
+        return TransactionMapper.toEntity(request, account, amount, null);
+    }
+
+    @Benchmark
+    public TransactionResponse toResponse() {
+        return TransactionMapper.toResponse(entity);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
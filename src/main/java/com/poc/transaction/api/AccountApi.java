@@ -1,7 +1,10 @@
 package com.poc.transaction.api;
 
 import com.poc.transaction.model.request.AccountRequest;
+import com.poc.transaction.model.request.BatchAccountRequest;
+import com.poc.transaction.model.response.AccountBalanceResponse;
 import com.poc.transaction.model.response.AccountResponse;
+import com.poc.transaction.model.response.BatchAccountResponse;
 import com.poc.transaction.service.account.AccountService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -34,6 +37,17 @@ public class AccountApi {
         return ResponseEntity.status(201).body(accountService.createAccount(request));
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Create a batch of accounts, skipping document numbers that already have one")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, check the per-item results"),
+            @ApiResponse(responseCode = "400", description = "Bad request/ empty or oversized batch"),
+    })
+    public ResponseEntity<BatchAccountResponse> createAccounts(@Valid @RequestBody BatchAccountRequest request) {
+        log.info("Received batch of {} accounts", request.getAccounts().size());
+        return ResponseEntity.ok(accountService.createAccounts(request.getAccounts()));
+    }
+
     @GetMapping("/{accountId}")
     @Operation(summary = "Get account by ID")
     @ApiResponses(value = {
@@ -42,4 +56,13 @@ public class AccountApi {
     public ResponseEntity<AccountResponse> getAccount(@PathVariable Long accountId) {
         return ResponseEntity.ok(accountService.getAccount(accountId));
     }
+
+    @GetMapping("/{accountId}/balance")
+    @Operation(summary = "Get the available balance and outstanding debt of an account")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "404", description = "Account not found"),
+    })
+    public ResponseEntity<AccountBalanceResponse> getBalance(@PathVariable Long accountId) {
+        return ResponseEntity.ok(accountService.getBalance(accountId));
+    }
 }
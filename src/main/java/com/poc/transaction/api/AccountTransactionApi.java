@@ -0,0 +1,102 @@
+package com.poc.transaction.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.poc.transaction.model.request.TransactionHistoryFilter;
+import com.poc.transaction.model.response.TransactionPageResponse;
+import com.poc.transaction.service.transaction.TransactionHistoryService;
+import com.poc.transaction.service.transaction.TransactionHistoryServiceImpl;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/accounts/{accountId}/transactions")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Transaction History API", description = "Reading the transactions of an account")
+public class AccountTransactionApi {
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final TransactionHistoryService transactionHistoryService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Page through an account's transactions (keyset pagination, oldest first)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "400", description = "Invalid cursor"),
+            @ApiResponse(responseCode = "404", description = "Account not found"),
+    })
+    public ResponseEntity<TransactionPageResponse> getTransactions(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) List<Integer> operationTypeId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + TransactionHistoryServiceImpl.DEFAULT_PAGE_SIZE) int limit) {
+
+        return ResponseEntity.ok(transactionHistoryService.getTransactions(accountId, filter(from, to, operationTypeId), cursor, limit));
+    }
+
+    @GetMapping(produces = APPLICATION_NDJSON)
+    @Operation(summary = "Export all of an account's transactions as newline-delimited JSON (streamed)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "404", description = "Account not found"),
+    })
+    public ResponseEntity<StreamingResponseBody> streamTransactions(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) List<Integer> operationTypeId) {
+
+        // checked up front, once streaming has started the status can't change anymore
+        transactionHistoryService.requireAccount(accountId);
+        TransactionHistoryFilter filter = filter(from, to, operationTypeId);
+        // the response is flushed by the buffer, not after every row
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream, 64 * 1024);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                // one document per line, the newline is written explicitly after each row
+                generator.setRootValueSeparator(null);
+                transactionHistoryService.streamTransactions(accountId, filter, transaction -> {
+                    try {
+                        writer.writeValue(generator, transaction);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        log.info("Streaming transactions of accountId={}", accountId);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON)).body(body);
+    }
+
+    private static TransactionHistoryFilter filter(LocalDateTime from, LocalDateTime to, List<Integer> operationTypeIds) {
+        return TransactionHistoryFilter.builder()
+                .from(from)
+                .to(to)
+                .operationTypeIds(operationTypeIds)
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.poc.transaction.api;
+
+import com.poc.transaction.exception.ApiException;
+import com.poc.transaction.model.response.OperationTypeResponse;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.utils.mappers.OperationTypeMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/operation-types")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Operation Type API", description = "Catalog of transaction operation types")
+public class OperationTypeApi {
+
+    private final OperationTypeCatalog operationTypeCatalog;
+
+    @GetMapping
+    @Operation(summary = "List the operation types in use")
+    public ResponseEntity<List<OperationTypeResponse>> getOperationTypes() {
+        return ResponseEntity.ok(OperationTypeMapper.toResponses(operationTypeCatalog.current()));
+    }
+
+    @PostMapping("/refresh")
+    @Operation(summary = "Reload the operation types from the operation_types table, on every node")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Catalog reloaded"),
+            @ApiResponse(responseCode = "422", description = "Table holds an invalid operation type, the catalog is unchanged"),
+    })
+    public ResponseEntity<List<OperationTypeResponse>> refresh() {
+        try {
+            List<OperationTypeResponse> operationTypes = OperationTypeMapper.toResponses(operationTypeCatalog.refresh());
+            log.info("Operation type catalog refreshed, {} types", operationTypes.size());
+            return ResponseEntity.ok(operationTypes);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(e.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY, "INVALID_OPERATION_TYPES");
+        }
+    }
+}
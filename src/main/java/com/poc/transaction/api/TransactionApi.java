@@ -1,8 +1,15 @@
 package com.poc.transaction.api;
 
+import com.poc.transaction.model.request.BatchTransactionRequest;
 import com.poc.transaction.model.request.TransactionRequest;
+import com.poc.transaction.model.response.BatchTransactionResponse;
 import com.poc.transaction.model.response.TransactionResponse;
+import com.poc.transaction.model.response.TransactionStatusResponse;
+import com.poc.transaction.service.idempotency.IdempotencyService;
+import com.poc.transaction.service.idempotency.IdempotencyService.IdempotentAccept;
+import com.poc.transaction.service.idempotency.IdempotencyService.IdempotentResponse;
 import com.poc.transaction.service.transaction.TransactionService;
+import com.poc.transaction.service.transaction.async.AsyncTransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -13,6 +20,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+
 @RestController
 @RequestMapping("/transactions")
 @RequiredArgsConstructor
@@ -20,21 +29,84 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "Transaction API", description = "Operations related to transactions")
 public class TransactionApi {
 
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    public static final String RESPOND_ASYNC = "respond-async";
+    public static final String PREFERENCE_APPLIED = "Preference-Applied";
+
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final AsyncTransactionService asyncTransactionService;
 
     @PostMapping
     @Operation(summary = "Add transaction against an account")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Account created successfully"),
+            @ApiResponse(responseCode = "202", description = "Accepted for background processing (Prefer: respond-async)"),
             @ApiResponse(responseCode = "400", description = "Bad request/ validation error"),
             @ApiResponse(responseCode = "404", description = "Account not found"),
+            @ApiResponse(responseCode = "409", description = "Same Idempotency-Key still in progress"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key reused for a different request"),
+            @ApiResponse(responseCode = "503", description = "Async queue full or unavailable"),
     })
-    public ResponseEntity<TransactionResponse> createTransaction(
+    public ResponseEntity<?> createTransaction(
             @Valid @RequestBody TransactionRequest request,
-            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = "Prefer", required = false) String prefer) {
 
         log.info("Received request to create transaction with accountId={}", request.getAccountId());
-        TransactionResponse response = transactionService.createTransaction(request);
-        return ResponseEntity.status(201).body(response);
+        if (prefer != null && prefer.toLowerCase().contains(RESPOND_ASYNC)) {
+            return accept(request, idempotencyKey);
+        }
+        if (idempotencyKey == null) {
+            TransactionResponse response = transactionService.createTransaction(request);
+            return ResponseEntity.status(201).body(response);
+        }
+
+        // retries with the same key get the first response back instead of a second transaction
+        IdempotentResponse result = idempotencyService.execute(idempotencyKey, request, () -> transactionService.createTransaction(request));
+        return ResponseEntity.status(201)
+                .header(IDEMPOTENT_REPLAYED, Boolean.toString(result.replayed()))
+                .body(result.response());
+    }
+
+    // answered once the request is durably queued, the outcome is polled from the Location
+    private ResponseEntity<TransactionStatusResponse> accept(TransactionRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            TransactionStatusResponse accepted = asyncTransactionService.accept(request);
+            return accepted(accepted.getReference()).body(accepted);
+        }
+        // a retry gets the reference (and status URL) of the first accept back instead of queueing the transaction again
+        IdempotentAccept result = idempotencyService.accept(idempotencyKey, request,
+                () -> asyncTransactionService.accept(request).getReference());
+        return accepted(result.reference())
+                .header(IDEMPOTENT_REPLAYED, Boolean.toString(result.replayed()))
+                .body(TransactionStatusResponse.pending(result.reference()));
+    }
+
+    private static ResponseEntity.BodyBuilder accepted(String reference) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/transactions/status/" + reference))
+                .header(PREFERENCE_APPLIED, RESPOND_ASYNC);
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Add a batch of transactions, processed per account in parallel")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, check the per-item results"),
+            @ApiResponse(responseCode = "400", description = "Bad request/ empty or oversized batch"),
+    })
+    public ResponseEntity<BatchTransactionResponse> createTransactions(@Valid @RequestBody BatchTransactionRequest request) {
+        log.info("Received batch of {} transactions", request.getTransactions().size());
+        return ResponseEntity.ok(transactionService.createTransactions(request.getTransactions()));
+    }
+
+    @GetMapping("/status/{reference}")
+    @Operation(summary = "Get the outcome of a transaction accepted with Prefer: respond-async")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "PENDING, COMPLETED or FAILED"),
+            @ApiResponse(responseCode = "404", description = "Reference not found"),
+    })
+    public ResponseEntity<TransactionStatusResponse> getTransactionStatus(@PathVariable String reference) {
+        return ResponseEntity.ok(asyncTransactionService.getStatus(reference));
     }
 }
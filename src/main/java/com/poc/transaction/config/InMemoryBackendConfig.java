@@ -0,0 +1,19 @@
+package com.poc.transaction.config;
+
+import com.poc.transaction.repository.memory.InMemoryTransactionManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+// Backend for load tests on one box (profile "inmemory"): repositories and cache live in the JVM, no Postgres/Redis needed
+@Configuration
+@ConditionalOnProperty(name = "transaction.backend", havingValue = "memory")
+public class InMemoryBackendConfig {
+
+    // the DataSource/JPA auto-configuration is excluded with this backend, so there's no JpaTransactionManager
+    @Bean
+    public PlatformTransactionManager transactionManager() {
+        return new InMemoryTransactionManager();
+    }
+}
@@ -0,0 +1,11 @@
+package com.poc.transaction.config;
+
+import com.poc.transaction.service.pipeline.PipelineProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+// Replaces the fixed 4/8/50 taskExecutor - async side effects run on the named, bounded stages of the EventPipeline
+@Configuration
+@EnableConfigurationProperties(PipelineProperties.class)
+public class PipelineConfig {
+}
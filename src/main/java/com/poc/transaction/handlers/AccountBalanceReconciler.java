@@ -0,0 +1,31 @@
+package com.poc.transaction.handlers;
+
+import com.poc.transaction.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+// Recomputes the account balances from transactions and open items on startup (after the open items back-fill, before
+// anything replays transactions). Balances weren't maintained before, so a database from back then needs this once -
+// a full scan, switched off again afterwards.
+@Slf4j
+@Component
+@Order(1)
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "transaction.balance.reconcile-on-startup", havingValue = "true")
+public class AccountBalanceReconciler implements ApplicationRunner {
+
+    private final AccountRepository accountRepository;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        int updated = accountRepository.reconcileBalances();
+        log.info("Recomputed balances of {} accounts", updated);
+    }
+}
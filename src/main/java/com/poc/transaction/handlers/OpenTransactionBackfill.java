@@ -0,0 +1,44 @@
+package com.poc.transaction.handlers;
+
+import com.poc.transaction.repository.OpenTransactionRepository;
+import com.poc.transaction.repository.StartupTaskRepository;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+// Fills open_transactions from the transactions table once per database (schema comes from ddl-auto, so a database
+// created before the side table existed starts without its open items). Completion is recorded in startup_tasks: an
+// empty side table is normal once all debt is paid, and must not mean a full scan of transactions on every restart.
+@Slf4j
+@Component
+@Order(0)
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "transaction.open-items.backfill-on-startup", havingValue = "true", matchIfMissing = true)
+public class OpenTransactionBackfill implements ApplicationRunner {
+
+    static final String TASK = "open-transactions-backfill";
+
+    private final OpenTransactionRepository openTransactionRepository;
+    private final StartupTaskRepository startupTaskRepository;
+    private final OperationTypeCatalog operationTypeCatalog;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        if (startupTaskRepository.existsById(TASK)) {
+            return;
+        }
+        // open items present: back-filled by a build from before the marker, or written since the side table exists
+        if (openTransactionRepository.count() == 0) {
+            int inserted = openTransactionRepository.backfillFromTransactions(operationTypeCatalog.current().dischargeEligibleIds());
+            log.info("Back-filled {} open purchases into open_transactions", inserted);
+        }
+        startupTaskRepository.markCompleted(TASK);
+    }
+}
@@ -0,0 +1,26 @@
+package com.poc.transaction.handlers;
+
+import com.poc.transaction.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+// Keeps transactions_seq ahead of the ids of a database created while transaction ids were IDENTITY columns (see
+// TransactionRepository.alignIdSequence). Runs while the context starts - after ddl-auto created the sequence, before
+// the web server takes the first insert - not as an ApplicationRunner like the other startup steps. A no-op afterwards.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionSequenceAligner implements InitializingBean {
+
+    private final TransactionRepository transactionRepository;
+
+    @Override
+    public void afterPropertiesSet() {
+        Long aligned = transactionRepository.alignIdSequence();
+        if (aligned != null) {
+            log.info("Moved transactions_seq past the existing transaction ids, to {}", aligned);
+        }
+    }
+}
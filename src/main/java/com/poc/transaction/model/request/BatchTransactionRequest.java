@@ -0,0 +1,21 @@
+package com.poc.transaction.model.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchTransactionRequest {
+    // items are validated one by one in the service, so a single bad row doesn't reject the whole batch
+    @NotEmpty(message = "Transactions must not be empty")
+    @Size(max = 1000, message = "A batch can carry at most 1000 transactions")
+    private List<TransactionRequest> transactions;
+}
@@ -0,0 +1,19 @@
+package com.poc.transaction.model.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionHistoryFilter {
+    private LocalDateTime from;  // inclusive, optional
+    private LocalDateTime to;    // exclusive, optional
+    private List<Integer> operationTypeIds;  // optional, all types when empty
+}
@@ -0,0 +1,15 @@
+package com.poc.transaction.model.response;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountBalanceResponse {
+    private Long accountId;
+    private BigDecimal availableBalance; // sum of all transactions, purchases negative and payments positive
+    private BigDecimal outstandingDebt; // unpaid part of the purchases
+}
@@ -0,0 +1,53 @@
+package com.poc.transaction.model.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchAccountItemResult {
+    public static final String CREATED = "CREATED";
+    public static final String CONFLICT = "CONFLICT";
+    public static final String FAILED = "FAILED";
+
+    private int index;  // position of the item in the submitted batch
+    private String status;
+    private Long accountId;
+    private String documentNumber;
+    private String errorCode;
+    private String message;
+
+    public static BatchAccountItemResult created(int index, Long accountId, String documentNumber) {
+        return BatchAccountItemResult.builder()
+                .index(index)
+                .status(CREATED)
+                .accountId(accountId)
+                .documentNumber(documentNumber)
+                .build();
+    }
+
+    public static BatchAccountItemResult conflict(int index, String documentNumber, String errorCode, String message) {
+        return BatchAccountItemResult.builder()
+                .index(index)
+                .status(CONFLICT)
+                .documentNumber(documentNumber)
+                .errorCode(errorCode)
+                .message(message)
+                .build();
+    }
+
+    public static BatchAccountItemResult failed(int index, String errorCode, String message) {
+        return BatchAccountItemResult.builder()
+                .index(index)
+                .status(FAILED)
+                .errorCode(errorCode)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.poc.transaction.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchAccountResponse {
+    private int total;
+    private int created;
+    private int conflicts;
+    private int failed;
+    private List<BatchAccountItemResult> results;
+
+    public static BatchAccountResponse of(List<BatchAccountItemResult> results) {
+        int created = count(results, BatchAccountItemResult.CREATED);
+        int conflicts = count(results, BatchAccountItemResult.CONFLICT);
+        return BatchAccountResponse.builder()
+                .total(results.size())
+                .created(created)
+                .conflicts(conflicts)
+                .failed(results.size() - created - conflicts)
+                .results(results)
+                .build();
+    }
+
+    private static int count(List<BatchAccountItemResult> results, String status) {
+        return (int) results.stream().filter(r -> status.equals(r.getStatus())).count();
+    }
+}
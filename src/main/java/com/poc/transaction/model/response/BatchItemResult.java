@@ -0,0 +1,40 @@
+package com.poc.transaction.model.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+    public static final String CREATED = "CREATED";
+    public static final String FAILED = "FAILED";
+
+    private int index;  // position of the item in the submitted batch
+    private String status;
+    private Long transactionId;
+    private String errorCode;
+    private String message;
+
+    public static BatchItemResult created(int index, Long transactionId) {
+        return BatchItemResult.builder()
+                .index(index)
+                .status(CREATED)
+                .transactionId(transactionId)
+                .build();
+    }
+
+    public static BatchItemResult failed(int index, String errorCode, String message) {
+        return BatchItemResult.builder()
+                .index(index)
+                .status(FAILED)
+                .errorCode(errorCode)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.poc.transaction.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchTransactionResponse {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResult> results;
+
+    public static BatchTransactionResponse of(List<BatchItemResult> results) {
+        int succeeded = (int) results.stream().filter(r -> BatchItemResult.CREATED.equals(r.getStatus())).count();
+        return BatchTransactionResponse.builder()
+                .total(results.size())
+                .succeeded(succeeded)
+                .failed(results.size() - succeeded)
+                .results(results)
+                .build();
+    }
+}
@@ -0,0 +1,14 @@
+package com.poc.transaction.model.response;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OperationTypeResponse {
+    private int operationTypeId;
+    private String description;
+    private int sign; // -1 debit, +1 credit
+    private boolean dischargeEligible; // debit that payments pay off
+}
@@ -0,0 +1,18 @@
+package com.poc.transaction.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionPageResponse {
+    private List<TransactionResponse> items;
+    // opaque keyset cursor, pass it back as ?cursor= for the next page - null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,45 @@
+package com.poc.transaction.model.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.poc.transaction.repository.entity.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransactionStatusResponse {
+    private String reference;  // handed out with the 202, the key for status lookups
+    private TransactionStatus status;
+    private Long transactionId;  // set once COMPLETED
+    private String errorCode;  // set when FAILED
+    private String message;
+
+    public static TransactionStatusResponse pending(String reference) {
+        return TransactionStatusResponse.builder()
+                .reference(reference)
+                .status(TransactionStatus.PENDING)
+                .build();
+    }
+
+    public static TransactionStatusResponse completed(String reference, Long transactionId) {
+        return TransactionStatusResponse.builder()
+                .reference(reference)
+                .status(TransactionStatus.COMPLETED)
+                .transactionId(transactionId)
+                .build();
+    }
+
+    public static TransactionStatusResponse failed(String reference, String errorCode, String message) {
+        return TransactionStatusResponse.builder()
+                .reference(reference)
+                .status(TransactionStatus.FAILED)
+                .errorCode(errorCode)
+                .message(message)
+                .build();
+    }
+}
@@ -1,10 +1,59 @@
 package com.poc.transaction.repository;
 
 import com.poc.transaction.repository.entity.AccountEntity;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.math.BigDecimal;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface AccountRepository extends JpaRepository<AccountEntity, Long> {
+public interface AccountRepository extends BaseRepository<AccountEntity>, AccountRepositoryCustom {
     Optional<AccountEntity> findByDocumentNumber(String documentNumber);
+
+    // Every document number, as a server-side cursor (builds the document number filter) - must be consumed inside a
+    // transaction and closed
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "10000"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(" SELECT a.documentNumber FROM AccountEntity a")
+    Stream<String> streamDocumentNumbers();
+
+    // Adds a transaction to the maintained balances in one atomic statement - no read-modify-write, so concurrent
+    // writers can't lose an update. With requireFunds the row is only changed while the available balance stays >= 0,
+    // 0 rows updated then means insufficient funds. Entities already loaded keep their old values (not cleared on purpose,
+    // the caller still holds its account). Bumps the account version (see findVersion).
+    @Modifying
+    @Query(" UPDATE AccountEntity a SET a.availableBalance = a.availableBalance + :amount, a.outstandingDebt = a.outstandingDebt + :debt,"
+            + " a.version = a.version + 1"
+            + " WHERE a.accountId = :accountId AND (:requireFunds = false OR a.availableBalance + :amount >= 0)")
+    int applyBalanceChange(Long accountId, BigDecimal amount, BigDecimal debt, boolean requireFunds);
+
+    // Version of the account's open items: every transaction recorded on the account moves it on by one (purchases in
+    // applyBalanceChange, payments in applyPayment). Read before a discharge, it fences the payment (see applyPayment)
+    // and tells the open-item ledger whether its copy of the account is still current.
+    @Query(" SELECT a.version FROM AccountEntity a WHERE a.accountId = :accountId")
+    Long findVersion(Long accountId);
+
+    // A payment's balance change, only applied while the account version is still the one read before the discharge,
+    // and bumping it. 0 rows means another node recorded a transaction on this account meanwhile (its UPDATE waits
+    // for that commit and then no longer matches). Holds the row lock until commit.
+    @Modifying
+    @Query(" UPDATE AccountEntity a SET a.availableBalance = a.availableBalance + :amount, a.outstandingDebt = a.outstandingDebt + :debt,"
+            + " a.version = a.version + 1"
+            + " WHERE a.accountId = :accountId AND a.version = :version")
+    int applyPayment(Long accountId, BigDecimal amount, BigDecimal debt, Long version);
+
+    // Recomputes every account's balances from its transactions and open items - for databases written before the
+    // balances were maintained
+    @Modifying
+    @Query(value = "UPDATE accounts a SET "
+            + "available_balance = COALESCE((SELECT SUM(t.amount) FROM transactions t WHERE t.account_id = a.account_id), 0), "
+            + "outstanding_debt = COALESCE((SELECT -SUM(o.balance) FROM open_transactions o WHERE o.account_id = a.account_id), 0)",
+            nativeQuery = true)
+    int reconcileBalances();
 }
@@ -0,0 +1,16 @@
+package com.poc.transaction.repository;
+
+import com.poc.transaction.repository.entity.AccountEntity;
+
+import java.util.List;
+
+public interface AccountRepositoryCustom {
+    /**
+     * Creates an account for every document number that doesn't have one yet, in a single statement: document numbers
+     * that already exist (or are taken concurrently) are skipped by the unique constraint instead of failing the batch.
+     *
+     * @param documentNumbers distinct document numbers
+     * @return the accounts created, in no particular order - the missing document numbers are the conflicts
+     */
+    List<AccountEntity> insertMissing(List<String> documentNumbers);
+}
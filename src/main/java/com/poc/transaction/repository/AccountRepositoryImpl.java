@@ -0,0 +1,41 @@
+package com.poc.transaction.repository;
+
+import com.poc.transaction.repository.entity.AccountEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+// Spring Data picks this up as the implementation of AccountRepositoryCustom (naming convention: <Repository>Impl)
+public class AccountRepositoryImpl implements AccountRepositoryCustom {
+
+    // the document numbers go in as one array parameter, so the statement and its plan are the same for any batch size
+    private static final String INSERT_MISSING = "INSERT INTO accounts (document_number, available_balance, outstanding_debt)"
+            + " SELECT document_number, 0, 0 FROM unnest(?::varchar[]) AS input(document_number)"
+            + " ON CONFLICT (document_number) DO NOTHING"
+            + " RETURNING account_id, document_number";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccountRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<AccountEntity> insertMissing(List<String> documentNumbers) {
+        if (documentNumbers.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_MISSING);
+            statement.setArray(1, connection.createArrayOf("varchar", documentNumbers.toArray()));
+            return statement;
+        }, (rs, rowNum) -> AccountEntity.builder()
+                .accountId(rs.getLong("account_id"))
+                .documentNumber(rs.getString("document_number"))
+                .availableBalance(BigDecimal.ZERO)
+                .outstandingDebt(BigDecimal.ZERO)
+                .build());
+    }
+}
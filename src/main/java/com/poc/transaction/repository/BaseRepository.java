@@ -0,0 +1,29 @@
+package com.poc.transaction.repository;
+
+import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.List;
+
+/**
+ * What the entity repositories expose: CRUD plus the flush and batch delete methods of JpaRepository - all backed by
+ * Spring Data JPA's SimpleJpaRepository, and implemented in full by the in-memory backend. Paging, sorting and query
+ * by example aren't used, so they're left out.
+ */
+@NoRepositoryBean
+public interface BaseRepository<T> extends ListCrudRepository<T, Long> {
+
+    void flush();
+
+    <S extends T> S saveAndFlush(S entity);
+
+    <S extends T> List<S> saveAllAndFlush(Iterable<S> entities);
+
+    void deleteAllInBatch(Iterable<T> entities);
+
+    void deleteAllByIdInBatch(Iterable<Long> ids);
+
+    void deleteAllInBatch();
+
+    T getReferenceById(Long id);
+}
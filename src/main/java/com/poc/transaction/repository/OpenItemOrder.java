@@ -0,0 +1,11 @@
+package com.poc.transaction.repository;
+
+// Order open purchases are handed to a payment in (allocation policy) - ties are always broken oldest first
+public enum OpenItemOrder {
+    // FIFO by event date, follows the (account_id, event_date) index so nothing needs sorting
+    OLDEST_FIRST,
+    // largest unpaid balance first - sorts the account's due open items in the DB
+    HIGHEST_BALANCE_FIRST,
+    // operation types in the configured priority, unlisted types last - sorts the account's due open items in the DB
+    TYPE_PRIORITY
+}
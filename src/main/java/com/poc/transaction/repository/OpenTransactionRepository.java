@@ -0,0 +1,25 @@
+package com.poc.transaction.repository;
+
+import com.poc.transaction.repository.entity.OpenTransactionEntity;
+import com.poc.transaction.repository.projection.OpenItemView;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OpenTransactionRepository extends BaseRepository<OpenTransactionEntity>, OpenTransactionRepositoryCustom {
+
+    // Unpaid purchases of an account oldest first, as lightweight projections - used to hydrate the open-item ledger
+    // operationTypeIds: the discharge-eligible types of the operation type catalog
+    @Query(" SELECT o.transactionId AS transactionId, o.eventDate AS eventDate, o.balance AS balance FROM OpenTransactionEntity o WHERE o.accountId = :accountId AND o.operationTypeId IN :operationTypeIds ORDER BY o.eventDate, o.transactionId")
+    List<OpenItemView> fetchOpenItems(Long accountId, Collection<Integer> operationTypeIds);
+
+    // One-off fill for databases created before the side table existed, operationTypeIds: the discharge-eligible types
+    @Modifying
+    @Query(value = "INSERT INTO open_transactions (transaction_id, account_id, operation_type_id, event_date, balance) "
+            + "SELECT t.transaction_id, t.account_id, t.operation_type_id, t.event_date, t.balance FROM transactions t "
+            + "WHERE t.operation_type_id IN (:operationTypeIds) AND t.balance <> 0 "
+            + "ON CONFLICT (transaction_id) DO NOTHING", nativeQuery = true)
+    int backfillFromTransactions(Collection<Integer> operationTypeIds);
+}
@@ -0,0 +1,32 @@
+package com.poc.transaction.repository;
+
+import com.poc.transaction.repository.projection.OpenItemView;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface OpenTransactionRepositoryCustom {
+    /**
+     * Applies discharged balances to the open items as JDBC batches: fully paid items (balance 0) are deleted,
+     * partially paid ones get their new balance.
+     *
+     * @param transactionIds ids of the discharged purchases
+     * @param balances       new balance per id (same index)
+     * @param count          number of leading entries of both arrays to apply
+     */
+    void applyBalances(long[] transactionIds, BigDecimal[] balances, int count);
+
+    /**
+     * Due open purchases of an account (event date up to {@code now}) as a server-side cursor, in the given order.
+     * Rows are fetched {@code fetchSize} at a time, so a caller that stops early only pays for what it read.
+     * Must be consumed inside a transaction and closed.
+     *
+     * @param operationTypeIds the discharge-eligible types of the operation type catalog
+     * @param typePriority     operation type ids, highest priority first - only used by {@link OpenItemOrder#TYPE_PRIORITY}
+     */
+    Stream<OpenItemView> streamOpenItems(Long accountId, Collection<Integer> operationTypeIds, LocalDateTime now,
+                                         OpenItemOrder order, List<Integer> typePriority, int fetchSize);
+}
@@ -0,0 +1,97 @@
+package com.poc.transaction.repository;
+
+import com.poc.transaction.repository.projection.OpenItemView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Spring Data picks this up as the implementation of OpenTransactionRepositoryCustom (naming convention: <Repository>Impl)
+public class OpenTransactionRepositoryImpl implements OpenTransactionRepositoryCustom {
+
+    private static final String DUE_OPEN_ITEMS = "SELECT o.transaction_id, o.event_date, o.balance FROM open_transactions o"
+            + " WHERE o.account_id = ? AND o.operation_type_id = ANY (?) AND o.event_date <= ? AND o.balance < 0 ORDER BY ";
+
+    private record OpenItem(Long transactionId, LocalDateTime eventDate, BigDecimal balance) implements OpenItemView {
+
+        @Override
+        public Long getTransactionId() {
+            return transactionId;
+        }
+
+        @Override
+        public LocalDateTime getEventDate() {
+            return eventDate;
+        }
+
+        @Override
+        public BigDecimal getBalance() {
+            return balance;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public OpenTransactionRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void applyBalances(long[] transactionIds, BigDecimal[] balances, int count) {
+        if (count == 0) {
+            return;
+        }
+        // open items inserted earlier in this DB transaction have to reach the table first
+        entityManager.flush();
+        List<Object[]> paidOff = new ArrayList<>();
+        List<Object[]> partiallyPaid = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (balances[i].signum() == 0) {
+                paidOff.add(new Object[]{transactionIds[i]});
+            } else {
+                partiallyPaid.add(new Object[]{balances[i], transactionIds[i]});
+            }
+        }
+        if (!paidOff.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM open_transactions WHERE transaction_id = ?", paidOff);
+        }
+        if (!partiallyPaid.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE open_transactions SET balance = ? WHERE transaction_id = ?", partiallyPaid);
+        }
+    }
+
+    @Override
+    public Stream<OpenItemView> streamOpenItems(Long accountId, Collection<Integer> operationTypeIds, LocalDateTime now,
+                                                OpenItemOrder order, List<Integer> typePriority, int fetchSize) {
+        // open items inserted earlier in this DB transaction have to reach the table first
+        entityManager.flush();
+        String sql = DUE_OPEN_ITEMS + switch (order) {
+            case OLDEST_FIRST -> "o.event_date, o.transaction_id";
+            case HIGHEST_BALANCE_FIRST -> "o.balance, o.event_date, o.transaction_id";
+            // array_position is NULL for types that aren't listed, NULLs sort last
+            case TYPE_PRIORITY -> "array_position(?, o.operation_type_id), o.event_date, o.transaction_id";
+        };
+        return jdbcTemplate.queryForStream(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            // with autocommit off (inside the transaction) the driver reads a cursor fetchSize rows at a time
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, accountId);
+            statement.setArray(2, connection.createArrayOf("integer", operationTypeIds.toArray()));
+            statement.setObject(3, now);
+            if (order == OpenItemOrder.TYPE_PRIORITY) {
+                statement.setArray(4, connection.createArrayOf("integer", typePriority.toArray()));
+            }
+            return statement;
+        }, (rs, row) -> new OpenItem(rs.getLong(1), rs.getObject(2, LocalDateTime.class), rs.getBigDecimal(3)));
+    }
+}
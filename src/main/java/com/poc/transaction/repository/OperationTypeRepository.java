@@ -0,0 +1,14 @@
+package com.poc.transaction.repository;
+
+import com.poc.transaction.repository.entity.OperationTypeEntity;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+
+// Only what the catalog needs: the whole (small) table at once, and seeding it
+public interface OperationTypeRepository extends Repository<OperationTypeEntity, Integer> {
+
+    List<OperationTypeEntity> findAll();
+
+    <S extends OperationTypeEntity> List<S> saveAll(Iterable<S> operationTypes);
+}
@@ -0,0 +1,20 @@
+package com.poc.transaction.repository;
+
+import com.poc.transaction.repository.entity.OutboxEventEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends BaseRepository<OutboxEventEntity> {
+
+    // Oldest events first, locked FOR UPDATE SKIP LOCKED (lock timeout -2) - relays on several nodes each take a different batch
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query(" SELECT e FROM OutboxEventEntity e ORDER BY e.id")
+    List<OutboxEventEntity> lockNextBatch(Limit limit);
+}
@@ -0,0 +1,18 @@
+package com.poc.transaction.repository;
+
+import com.poc.transaction.repository.entity.StartupTaskEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+
+// Completion markers of the one-off startup tasks
+public interface StartupTaskRepository extends Repository<StartupTaskEntity, String> {
+
+    boolean existsById(String name);
+
+    // nodes starting together may both complete the task, the first marker wins
+    @Modifying
+    @Query(value = "INSERT INTO startup_tasks (name, completed_at) VALUES (:name, now()) ON CONFLICT (name) DO NOTHING",
+            nativeQuery = true)
+    int markCompleted(String name);
+}
@@ -2,19 +2,62 @@ package com.poc.transaction.repository;
 
 import com.poc.transaction.repository.entity.AccountEntity;
 import com.poc.transaction.repository.entity.TransactionEntity;
-import org.springframework.data.jpa.repository.JpaRepository;
+import com.poc.transaction.repository.projection.TransactionRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface TransactionRepository extends JpaRepository<TransactionEntity, Long> {
+public interface TransactionRepository extends BaseRepository<TransactionEntity>, TransactionRepositoryCustom {
     // Option 1: Query using AccountEntity object
     List<TransactionEntity> findByAccount(AccountEntity account);
 
     // Option 2: Query directly using accountId
     List<TransactionEntity> findByAccount_AccountId(Long accountId);
 
-    @Query(" SELECT t FROM TransactionEntity t WHERE t.account.accountId = :accountId AND t.operationTypeId IN (1, 2, 3) AND t.balance != 0 AND t.eventDate <= :currentDateTime")
-    List<TransactionEntity> fetchTransactions(Long accountId, LocalDateTime currentDateTime);
+    // Open purchases are located through the open_transactions side table (indexed by account and event date),
+    // so the cost follows the number of unpaid items instead of the whole history of the account.
+    // operationTypeIds: the discharge-eligible types of the operation type catalog. Oldest first, the order payments pay them in
+    @Query(" SELECT t FROM TransactionEntity t WHERE t.transactionId IN (SELECT o.transactionId FROM OpenTransactionEntity o WHERE o.accountId = :accountId AND o.operationTypeId IN :operationTypeIds AND o.eventDate <= :currentDateTime) ORDER BY t.eventDate, t.transactionId")
+    List<TransactionEntity> fetchTransactions(Long accountId, Collection<Integer> operationTypeIds, LocalDateTime currentDateTime);
+
+    // Keyset (seek) page of an account's history ordered by (eventDate, transactionId): starts right after the
+    // (afterDate, afterId) of the previous page's last row, so any page costs the same as the first one.
+    // The OR alone isn't an index bound for Postgres (it would range over the whole period and filter): the redundant
+    // `eventDate >= :afterDate` is, and makes the scan of idx_transactions_account_event start at the cursor
+    @Query(" SELECT new com.poc.transaction.repository.projection.TransactionRow(t.transactionId, t.account.accountId, t.operationTypeId, t.amount, t.balance, t.eventDate) FROM TransactionEntity t"
+            + " WHERE t.account.accountId = :accountId AND t.operationTypeId IN :operationTypeIds AND t.eventDate >= :from AND t.eventDate < :to"
+            + " AND t.eventDate >= :afterDate AND (t.eventDate > :afterDate OR (t.eventDate = :afterDate AND t.transactionId > :afterId))"
+            + " ORDER BY t.eventDate, t.transactionId")
+    List<TransactionRow> findHistoryPage(Long accountId, Collection<Integer> operationTypeIds, LocalDateTime from, LocalDateTime to,
+                                         LocalDateTime afterDate, Long afterId, Limit limit);
+
+    // Whole (filtered) history as a server-side cursor - must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(" SELECT new com.poc.transaction.repository.projection.TransactionRow(t.transactionId, t.account.accountId, t.operationTypeId, t.amount, t.balance, t.eventDate) FROM TransactionEntity t"
+            + " WHERE t.account.accountId = :accountId AND t.operationTypeId IN :operationTypeIds AND t.eventDate >= :from AND t.eventDate < :to"
+            + " ORDER BY t.eventDate, t.transactionId")
+    Stream<TransactionRow> streamHistory(Long accountId, Collection<Integer> operationTypeIds, LocalDateTime from, LocalDateTime to);
+
+    // Moves transactions_seq past the highest id in the table (plus one allocation), unless it's already ahead. Ids came
+    // from IDENTITY before the sequence, and ddl-auto creates it at 1 on such a database - the first inserts would
+    // collide with existing rows. Returns the new sequence value, null when nothing had to move.
+    @Query(value = "SELECT setval('transactions_seq', m.max_id + " + TransactionEntity.ID_ALLOCATION_SIZE + ")"
+            + " FROM (SELECT MAX(transaction_id) AS max_id FROM transactions) m, transactions_seq s"
+            + " WHERE m.max_id >= s.last_value", nativeQuery = true)
+    Long alignIdSequence();
+
+    // resolves the reference of an asynchronously accepted request once it's been processed
+    @Query(" SELECT t.transactionId FROM TransactionEntity t WHERE t.reference = :reference")
+    Optional<Long> findIdByReference(String reference);
 }
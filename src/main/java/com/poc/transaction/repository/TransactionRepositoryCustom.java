@@ -0,0 +1,34 @@
+package com.poc.transaction.repository;
+
+import com.poc.transaction.repository.projection.DischargeSummary;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface TransactionRepositoryCustom {
+    /**
+     * Writes new balances for the given transactions as one JDBC batch, without loading the entities, and bumps their
+     * version so a concurrent writer holding them as entities fails its flush.
+     * Pending changes of the persistence context are flushed first so rows inserted in the same DB transaction are visible.
+     *
+     * @param transactionIds ids of the transactions to update
+     * @param balances       new balance per id (same index)
+     * @param count          number of leading entries of both arrays to write
+     */
+    void updateBalances(long[] transactionIds, BigDecimal[] balances, int count);
+
+    /**
+     * Allocates a payment over the account's open purchases in one statement, oldest first (event date, then id): each
+     * purchase takes what it owes from what the earlier ones left, from running totals of the open balances. Paid
+     * purchases get their new balance in transactions and open_transactions, paid off ones leave open_transactions.
+     * Pending changes of the persistence context are flushed first so rows inserted in the same DB transaction are visible.
+     *
+     * @param accountId        the paying account
+     * @param operationTypeIds the discharge-eligible operation types
+     * @param now              purchases dated later aren't paid yet
+     * @param payment          the (positive) payment amount
+     * @return how much of the payment was used, the rest is its remaining balance
+     */
+    DischargeSummary dischargeOpenItems(Long accountId, Collection<Integer> operationTypeIds, LocalDateTime now, BigDecimal payment);
+}
@@ -0,0 +1,76 @@
+package com.poc.transaction.repository;
+
+import com.poc.transaction.repository.projection.DischargeSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Spring Data picks this up as the implementation of TransactionRepositoryCustom (naming convention: <Repository>Impl)
+public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
+
+    // owed_before: what the older open purchases add up to, so a purchase is reached while that is below the payment and
+    // takes min(what it owes, what's left). The data-modifying CTEs all run to completion, whether or not they're read.
+    private static final String DISCHARGE_OPEN_ITEMS = "WITH open_items AS ("
+            + "  SELECT o.transaction_id, o.balance,"
+            + "         SUM(-o.balance) OVER (ORDER BY o.event_date, o.transaction_id) + o.balance AS owed_before"
+            + "  FROM open_transactions o"
+            + "  WHERE o.account_id = ? AND o.operation_type_id = ANY (?) AND o.event_date <= ? AND o.balance < 0"
+            + "), paid AS ("
+            + "  SELECT transaction_id, balance AS old_balance, balance + LEAST(-balance, ? - owed_before) AS new_balance"
+            + "  FROM open_items WHERE owed_before < ?"
+            + "), purchases AS ("
+            + "  UPDATE transactions t SET balance = p.new_balance, version = t.version + 1 FROM paid p WHERE t.transaction_id = p.transaction_id"
+            + "), paid_off AS ("
+            + "  DELETE FROM open_transactions o USING paid p WHERE o.transaction_id = p.transaction_id AND p.new_balance = 0"
+            + "), partly_paid AS ("
+            + "  UPDATE open_transactions o SET balance = p.new_balance FROM paid p"
+            + "  WHERE o.transaction_id = p.transaction_id AND p.new_balance <> 0"
+            + ") SELECT (SELECT COUNT(*) FROM open_items) AS open_items, COUNT(*) AS touched,"
+            + "  COALESCE(SUM(new_balance - old_balance), 0) AS discharged FROM paid";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public TransactionRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void updateBalances(long[] transactionIds, BigDecimal[] balances, int count) {
+        if (count == 0) {
+            return;
+        }
+        entityManager.flush();
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{balances[i], transactionIds[i]});
+        }
+        jdbcTemplate.batchUpdate("UPDATE transactions SET balance = ?, version = version + 1 WHERE transaction_id = ?", rows);
+    }
+
+    @Override
+    public DischargeSummary dischargeOpenItems(Long accountId, Collection<Integer> operationTypeIds, LocalDateTime now, BigDecimal payment) {
+        entityManager.flush();
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(DISCHARGE_OPEN_ITEMS);
+            statement.setLong(1, accountId);
+            statement.setArray(2, connection.createArrayOf("integer", operationTypeIds.toArray()));
+            statement.setObject(3, now);
+            statement.setBigDecimal(4, payment);
+            statement.setBigDecimal(5, payment);
+            return statement;
+        }, rs -> {
+            rs.next();
+            return new DischargeSummary(rs.getInt("open_items"), rs.getInt("touched"), rs.getBigDecimal("discharged"));
+        });
+    }
+}
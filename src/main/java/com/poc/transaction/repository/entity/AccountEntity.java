@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 
@@ -15,7 +16,7 @@ import java.math.BigDecimal;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class AccountEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -25,5 +26,20 @@ public class AccountEntity {
     private String documentNumber;
 
     @Column(nullable = false, precision = 19, scale = 2)
+    @Builder.Default
     private BigDecimal availableBalance = BigDecimal.ZERO;  // default 0 and use of BigDecimal for avoiding floating point issues or rounding errors
+
+    // unpaid part of the purchases, kept up to date together with availableBalance (see AccountRepository.applyBalanceChange)
+    // the column default lets ddl-auto add it to a table that already has rows
+    @Column(nullable = false, precision = 19, scale = 2)
+    @ColumnDefault("0")
+    @Builder.Default
+    private BigDecimal outstandingDebt = BigDecimal.ZERO;
+
+    // bumped by every transaction recorded on the account (see AccountRepository.findVersion) - a payment that finds it
+    // changed since it read the open items lost a race with another node and is retried
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
 }
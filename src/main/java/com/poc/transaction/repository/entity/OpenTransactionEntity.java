@@ -0,0 +1,67 @@
+package com.poc.transaction.repository.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Side table holding only the unpaid purchases (balance <> 0), so discharge never scans settled history.
+// A row is inserted together with its purchase and deleted in the same DB transaction that pays it off.
+@Entity
+@Table(name = "open_transactions", indexes = {
+        @Index(name = "idx_open_transactions_account_event", columnList = "account_id, event_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class OpenTransactionEntity implements Persistable<Long> {
+    // same id as the row in transactions
+    @Id
+    private Long transactionId;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private int operationTypeId;
+
+    @Column(nullable = false)
+    private LocalDateTime eventDate;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal balance;
+
+    // the id is assigned (not generated), without this save() would merge - i.e. SELECT before every insert
+    @Transient
+    @Builder.Default
+    private boolean newEntity = true;
+
+    @Override
+    public Long getId() {
+        return transactionId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
+}
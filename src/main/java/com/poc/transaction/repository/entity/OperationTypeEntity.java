@@ -0,0 +1,34 @@
+package com.poc.transaction.repository.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Catalog of operation types - read into an in-memory snapshot (OperationTypeCatalog), never on the request path
+@Entity
+@Table(name = "operation_types")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class OperationTypeEntity {
+    // the operation_type_id of transactions
+    @Id
+    private Integer operationTypeId;
+
+    @Column(nullable = false)
+    private String description;
+
+    // -1 debit (purchase, withdrawal), +1 credit (payment) - credits discharge open debits
+    @Column(nullable = false)
+    private int sign;
+
+    // debits that stay open until payments pay them off (open_transactions, outstanding debt)
+    @Column(nullable = false)
+    private boolean dischargeEligible;
+}
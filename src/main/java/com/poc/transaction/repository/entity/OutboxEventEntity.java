@@ -0,0 +1,40 @@
+package com.poc.transaction.repository.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Transactional outbox - written in the same DB transaction as the account/transaction it describes, relayed to the sinks
+// and deleted afterwards, so an event exists if and only if its row was committed
+@Entity
+@Table(name = "outbox_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class OutboxEventEntity {
+    // sequence so the inserts join the JDBC batches of the rows they're written with, also the relay order
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private OutboxEventType eventType;
+
+    // account or transaction id
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    // JSON of the API response for the aggregate
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
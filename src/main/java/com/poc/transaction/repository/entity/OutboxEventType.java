@@ -0,0 +1,7 @@
+package com.poc.transaction.repository.entity;
+
+// Events written to the outbox together with the row they describe
+public enum OutboxEventType {
+    ACCOUNT_CREATED,
+    TRANSACTION_CREATED
+}
@@ -0,0 +1,26 @@
+package com.poc.transaction.repository.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One row per one-off startup task (e.g. a back-fill) that has completed on this database, so it isn't run again
+@Entity
+@Table(name = "startup_tasks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StartupTaskEntity {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime completedAt;
+}
@@ -7,19 +7,28 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        // serves the keyset-paginated history per account
+        @Index(name = "idx_transactions_account_event", columnList = "account_id, event_date, transaction_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class TransactionEntity {
+    // ids Hibernate takes from transactions_seq per round trip
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // sequence (not IDENTITY) so Hibernate can assign ids up front and group the inserts into JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long transactionId;
 
     //Proper foreign key mapping - this can be changed without joining the AccountEntity
@@ -40,6 +49,18 @@ public class TransactionEntity {
     @Column(nullable = false)
     private LocalDateTime eventDate;
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionStatus status;
+
+    // reference handed out when the request was accepted asynchronously, null for synchronous creates
+    @Column(unique = true, length = 36)
+    private String reference;
+
+    // optimistic lock - purchases changed through the entity (entity discharge) fail the flush if another node changed
+    // them meanwhile. The JDBC balance updates bump it too (see TransactionRepositoryCustom.updateBalances).
+    @Version
     @Column(nullable = false)
-    private String status;
+    @ColumnDefault("0")
+    private Long version;
 }
@@ -0,0 +1,8 @@
+package com.poc.transaction.repository.entity;
+
+// Lifecycle of a transaction request - rows are written COMPLETED, PENDING/FAILED exist for requests accepted asynchronously
+public enum TransactionStatus {
+    PENDING,
+    COMPLETED,
+    FAILED
+}
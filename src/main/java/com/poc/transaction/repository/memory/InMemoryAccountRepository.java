@@ -0,0 +1,122 @@
+package com.poc.transaction.repository.memory;
+
+import com.poc.transaction.repository.AccountRepository;
+import com.poc.transaction.repository.entity.AccountEntity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+// Accounts of the in-memory backend, the document number index enforces the unique constraint of the table
+@Repository
+@ConditionalOnProperty(name = "transaction.backend", havingValue = "memory")
+public class InMemoryAccountRepository extends InMemoryRepository<AccountEntity> implements AccountRepository {
+
+    private final ConcurrentMap<String, Long> byDocumentNumber = new ConcurrentHashMap<>();
+
+    public InMemoryAccountRepository() {
+        super(AccountEntity::getAccountId, AccountEntity::setAccountId, account -> account.toBuilder().build());
+    }
+
+    @Override
+    public Optional<AccountEntity> findByDocumentNumber(String documentNumber) {
+        Long accountId = byDocumentNumber.get(documentNumber);
+        return accountId == null ? Optional.empty() : findById(accountId);
+    }
+
+    // the account object itself is the row, updates of one account are serialized on it like on the row lock
+    @Override
+    public int applyBalanceChange(Long accountId, BigDecimal amount, BigDecimal debt, boolean requireFunds) {
+        AccountEntity account = rows.get(accountId);
+        if (account == null) {
+            return 0;
+        }
+        touch(accountId);
+        synchronized (account) {
+            BigDecimal availableBalance = account.getAvailableBalance().add(amount);
+            if (requireFunds && availableBalance.signum() < 0) {
+                return 0;
+            }
+            account.setAvailableBalance(availableBalance);
+            account.setOutstandingDebt(account.getOutstandingDebt().add(debt));
+            account.setVersion(version(account) + 1);
+            return 1;
+        }
+    }
+
+    @Override
+    public Long findVersion(Long accountId) {
+        AccountEntity account = rows.get(accountId);
+        return account == null ? null : version(account);
+    }
+
+    @Override
+    public int applyPayment(Long accountId, BigDecimal amount, BigDecimal debt, Long version) {
+        AccountEntity account = rows.get(accountId);
+        if (account == null) {
+            return 0;
+        }
+        touch(accountId);
+        synchronized (account) {
+            if (version(account) != version) {
+                return 0;
+            }
+            account.setAvailableBalance(account.getAvailableBalance().add(amount));
+            account.setOutstandingDebt(account.getOutstandingDebt().add(debt));
+            account.setVersion(version + 1);
+            return 1;
+        }
+    }
+
+    // what the column default gives accounts saved without one
+    private static long version(AccountEntity account) {
+        return account.getVersion() == null ? 0 : account.getVersion();
+    }
+
+    @Override
+    public Stream<String> streamDocumentNumbers() {
+        return rows.values().stream().map(AccountEntity::getDocumentNumber);
+    }
+
+    @Override
+    public List<AccountEntity> insertMissing(List<String> documentNumbers) {
+        List<AccountEntity> created = new ArrayList<>();
+        for (String documentNumber : documentNumbers) {
+            if (byDocumentNumber.containsKey(documentNumber)) {
+                continue;
+            }
+            try {
+                created.add(save(AccountEntity.builder().documentNumber(documentNumber).build()));
+            } catch (DataIntegrityViolationException e) {
+                // taken concurrently - a conflict, like ON CONFLICT DO NOTHING
+            }
+        }
+        return created;
+    }
+
+    // balances are maintained from the first transaction of the (always empty) store, there's nothing to catch up on
+    @Override
+    public int reconcileBalances() {
+        return 0;
+    }
+
+    @Override
+    protected void beforeSave(AccountEntity account, Long accountId) {
+        Long owner = byDocumentNumber.putIfAbsent(account.getDocumentNumber(), accountId);
+        if (owner != null && !owner.equals(accountId)) {
+            throw new DataIntegrityViolationException("Duplicate document number " + account.getDocumentNumber());
+        }
+    }
+
+    @Override
+    protected void removed(AccountEntity account) {
+        byDocumentNumber.remove(account.getDocumentNumber(), account.getAccountId());
+    }
+}
@@ -0,0 +1,124 @@
+package com.poc.transaction.repository.memory;
+
+import com.poc.transaction.repository.OpenItemOrder;
+import com.poc.transaction.repository.OpenTransactionRepository;
+import com.poc.transaction.repository.entity.OpenTransactionEntity;
+import com.poc.transaction.repository.projection.OpenItemView;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+// Open items of the in-memory backend, indexed per account oldest first like idx on (account_id, event_date)
+@Repository
+@ConditionalOnProperty(name = "transaction.backend", havingValue = "memory")
+public class InMemoryOpenTransactionRepository extends InMemoryRepository<OpenTransactionEntity> implements OpenTransactionRepository {
+
+    private static final Comparator<OpenTransactionEntity> OLDEST_FIRST = Comparator
+            .comparing(OpenTransactionEntity::getEventDate)
+            .thenComparing(OpenTransactionEntity::getTransactionId);
+
+    private record OpenItem(Long transactionId, LocalDateTime eventDate, BigDecimal balance) implements OpenItemView {
+
+        @Override
+        public Long getTransactionId() {
+            return transactionId;
+        }
+
+        @Override
+        public LocalDateTime getEventDate() {
+            return eventDate;
+        }
+
+        @Override
+        public BigDecimal getBalance() {
+            return balance;
+        }
+    }
+
+    private final ConcurrentMap<Long, NavigableSet<OpenTransactionEntity>> byAccount = new ConcurrentHashMap<>();
+
+    public InMemoryOpenTransactionRepository() {
+        super(OpenTransactionEntity::getTransactionId, OpenTransactionEntity::setTransactionId, item -> item.toBuilder().build());
+    }
+
+    @Override
+    public List<OpenItemView> fetchOpenItems(Long accountId, Collection<Integer> operationTypeIds) {
+        return openItems(accountId)
+                .filter(item -> operationTypeIds.contains(item.getOperationTypeId()))
+                .<OpenItemView>map(item -> new OpenItem(item.getTransactionId(), item.getEventDate(), item.getBalance()))
+                .toList();
+    }
+
+    // the in-memory store starts empty on every run, there are no transactions from before the side table
+    @Override
+    public int backfillFromTransactions(Collection<Integer> operationTypeIds) {
+        return 0;
+    }
+
+    @Override
+    public void applyBalances(long[] transactionIds, BigDecimal[] balances, int count) {
+        for (int i = 0; i < count; i++) {
+            if (balances[i].signum() == 0) {
+                deleteById(transactionIds[i]);
+            } else {
+                OpenTransactionEntity item = rows.get(transactionIds[i]);
+                if (item != null) {
+                    touch(transactionIds[i]);
+                    item.setBalance(balances[i]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Stream<OpenItemView> streamOpenItems(Long accountId, Collection<Integer> operationTypeIds, LocalDateTime now,
+                                                OpenItemOrder order, List<Integer> typePriority, int fetchSize) {
+        Stream<OpenTransactionEntity> due = openItems(accountId)
+                .filter(item -> operationTypeIds.contains(item.getOperationTypeId())
+                        && !item.getEventDate().isAfter(now) && item.getBalance().signum() < 0);
+        // same orders as the SQL one, the per-account set already is oldest first
+        due = switch (order) {
+            case OLDEST_FIRST -> due;
+            case HIGHEST_BALANCE_FIRST -> due.sorted(Comparator.comparing(OpenTransactionEntity::getBalance).thenComparing(OLDEST_FIRST));
+            case TYPE_PRIORITY -> due.sorted(Comparator.<OpenTransactionEntity>comparingInt(item -> {
+                int priority = typePriority.indexOf(item.getOperationTypeId());
+                return priority < 0 ? Integer.MAX_VALUE : priority;
+            }).thenComparing(OLDEST_FIRST));
+        };
+        return due.map(item -> new OpenItem(item.getTransactionId(), item.getEventDate(), item.getBalance()));
+    }
+
+    /**
+     * Open items of an account oldest first - what the fetchTransactions sub-select of the transactions table reads.
+     */
+    Stream<OpenTransactionEntity> openItems(Long accountId) {
+        NavigableSet<OpenTransactionEntity> items = byAccount.get(accountId);
+        return items == null ? Stream.empty() : items.stream();
+    }
+
+    @Override
+    protected void saved(OpenTransactionEntity previous, OpenTransactionEntity item) {
+        if (previous != null && previous != item) {
+            removed(previous);
+        }
+        byAccount.computeIfAbsent(item.getAccountId(), id -> new ConcurrentSkipListSet<>(OLDEST_FIRST)).add(item);
+    }
+
+    @Override
+    protected void removed(OpenTransactionEntity item) {
+        NavigableSet<OpenTransactionEntity> items = byAccount.get(item.getAccountId());
+        if (items != null) {
+            items.remove(item);
+        }
+    }
+}
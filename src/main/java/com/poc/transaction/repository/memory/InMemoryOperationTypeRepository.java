@@ -0,0 +1,34 @@
+package com.poc.transaction.repository.memory;
+
+import com.poc.transaction.repository.OperationTypeRepository;
+import com.poc.transaction.repository.entity.OperationTypeEntity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Operation types of the in-memory backend, starts empty so the catalog seeds its defaults like on a new database
+@Repository
+@ConditionalOnProperty(name = "transaction.backend", havingValue = "memory")
+public class InMemoryOperationTypeRepository implements OperationTypeRepository {
+
+    private final ConcurrentNavigableMap<Integer, OperationTypeEntity> rows = new ConcurrentSkipListMap<>();
+
+    @Override
+    public List<OperationTypeEntity> findAll() {
+        return new ArrayList<>(rows.values());
+    }
+
+    @Override
+    public <S extends OperationTypeEntity> List<S> saveAll(Iterable<S> operationTypes) {
+        List<S> saved = new ArrayList<>();
+        for (S operationType : operationTypes) {
+            rows.put(operationType.getOperationTypeId(), operationType);
+            saved.add(operationType);
+        }
+        return saved;
+    }
+}
@@ -0,0 +1,27 @@
+package com.poc.transaction.repository.memory;
+
+import com.poc.transaction.repository.OutboxEventRepository;
+import com.poc.transaction.repository.entity.OutboxEventEntity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Outbox of the in-memory backend - a single node runs a single relay, so the oldest events need no locking
+@Repository
+@ConditionalOnProperty(name = "transaction.backend", havingValue = "memory")
+public class InMemoryOutboxEventRepository extends InMemoryRepository<OutboxEventEntity> implements OutboxEventRepository {
+
+    public InMemoryOutboxEventRepository() {
+        super(OutboxEventEntity::getId, OutboxEventEntity::setId, event -> event.toBuilder().build());
+    }
+
+    @Override
+    public List<OutboxEventEntity> lockNextBatch(Limit limit) {
+        return rows.values().stream()
+                .limit(limit.isLimited() ? limit.max() : Long.MAX_VALUE)
+                .map(this::loaded)
+                .toList();
+    }
+}
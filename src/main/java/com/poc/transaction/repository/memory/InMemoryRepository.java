@@ -0,0 +1,201 @@
+package com.poc.transaction.repository.memory;
+
+import com.poc.transaction.repository.BaseRepository;
+import jakarta.persistence.EntityNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * {@link BaseRepository} kept in a concurrent map, for the in-memory backend.
+ * - Rows are stored by reference, like managed entities: changes to a loaded entity are visible without a save.
+ * - Ids come from a counter when the entity has none, rows are kept (and returned) in id order.
+ * - Subclasses keep their secondary indexes in step through {@link #beforeSave}, {@link #saved} and {@link #removed}.
+ * - Inside an {@link InMemoryTransactionManager} transaction, every row handed out or written is {@link #touch touched}
+ *   first: its before image (a copy) goes to the transaction's undo log and is put back on rollback. Subclasses touch
+ *   rows they load or change through {@link #rows} themselves.
+ */
+public abstract class InMemoryRepository<T> implements BaseRepository<T> {
+
+    protected final ConcurrentNavigableMap<Long, T> rows = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Function<T, Long> idOf;
+    private final BiConsumer<T, Long> assignId;
+    private final UnaryOperator<T> copy;
+
+    protected InMemoryRepository(Function<T, Long> idOf, BiConsumer<T, Long> assignId, UnaryOperator<T> copy) {
+        this.idOf = idOf;
+        this.assignId = assignId;
+        this.copy = copy;
+    }
+
+    // unique constraints are checked here, before the row is stored - throw DataIntegrityViolationException like the DB would
+    protected void beforeSave(T entity, Long id) {
+    }
+
+    protected void saved(T previous, T entity) {
+    }
+
+    protected void removed(T entity) {
+    }
+
+    /**
+     * Records the row's before image in the running transaction's undo log, the first time the transaction touches it.
+     * Call it before handing a row out or changing it; no-op outside a transaction.
+     */
+    protected void touch(Long id) {
+        UndoLog undoLog = InMemoryTransactionManager.currentUndoLog();
+        if (undoLog == null || !undoLog.firstTouch(this, id)) {
+            return;
+        }
+        T row = rows.get(id);
+        T before = row == null ? null : copy.apply(row);
+        undoLog.add(() -> restore(id, before));
+    }
+
+    /**
+     * The row as handed out to the caller, touched first since the caller may change it.
+     */
+    protected T loaded(T row) {
+        touch(idOf.apply(row));
+        return row;
+    }
+
+    // puts the before image back (with its indexes), or removes a row the transaction inserted
+    private void restore(Long id, T before) {
+        T current = rows.remove(id);
+        if (current != null) {
+            removed(current);
+        }
+        if (before != null) {
+            beforeSave(before, id);
+            rows.put(id, before);
+            saved(null, before);
+        }
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        Long id = idOf.apply(entity);
+        if (id == null) {
+            id = sequence.incrementAndGet();
+            assignId.accept(entity, id);
+        } else {
+            // ids assigned by the caller (open items share the transaction's id) move the sequence past them
+            sequence.accumulateAndGet(id, Math::max);
+        }
+        touch(id);
+        beforeSave(entity, id);
+        T previous = rows.put(id, entity);
+        saved(previous, entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> result = new ArrayList<>();
+        entities.forEach(entity -> result.add(save(entity)));
+        return result;
+    }
+
+    @Override
+    public Optional<T> findById(Long id) {
+        T row = rows.get(id);
+        return row == null ? Optional.empty() : Optional.of(loaded(row));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return rows.containsKey(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        List<T> result = new ArrayList<>(rows.size());
+        rows.values().forEach(row -> result.add(loaded(row)));
+        return result;
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<Long> ids) {
+        List<T> result = new ArrayList<>();
+        ids.forEach(id -> findById(id).ifPresent(result::add));
+        return result;
+    }
+
+    @Override
+    public long count() {
+        return rows.size();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        touch(id);
+        T removed = rows.remove(id);
+        if (removed != null) {
+            removed(removed);
+        }
+    }
+
+    @Override
+    public void delete(T entity) {
+        deleteById(idOf.apply(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        rows.keySet().forEach(this::deleteById);
+    }
+
+    @Override
+    public void flush() {
+        // nothing is buffered
+    }
+
+    @Override
+    public <S extends T> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends T> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<T> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    public T getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("No row with id " + id));
+    }
+}
@@ -0,0 +1,27 @@
+package com.poc.transaction.repository.memory;
+
+import com.poc.transaction.repository.StartupTaskRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Startup task markers of the in-memory backend - gone with the process, like everything else in it
+@Repository
+@ConditionalOnProperty(name = "transaction.backend", havingValue = "memory")
+public class InMemoryStartupTaskRepository implements StartupTaskRepository {
+
+    private final ConcurrentMap<String, LocalDateTime> completed = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean existsById(String name) {
+        return completed.containsKey(name);
+    }
+
+    @Override
+    public int markCompleted(String name) {
+        return completed.putIfAbsent(name, LocalDateTime.now()) == null ? 1 : 0;
+    }
+}
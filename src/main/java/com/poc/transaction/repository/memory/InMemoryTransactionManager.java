@@ -0,0 +1,93 @@
+package com.poc.transaction.repository.memory;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SmartTransactionObject;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Transaction manager of the in-memory backend: keeps the transaction boundaries (propagation, synchronizations,
+ * rollback callbacks such as the ledger eviction) and an {@link UndoLog} per transaction.
+ * - Writes go to the repositories right away (visible to other threads before the commit, like read uncommitted).
+ * - On rollback every row the transaction loaded or wrote is put back the way it was before, inserts are removed.
+ */
+public class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+
+    // bound to the thread while a transaction is active
+    private static final Object RESOURCE_KEY = new Object();
+
+    /**
+     * Undo log of the transaction running on this thread, null outside one (or under another transaction manager).
+     */
+    static UndoLog currentUndoLog() {
+        return (UndoLog) TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        return new Transaction(currentUndoLog());
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((Transaction) transaction).undoLog != null;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        UndoLog undoLog = new UndoLog();
+        ((Transaction) transaction).undoLog = undoLog;
+        TransactionSynchronizationManager.bindResource(RESOURCE_KEY, undoLog);
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        ((Transaction) transaction).undoLog = null;
+        return TransactionSynchronizationManager.unbindResource(RESOURCE_KEY);
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+        TransactionSynchronizationManager.bindResource(RESOURCE_KEY, suspendedResources);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        // everything is written already, the before images are dropped with the transaction
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        ((Transaction) status.getTransaction()).undoLog.rollback();
+    }
+
+    @Override
+    protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+        // a participating transaction failed, the outermost one rolls back instead of committing
+        ((Transaction) status.getTransaction()).undoLog.setRollbackOnly();
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+    }
+
+    private static final class Transaction implements SmartTransactionObject {
+        private UndoLog undoLog;
+
+        Transaction(UndoLog undoLog) {
+            this.undoLog = undoLog;
+        }
+
+        @Override
+        public boolean isRollbackOnly() {
+            return undoLog != null && undoLog.isRollbackOnly();
+        }
+
+        @Override
+        public void flush() {
+            // nothing buffered
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.poc.transaction.repository.memory;
+
+import com.poc.transaction.repository.TransactionRepository;
+import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.entity.OpenTransactionEntity;
+import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.repository.projection.DischargeSummary;
+import com.poc.transaction.repository.projection.TransactionRow;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Transactions of the in-memory backend, same results as the JPQL queries of {@link TransactionRepository}:
+ * - history is served from a per-account index ordered by (eventDate, transactionId), like idx_transactions_account_event.
+ * - fetchTransactions goes through the open items, i.e. unpaid debits of the given types with an event date up to now.
+ * - the reference is unique, like its column.
+ */
+@Repository
+@ConditionalOnProperty(name = "transaction.backend", havingValue = "memory")
+public class InMemoryTransactionRepository extends InMemoryRepository<TransactionEntity> implements TransactionRepository {
+
+    private static final Comparator<TransactionEntity> HISTORY_ORDER = Comparator
+            .comparing(TransactionEntity::getEventDate)
+            .thenComparing(TransactionEntity::getTransactionId);
+
+    private final InMemoryOpenTransactionRepository openTransactionRepository;
+    private final ConcurrentMap<Long, NavigableSet<TransactionEntity>> byAccount = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> byReference = new ConcurrentHashMap<>();
+
+    public InMemoryTransactionRepository(InMemoryOpenTransactionRepository openTransactionRepository) {
+        super(TransactionEntity::getTransactionId, TransactionEntity::setTransactionId, transaction -> transaction.toBuilder().build());
+        this.openTransactionRepository = openTransactionRepository;
+    }
+
+    @Override
+    public List<TransactionEntity> findByAccount(AccountEntity account) {
+        return findByAccount_AccountId(account.getAccountId());
+    }
+
+    @Override
+    public List<TransactionEntity> findByAccount_AccountId(Long accountId) {
+        return history(accountId).map(this::loaded).toList();
+    }
+
+    @Override
+    public List<TransactionEntity> fetchTransactions(Long accountId, Collection<Integer> operationTypeIds, LocalDateTime currentDateTime) {
+        return openTransactionRepository.openItems(accountId)
+                .filter(item -> operationTypeIds.contains(item.getOperationTypeId()) && !item.getEventDate().isAfter(currentDateTime))
+                .map(item -> rows.get(item.getTransactionId()))
+                .filter(Objects::nonNull)
+                .map(this::loaded)
+                .toList();
+    }
+
+    @Override
+    public List<TransactionRow> findHistoryPage(Long accountId, Collection<Integer> operationTypeIds, LocalDateTime from, LocalDateTime to,
+                                                LocalDateTime afterDate, Long afterId, Limit limit) {
+        NavigableSet<TransactionEntity> transactions = byAccount.get(accountId);
+        if (transactions == null) {
+            return List.of();
+        }
+        // seek straight past the previous page's last row
+        TransactionEntity after = TransactionEntity.builder().eventDate(afterDate).transactionId(afterId).build();
+        Stream<TransactionRow> rows = filtered(transactions.tailSet(after, false).stream(), operationTypeIds, from, to);
+        return (limit.isLimited() ? rows.limit(limit.max()) : rows).toList();
+    }
+
+    @Override
+    public Stream<TransactionRow> streamHistory(Long accountId, Collection<Integer> operationTypeIds, LocalDateTime from, LocalDateTime to) {
+        return filtered(history(accountId), operationTypeIds, from, to);
+    }
+
+    @Override
+    public Optional<Long> findIdByReference(String reference) {
+        return Optional.ofNullable(byReference.get(reference));
+    }
+
+    // ids come from the store's own counter, there's no sequence to keep ahead of them
+    @Override
+    public Long alignIdSequence() {
+        return null;
+    }
+
+    @Override
+    public void updateBalances(long[] transactionIds, BigDecimal[] balances, int count) {
+        for (int i = 0; i < count; i++) {
+            TransactionEntity transaction = rows.get(transactionIds[i]);
+            if (transaction != null) {
+                touch(transactionIds[i]);
+                transaction.setBalance(balances[i]);
+            }
+        }
+    }
+
+    // same walk as the statement's running totals: oldest first, until the payment is used up
+    @Override
+    public DischargeSummary dischargeOpenItems(Long accountId, Collection<Integer> operationTypeIds, LocalDateTime now, BigDecimal payment) {
+        List<OpenTransactionEntity> open = openTransactionRepository.openItems(accountId)
+                .filter(item -> operationTypeIds.contains(item.getOperationTypeId()) && !item.getEventDate().isAfter(now)
+                        && item.getBalance().signum() < 0)
+                .toList();
+        long[] ids = new long[open.size()];
+        BigDecimal[] balances = new BigDecimal[open.size()];
+        int touched = 0;
+        BigDecimal remaining = payment;
+        for (OpenTransactionEntity item : open) {
+            if (remaining.signum() <= 0) {
+                break;
+            }
+            BigDecimal offset = item.getBalance().negate().min(remaining);
+            remaining = remaining.subtract(offset);
+            ids[touched] = item.getTransactionId();
+            balances[touched++] = item.getBalance().add(offset);
+        }
+        updateBalances(ids, balances, touched);
+        openTransactionRepository.applyBalances(ids, balances, touched);
+        return new DischargeSummary(open.size(), touched, payment.subtract(remaining));
+    }
+
+    @Override
+    protected void beforeSave(TransactionEntity transaction, Long transactionId) {
+        if (transaction.getReference() == null) {
+            return;
+        }
+        Long owner = byReference.putIfAbsent(transaction.getReference(), transactionId);
+        if (owner != null && !owner.equals(transactionId)) {
+            throw new DataIntegrityViolationException("Duplicate reference " + transaction.getReference());
+        }
+    }
+
+    @Override
+    protected void saved(TransactionEntity previous, TransactionEntity transaction) {
+        if (previous != null && previous != transaction) {
+            removed(previous);
+        }
+        byAccount.computeIfAbsent(transaction.getAccount().getAccountId(), id -> new ConcurrentSkipListSet<>(HISTORY_ORDER))
+                .add(transaction);
+    }
+
+    @Override
+    protected void removed(TransactionEntity transaction) {
+        NavigableSet<TransactionEntity> transactions = byAccount.get(transaction.getAccount().getAccountId());
+        if (transactions != null) {
+            transactions.remove(transaction);
+        }
+        if (transaction.getReference() != null) {
+            byReference.remove(transaction.getReference(), transaction.getTransactionId());
+        }
+    }
+
+    private Stream<TransactionEntity> history(Long accountId) {
+        NavigableSet<TransactionEntity> transactions = byAccount.get(accountId);
+        return transactions == null ? Stream.empty() : transactions.stream();
+    }
+
+    // the index is ordered by event date, so everything from `to` on can be skipped
+    private static Stream<TransactionRow> filtered(Stream<TransactionEntity> transactions, Collection<Integer> operationTypeIds,
+                                                   LocalDateTime from, LocalDateTime to) {
+        return transactions
+                .takeWhile(t -> t.getEventDate().isBefore(to))
+                .filter(t -> !t.getEventDate().isBefore(from) && operationTypeIds.contains(t.getOperationTypeId()))
+                .map(t -> new TransactionRow(t.getTransactionId(), t.getAccount().getAccountId(), t.getOperationTypeId(),
+                        t.getAmount(), t.getBalance(), t.getEventDate()));
+    }
+}
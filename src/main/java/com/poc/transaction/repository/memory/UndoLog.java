@@ -0,0 +1,47 @@
+package com.poc.transaction.repository.memory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Before images of the rows an in-memory transaction touched, replayed newest first on rollback.
+ * - A row is recorded once, the first time the transaction loads or writes it - later changes are undone by that image.
+ * - Bound to the thread by {@link InMemoryTransactionManager} while the transaction runs.
+ */
+final class UndoLog {
+
+    private record RowKey(InMemoryRepository<?> repository, Long id) {
+    }
+
+    private final Set<RowKey> touched = new HashSet<>();
+    private final List<Runnable> undo = new ArrayList<>();
+    // set by a participating transaction that failed, the outermost one then can't commit
+    private boolean rollbackOnly;
+
+    // whether the row is new to this transaction, i.e. its before image still has to be recorded
+    boolean firstTouch(InMemoryRepository<?> repository, Long id) {
+        return touched.add(new RowKey(repository, id));
+    }
+
+    void add(Runnable restore) {
+        undo.add(restore);
+    }
+
+    boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    void setRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    void rollback() {
+        for (int i = undo.size() - 1; i >= 0; i--) {
+            undo.get(i).run();
+        }
+        undo.clear();
+        touched.clear();
+    }
+}
@@ -0,0 +1,10 @@
+package com.poc.transaction.repository.projection;
+
+import java.math.BigDecimal;
+
+// Outcome of a discharge run inside the database: open purchases considered, purchases (partly) paid off and the part of
+// the payment they took
+public record DischargeSummary(int openItems,
+                               int purchasesTouched,
+                               BigDecimal discharged) {
+}
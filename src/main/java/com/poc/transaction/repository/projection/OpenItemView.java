@@ -0,0 +1,13 @@
+package com.poc.transaction.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Read-only view of an unpaid purchase - just what the discharge needs, without loading the entity
+public interface OpenItemView {
+    Long getTransactionId();
+
+    LocalDateTime getEventDate();
+
+    BigDecimal getBalance();
+}
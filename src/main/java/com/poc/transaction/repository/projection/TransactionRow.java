@@ -0,0 +1,13 @@
+package com.poc.transaction.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Unmanaged read model of a transaction row (JPQL constructor expression) - history reads never enter the persistence context
+public record TransactionRow(Long transactionId,
+                             Long accountId,
+                             int operationTypeId,
+                             BigDecimal amount,
+                             BigDecimal balance,
+                             LocalDateTime eventDate) {
+}
@@ -1,9 +1,15 @@
 package com.poc.transaction.service.account;
 
 import com.poc.transaction.model.request.AccountRequest;
+import com.poc.transaction.model.response.AccountBalanceResponse;
 import com.poc.transaction.model.response.AccountResponse;
+import com.poc.transaction.model.response.BatchAccountResponse;
+
+import java.util.List;
 
 public interface AccountService {
     AccountResponse createAccount(AccountRequest request);
+    BatchAccountResponse createAccounts(List<AccountRequest> requests);
     AccountResponse getAccount(Long accountId);
+    AccountBalanceResponse getBalance(Long accountId);
 }
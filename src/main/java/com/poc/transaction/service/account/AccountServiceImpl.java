@@ -1,17 +1,30 @@
 package com.poc.transaction.service.account;
 
 import com.poc.transaction.exception.ApiException;
-import com.poc.transaction.handlers.AsyncEventDispatcher;
 import com.poc.transaction.model.request.AccountRequest;
+import com.poc.transaction.model.response.AccountBalanceResponse;
 import com.poc.transaction.model.response.AccountResponse;
+import com.poc.transaction.model.response.BatchAccountItemResult;
+import com.poc.transaction.model.response.BatchAccountResponse;
 import com.poc.transaction.repository.AccountRepository;
 import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.entity.OutboxEventType;
 import com.poc.transaction.service.cache.CacheService;
+import com.poc.transaction.service.metrics.StageMetrics;
+import com.poc.transaction.service.outbox.OutboxService;
+import com.poc.transaction.service.pipeline.EventPipeline;
 import com.poc.transaction.utils.mappers.AccountMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.poc.transaction.utils.Constants.CACHE_PREFIX;
@@ -21,48 +34,146 @@ import static com.poc.transaction.utils.Constants.CACHE_PREFIX;
 public class AccountServiceImpl implements AccountService {
 
     private final AccountRepository accountRepository;
-    private final AsyncEventDispatcher asyncEventDispatcher;
+    private final OutboxService outboxService;
+    private final EventPipeline eventPipeline;
     private final CacheService cacheService;
+    private final MissingAccountCache missingAccountCache;
+    private final StageMetrics stageMetrics;
+    private final DocumentNumberFilter documentNumberFilter;
 
 
+    @Transactional
     public AccountResponse createAccount(AccountRequest request) {
-        accountRepository.findByDocumentNumber(request.getDocumentNumber())
-                .ifPresent(existing -> {
-                    throw new ApiException("Account with this document already exists",
-                            HttpStatus.CONFLICT, "ACCOUNT_EXISTS");
-                });
+        // a new document number - the normal case - goes straight to the insert
+        if (documentNumberFilter.mightContain(request.getDocumentNumber())) {
+            accountRepository.findByDocumentNumber(request.getDocumentNumber())
+                    .ifPresentOrElse(existing -> {
+                        throw accountExists();
+                    }, documentNumberFilter::falsePositive);
+        }
 
+        long start = stageMetrics.start(stageMetrics.sample());
         AccountEntity entity = AccountMapper.toEntity(request);
-        AccountEntity saved = accountRepository.save(entity);
+        AccountEntity saved;
+        try {
+            saved = accountRepository.save(entity);
+        } catch (DataIntegrityViolationException e) {
+            // the unique constraint has the last word: created concurrently, or on a node this filter hasn't heard of
+            throw accountExists();
+        }
+        stageMetrics.record(StageMetrics.Stage.ACCOUNT_CREATE, start);
+        documentNumberFilter.add(saved.getDocumentNumber());
+
+        // the id may have been probed before it existed
+        missingAccountCache.clear(saved.getAccountId());
+
+        // committed together with the account - the relay then warms the cache and publishes the audit event
+        AccountResponse response = AccountMapper.toResponse(saved);
+        outboxService.record(OutboxEventType.ACCOUNT_CREATED, saved.getAccountId(), response);
+
+        return response;
+    }
 
-        // Fire async process for cache (doesn't block API response or may emit even before db update which is okay in this case) fire-and-forget (ec)
-        asyncEventDispatcher.handlePostAccountCreation(saved);
+    // One statement for the whole batch, whatever its size: duplicates within the payload are settled here, duplicates
+    // of existing accounts by the unique constraint (ON CONFLICT DO NOTHING) - no lookup per document number.
+    // Created accounts go through the outbox like single ones, the relay then warms the cache a whole batch at a time.
+    @Transactional
+    public BatchAccountResponse createAccounts(List<AccountRequest> requests) {
+        BatchAccountItemResult[] results = new BatchAccountItemResult[requests.size()];
+        // first position of each document number, in payload order
+        Map<String, Integer> firstIndex = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            AccountRequest request = requests.get(i);
+            String documentNumber = request == null ? null : request.getDocumentNumber();
+            if (documentNumber == null || documentNumber.isBlank()) {
+                results[i] = BatchAccountItemResult.failed(i, "INVALID_DOCUMENT_NUMBER", "Document number must not be empty");
+            } else if (firstIndex.putIfAbsent(documentNumber, i) != null) {
+                results[i] = BatchAccountItemResult.conflict(i, documentNumber, "DUPLICATE_IN_BATCH",
+                        "Document number appears earlier in the batch");
+            }
+        }
+
+        long start = stageMetrics.start(stageMetrics.sample());
+        List<AccountEntity> created = accountRepository.insertMissing(new ArrayList<>(firstIndex.keySet()));
+        stageMetrics.record(StageMetrics.Stage.ACCOUNT_CREATE_BATCH, start);
+
+        // created or already taken, all of them exist now
+        firstIndex.keySet().forEach(documentNumberFilter::add);
+        for (AccountEntity saved : created) {
+            int index = firstIndex.remove(saved.getDocumentNumber());
+            results[index] = BatchAccountItemResult.created(index, saved.getAccountId(), saved.getDocumentNumber());
+            missingAccountCache.clear(saved.getAccountId());
+            outboxService.record(OutboxEventType.ACCOUNT_CREATED, saved.getAccountId(), AccountMapper.toResponse(saved));
+        }
+        // not returned by the insert - already taken
+        firstIndex.forEach((documentNumber, index) -> results[index] = BatchAccountItemResult.conflict(index, documentNumber,
+                "ACCOUNT_EXISTS", "Account with this document already exists"));
 
-        return AccountMapper.toResponse(saved);
+        return BatchAccountResponse.of(Arrays.asList(results));
+    }
+
+    private static ApiException accountExists() {
+        return new ApiException("Account with this document already exists", HttpStatus.CONFLICT, "ACCOUNT_EXISTS");
     }
 
     public AccountResponse getAccount(Long accountId) {
         String cacheKey = CACHE_PREFIX + accountId;
 
+        // sampled once: a miss times its DB load along with the cache lookup
+        boolean sampled = stageMetrics.sample();
+
         // Try cache first
+        long start = stageMetrics.start(sampled);
         Object cached = cacheService.get(cacheKey);
+        stageMetrics.record(StageMetrics.Stage.ACCOUNT_CACHE, start);
         if (cached instanceof AccountResponse) {
             return (AccountResponse) cached;
         }
 
+        // known unknown id - answered without going to the DB
+        if (missingAccountCache.isMissing(accountId)) {
+            throw new ApiException("Account not found", HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+        }
+
+        // concurrent misses of the same account share one DB lookup (e.g. right after its cache entry expired)
+        return cacheService.load(cacheKey, () -> loadAccount(accountId, cacheKey, sampled));
+    }
+
+    // answered from the balances maintained with every transaction - a primary key read, no matter how long the history is.
+    // Not cached: they change with every transaction, a cached copy would be stale most of the time
+    public AccountBalanceResponse getBalance(Long accountId) {
+        // known unknown id - answered without going to the DB
+        if (missingAccountCache.isMissing(accountId)) {
+            throw new ApiException("Account not found", HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+        }
+
+        long start = stageMetrics.start(stageMetrics.sample());
+        Optional<AccountEntity> entityOpt = accountRepository.findById(accountId);
+        stageMetrics.record(StageMetrics.Stage.ACCOUNT_LOAD, start);
+        if (entityOpt.isEmpty()) {
+            missingAccountCache.markMissing(accountId);
+            throw new ApiException("Account not found", HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+        }
+        return AccountMapper.toBalanceResponse(entityOpt.get());
+    }
+
+    private AccountResponse loadAccount(Long accountId, String cacheKey, boolean sampled) {
         // DB lookup
+        long start = stageMetrics.start(sampled);
         Optional<AccountEntity> entityOpt = accountRepository.findById(accountId);
+        stageMetrics.record(StageMetrics.Stage.ACCOUNT_LOAD, start);
 
         //throw not found exception if not present
         if (entityOpt.isEmpty()) {
+            missingAccountCache.markMissing(accountId);
             throw new ApiException("Account not found", HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
         }
 
         AccountResponse response = AccountMapper.toResponse(entityOpt.get());
 
         // Cache result with TTL (avoid stale data)
-        // Asynchronously cache the response
-        cacheService.set(cacheKey, response);
+        // Asynchronously cache the response - a slow or unavailable Redis doesn't hold up the lookup
+        eventPipeline.submit(EventPipeline.CACHE_WRITE, () -> cacheService.set(cacheKey, response));
 
         return response;
     }
@@ -0,0 +1,142 @@
+package com.poc.transaction.service.account;
+
+import com.poc.transaction.repository.AccountRepository;
+import com.poc.transaction.utils.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over the document numbers of all accounts, so creating an account with a new document number - the
+ * normal case - skips the findByDocumentNumber round trip.
+ * - "Absent" is definite for everything this node has seen: the accounts that existed when the filter was built, and
+ *   every account created here since. "Maybe present" still goes to the DB.
+ * - Built in the background once the application is up, by streaming the accounts table. Until it's complete, and when
+ *   it's disabled, every document number is "maybe present" - creation works as before.
+ * - Not shared between nodes: an account created on another node after the build is missed here, its insert then hits
+ *   the unique constraint, which stays the authority on duplicates.
+ * Exported: account.document.filter{result} (absent = lookup skipped, present, false-positive), size and expected
+ * false positive rate.
+ */
+@Slf4j
+@Component
+public class DocumentNumberFilter {
+
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long expectedAccounts;
+    private final BloomFilter filter;
+    private final AtomicLong insertions = new AtomicLong();
+    private final Counter absent;
+    private final Counter present;
+    private final Counter falsePositives;
+    private volatile boolean ready;
+
+    public DocumentNumberFilter(AccountRepository accountRepository,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${transaction.accounts.document-filter.enabled:true}") boolean enabled,
+                                @Value("${transaction.accounts.document-filter.expected-accounts:1000000}") long expectedAccounts,
+                                @Value("${transaction.accounts.document-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.expectedAccounts = expectedAccounts;
+        this.filter = enabled ? BloomFilter.create(expectedAccounts, falsePositiveRate) : null;
+        this.absent = counter(meterRegistry, "absent");
+        this.present = counter(meterRegistry, "present");
+        this.falsePositives = counter(meterRegistry, "false-positive");
+        if (enabled) {
+            Gauge.builder("account.document.filter.size", filter, f -> f.bitSize() / 8.0)
+                    .description("Memory of the document number filter")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+            Gauge.builder("account.document.filter.fpp", this, f -> f.filter.expectedFalsePositiveRate(f.insertions.get()))
+                    .description("False positive rate expected at the current number of document numbers")
+                    .register(meterRegistry);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        Thread builder = new Thread(this::load, "document-filter-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * False only when no account has this document number (as far as this node knows) - the lookup can be skipped.
+     */
+    public boolean mightContain(String documentNumber) {
+        if (!ready) {
+            return true;
+        }
+        if (filter.mightContain(documentNumber)) {
+            present.increment();
+            return true;
+        }
+        absent.increment();
+        return false;
+    }
+
+    public void add(String documentNumber) {
+        if (enabled) {
+            filter.put(documentNumber);
+            insertions.incrementAndGet();
+        }
+    }
+
+    // a "maybe present" the lookup then didn't find
+    public void falsePositive() {
+        falsePositives.increment();
+    }
+
+    /**
+     * Builds the filter on the calling thread. Creates running meanwhile add to the same bits, nothing they add gets lost.
+     */
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> documentNumbers = accountRepository.streamDocumentNumbers()) {
+                    documentNumbers.forEach(this::add);
+                }
+            });
+            ready = true;
+            long count = insertions.get();
+            log.info("Document number filter built from {} accounts in {} ms ({} KB, expected false positive rate {})",
+                    count, (System.nanoTime() - start) / 1_000_000, filter.bitSize() / 8 / 1024,
+                    String.format("%.4f", filter.expectedFalsePositiveRate(count)));
+            if (count > expectedAccounts) {
+                log.warn("{} accounts exceed transaction.accounts.document-filter.expected-accounts={}, false positives will rise",
+                        count, expectedAccounts);
+            }
+        } catch (RuntimeException e) {
+            // stays "maybe present" for everything, account creation just keeps doing the lookup
+            log.warn("Could not build the document number filter, document numbers are looked up on every create", e);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("account.document.filter")
+                .description("Document number checks of account creation")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
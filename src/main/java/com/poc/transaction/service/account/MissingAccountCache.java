@@ -0,0 +1,61 @@
+package com.poc.transaction.service.account;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.poc.transaction.service.cache.CacheInvalidationBus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Negative cache of account ids that were looked up and don't exist, shared by every account lookup path.
+ * - Kept in memory only: checking it is free for the (far more common) existing ids, and a flood of bad ids costs
+ *   at most one DB query per id and node per TTL.
+ * - Creating an account clears its id here and, through the cache invalidation bus, on every other node.
+ * - A lookup racing with the creation of the same id can still cache it as missing - the short TTL bounds that.
+ */
+@Component
+public class MissingAccountCache {
+
+    static final String KEY_PREFIX = "account-missing:";
+
+    private final Cache<Long, Boolean> missing;
+    private final CacheInvalidationBus invalidationBus;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public MissingAccountCache(CacheInvalidationBus invalidationBus,
+                               @Value("${transaction.accounts.negative-cache.ttl:30s}") Duration ttl,
+                               @Value("${transaction.accounts.negative-cache.max-entries:100000}") long maxEntries,
+                               MeterRegistry meterRegistry) {
+        this.invalidationBus = invalidationBus;
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, missing, "account.missing");
+
+        invalidationBus.subscribe(invalidation -> {
+            if (!nodeId.equals(invalidation.origin()) && invalidation.key().startsWith(KEY_PREFIX)) {
+                missing.invalidate(Long.valueOf(invalidation.key().substring(KEY_PREFIX.length())));
+            }
+        });
+    }
+
+    public boolean isMissing(Long accountId) {
+        return missing.getIfPresent(accountId) != null;
+    }
+
+    public void markMissing(Long accountId) {
+        missing.put(accountId, Boolean.TRUE);
+    }
+
+    public void clear(Long accountId) {
+        missing.invalidate(accountId);
+        invalidationBus.publish(new CacheInvalidationBus.Invalidation(nodeId, KEY_PREFIX + accountId));
+    }
+}
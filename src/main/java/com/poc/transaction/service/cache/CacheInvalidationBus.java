@@ -0,0 +1,23 @@
+package com.poc.transaction.service.cache;
+
+import java.util.function.Consumer;
+
+public interface CacheInvalidationBus {
+    /**
+     * Tells every node to drop a key from its near cache.
+     *
+     * @param invalidation the key and the node that changed it
+     */
+    void publish(Invalidation invalidation);
+
+    /**
+     * Registers a listener for invalidations published by any node (including the caller's own).
+     *
+     * @param listener receives each invalidation
+     */
+    void subscribe(Consumer<Invalidation> listener);
+
+    // origin lets a node skip its own messages, it already updated its near cache
+    record Invalidation(String origin, String key) {
+    }
+}
@@ -1,5 +1,8 @@
 package com.poc.transaction.service.cache;
 
+import java.util.Map;
+import java.util.function.Supplier;
+
 public interface CacheService {
     /**
      * Saves an object in the cache with the specified key.
@@ -9,6 +12,14 @@ public interface CacheService {
      */
     void set(String key, Object value);
 
+    /**
+     * Saves a batch of objects in one round trip. Meant for keys no node has cached yet (e.g. accounts just created):
+     * unlike {@link #set}, no invalidation is broadcast for them.
+     *
+     * @param values the objects to be cached, by key
+     */
+    void putAll(Map<String, ?> values);
+
     /**
      * Retrieves an object from the cache by its key.
      *
@@ -23,4 +34,14 @@ public interface CacheService {
      * @param key the key of the cached object to be removed
      */
     void remove(String key);
+
+    /**
+     * Runs the loader of a key that missed the cache, at most once at a time per key on this node:
+     * callers asking for the same key while a load is running wait for it and share its result or exception.
+     *
+     * @param key    the key that missed
+     * @param loader loads the value (and usually caches it)
+     * @return the loaded value
+     */
+    <T> T load(String key, Supplier<T> loader);
 }
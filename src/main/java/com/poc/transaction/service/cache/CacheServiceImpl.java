@@ -1,27 +1,154 @@
 package com.poc.transaction.service.cache;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.poc.transaction.service.cache.codec.CacheCodecs;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+/**
+ * Two-tier cache: a bounded in-process near cache (L1) in front of Redis (L2).
+ * - Reads try L1 first, an L2 hit is copied into L1.
+ * - Writes and removals go to both tiers and are broadcast, so other nodes drop their L1 copy and re-read L2.
+ * - Values are encoded per cache region (CacheCodecs). L1 is bounded by the encoded size of its entries and a short
+ *   TTL, which also caps how stale a node can get if an invalidation message is lost.
+ */
 @Service
-@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "transaction.backend", havingValue = "external", matchIfMissing = true)
 public class CacheServiceImpl implements CacheService {
-    private final RedisTemplate<String, Object> redisTemplate;
+
+    // L1 keeps the decoded value along with its encoded size, which is what it's weighed by
+    private record NearEntry(Object value, int size) {
+    }
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final CacheCodecs codecs;
+    private final CacheInvalidationBus invalidationBus;
+    private final Duration ttl;
+    private final Cache<String, NearEntry> nearCache;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final SingleFlight<String, Object> loads;
+
+    private final Timer l1Hits;
+    private final Timer l1Misses;
+    private final Timer l2Hits;
+    private final Timer l2Misses;
+
+    public CacheServiceImpl(RedisTemplate<String, byte[]> binaryRedisTemplate,
+                            CacheCodecs codecs,
+                            CacheInvalidationBus invalidationBus,
+                            @Value("${transaction.cache.ttl:10m}") Duration ttl,
+                            @Value("${transaction.cache.l1.max-size:16MB}") DataSize l1MaxSize,
+                            @Value("${transaction.cache.l1.ttl:30s}") Duration l1Ttl,
+                            MeterRegistry meterRegistry) {
+        this.redisTemplate = binaryRedisTemplate;
+        this.codecs = codecs;
+        this.invalidationBus = invalidationBus;
+        this.ttl = ttl;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumWeight(l1MaxSize.toBytes())
+                .weigher((String key, NearEntry entry) -> key.length() + entry.size())
+                .expireAfterWrite(l1Ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, "cache.l1");
+        this.loads = new SingleFlight<>("cache", meterRegistry);
+
+        this.l1Hits = timer(meterRegistry, "l1", "hit");
+        this.l1Misses = timer(meterRegistry, "l1", "miss");
+        this.l2Hits = timer(meterRegistry, "l2", "hit");
+        this.l2Misses = timer(meterRegistry, "l2", "miss");
+
+        invalidationBus.subscribe(invalidation -> {
+            if (!nodeId.equals(invalidation.origin())) {
+                nearCache.invalidate(invalidation.key());
+            }
+        });
+    }
+
     @Override
     public void set(String key, Object value) {
-        redisTemplate.opsForValue().set(key, value, 10, TimeUnit.MINUTES);
+        byte[] bytes = codecs.forKey(key).serialize(value);
+        redisTemplate.opsForValue().set(key, bytes, ttl.toMillis(), TimeUnit.MILLISECONDS);
+        nearCache.put(key, new NearEntry(value, bytes.length));
+        invalidationBus.publish(new CacheInvalidationBus.Invalidation(nodeId, key));
+    }
+
+    // one pipelined round trip for the whole batch, instead of one SET per key
+    @Override
+    public void putAll(Map<String, ?> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        Map<String, byte[]> encoded = new LinkedHashMap<>();
+        values.forEach((key, value) -> encoded.put(key, codecs.forKey(key).serialize(value)));
+        Expiration expiration = Expiration.from(ttl);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            encoded.forEach((key, bytes) -> connection.stringCommands().set(key.getBytes(StandardCharsets.UTF_8), bytes,
+                    expiration, RedisStringCommands.SetOption.upsert()));
+            return null;
+        });
+        encoded.forEach((key, bytes) -> nearCache.put(key, new NearEntry(values.get(key), bytes.length)));
     }
 
     @Override
     public Object get(String key) {
-        return redisTemplate.opsForValue().get(key);
+        long start = System.nanoTime();
+        NearEntry entry = nearCache.getIfPresent(key);
+        if (entry != null) {
+            l1Hits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return entry.value();
+        }
+        l1Misses.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        // L2 timing includes decoding
+        start = System.nanoTime();
+        byte[] bytes = redisTemplate.opsForValue().get(key);
+        Object value = bytes == null ? null : codecs.forKey(key).deserialize(bytes);
+        (value != null ? l2Hits : l2Misses).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (value != null) {
+            nearCache.put(key, new NearEntry(value, bytes.length));
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T load(String key, Supplier<T> loader) {
+        return (T) loads.execute(key, (Supplier<Object>) loader);
     }
 
     @Override
     public void remove(String key) {
+        nearCache.invalidate(key);
+        redisTemplate.delete(key);
+        invalidationBus.publish(new CacheInvalidationBus.Invalidation(nodeId, key));
+    }
 
+    private static Timer timer(MeterRegistry meterRegistry, String tier, String result) {
+        return Timer.builder("cache.get")
+                .description("Cache lookups per tier")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
     }
 }
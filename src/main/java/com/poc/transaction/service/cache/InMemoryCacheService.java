@@ -0,0 +1,60 @@
+package com.poc.transaction.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Cache of the in-memory backend: one local tier with the Redis TTL, values kept as they are (no encoding)
+@Service
+@ConditionalOnProperty(name = "transaction.backend", havingValue = "memory")
+public class InMemoryCacheService implements CacheService {
+
+    private final Cache<String, Object> cache;
+    private final SingleFlight<String, Object> loads;
+
+    public InMemoryCacheService(@Value("${transaction.cache.ttl:10m}") Duration ttl,
+                                @Value("${transaction.cache.memory.max-entries:1000000}") long maxEntries,
+                                MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "cache.memory");
+        this.loads = new SingleFlight<>("cache", meterRegistry);
+    }
+
+    @Override
+    public void set(String key, Object value) {
+        cache.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<String, ?> values) {
+        cache.putAll(values);
+    }
+
+    @Override
+    public Object get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    public void remove(String key) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T load(String key, Supplier<T> loader) {
+        return (T) loads.execute(key, (Supplier<Object>) loader);
+    }
+}
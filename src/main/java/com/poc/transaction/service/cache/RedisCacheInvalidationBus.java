@@ -0,0 +1,121 @@
+package com.poc.transaction.service.cache;
+
+import com.poc.transaction.service.pipeline.EventPipeline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Fans invalidations out to every node over Redis pub/sub, message = "<origin>|<key>".
+ * The subscription is opened in the background once the application is up and retried until Redis answers, so a node
+ * still starts (and serves from Redis/DB) while Redis is unavailable - its near cache is then only bounded by its TTL.
+ */
+@Component
+@ConditionalOnProperty(name = "transaction.cache.invalidation", havingValue = "redis", matchIfMissing = true)
+@Slf4j
+public class RedisCacheInvalidationBus implements CacheInvalidationBus, DisposableBean {
+
+    static final String CHANNEL = "cache:invalidation";
+    private static final long RETRY_INTERVAL_MILLIS = 5_000;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final EventPipeline eventPipeline;
+    private final List<Consumer<Invalidation>> listeners = new CopyOnWriteArrayList<>();
+    private volatile RedisMessageListenerContainer container;
+    private volatile boolean running = true;
+
+    public RedisCacheInvalidationBus(StringRedisTemplate stringRedisTemplate, RedisConnectionFactory connectionFactory,
+                                     EventPipeline eventPipeline) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.eventPipeline = eventPipeline;
+    }
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        // off the request path, the stage blocks briefly rather than dropping when Redis falls behind
+        eventPipeline.submit(EventPipeline.CACHE_INVALIDATION, () -> {
+            try {
+                stringRedisTemplate.convertAndSend(CHANNEL, invalidation.origin() + "|" + invalidation.key());
+            } catch (Exception e) {
+                // pub/sub is fire-and-forget anyway, a lost message is bounded by the near cache TTL
+                log.warn("Could not publish cache invalidation for key={}", invalidation.key(), e);
+            }
+        });
+    }
+
+    @Override
+    public void subscribe(Consumer<Invalidation> listener) {
+        listeners.add(listener);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void connect() {
+        Thread subscriber = new Thread(this::subscribeUntilConnected, "cache-invalidation-subscriber");
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    // once subscribed the container recovers from later disconnects on its own, only the first subscription is retried here
+    private void subscribeUntilConnected() {
+        while (running) {
+            RedisMessageListenerContainer candidate = new RedisMessageListenerContainer();
+            try {
+                candidate.setConnectionFactory(connectionFactory);
+                candidate.addMessageListener((message, pattern) -> dispatch(message.getBody()), new ChannelTopic(CHANNEL));
+                candidate.afterPropertiesSet();
+                candidate.start();
+                container = candidate;
+                log.info("Subscribed to cache invalidations on channel={}", CHANNEL);
+                return;
+            } catch (Exception e) {
+                log.warn("Could not subscribe to cache invalidations, retrying in {} ms: {}", RETRY_INTERVAL_MILLIS, e.getMessage());
+                destroyQuietly(candidate);
+            }
+            try {
+                Thread.sleep(RETRY_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void dispatch(byte[] body) {
+        String message = new String(body, StandardCharsets.UTF_8);
+        int separator = message.indexOf('|');
+        if (separator > 0) {
+            Invalidation invalidation = new Invalidation(message.substring(0, separator), message.substring(separator + 1));
+            listeners.forEach(listener -> listener.accept(invalidation));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        if (container != null) {
+            destroyQuietly(container);
+        }
+    }
+
+    private static void destroyQuietly(RedisMessageListenerContainer container) {
+        try {
+            container.destroy();
+        } catch (Exception e) {
+            log.debug("Error while closing the invalidation listener container", e);
+        }
+    }
+}
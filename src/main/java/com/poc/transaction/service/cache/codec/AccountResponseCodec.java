@@ -0,0 +1,50 @@
+package com.poc.transaction.service.cache.codec;
+
+import com.poc.transaction.model.response.AccountResponse;
+import org.springframework.data.redis.serializer.SerializationException;
+
+public class AccountResponseCodec implements CacheCodec<AccountResponse> {
+
+    private static final int HAS_ACCOUNT_ID = 1;
+    private static final int HAS_DOCUMENT_NUMBER = 1 << 1;
+
+    @Override
+    public Class<AccountResponse> type() {
+        return AccountResponse.class;
+    }
+
+    @Override
+    public byte id() {
+        return 1;
+    }
+
+    @Override
+    public byte version() {
+        return 1;
+    }
+
+    // v1: presence bits, accountId, documentNumber
+    @Override
+    public void write(AccountResponse value, BinaryWriter out) {
+        out.writeByte((value.getAccountId() != null ? HAS_ACCOUNT_ID : 0)
+                | (value.getDocumentNumber() != null ? HAS_DOCUMENT_NUMBER : 0));
+        if (value.getAccountId() != null) {
+            out.writeVarLong(value.getAccountId());
+        }
+        if (value.getDocumentNumber() != null) {
+            out.writeString(value.getDocumentNumber());
+        }
+    }
+
+    @Override
+    public AccountResponse read(BinaryReader in, int version) {
+        if (version != 1) {
+            throw new SerializationException("Unsupported AccountResponse schema version " + version);
+        }
+        int present = in.readByte();
+        return AccountResponse.builder()
+                .accountId((present & HAS_ACCOUNT_ID) != 0 ? in.readVarLong() : null)
+                .documentNumber((present & HAS_DOCUMENT_NUMBER) != 0 ? in.readString() : null)
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.poc.transaction.service.cache.codec;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+// Reads what BinaryWriter wrote, failing with a SerializationException on truncated input
+public final class BinaryReader {
+
+    private final byte[] buffer;
+    private int position;
+    private final int limit;
+
+    public BinaryReader(byte[] buffer, int offset, int limit) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = limit;
+    }
+
+    public int readByte() {
+        require(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    public long readVarLong() {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new SerializationException("Malformed varint in cached value");
+    }
+
+    public int readVarInt() {
+        return Math.toIntExact(readVarLong());
+    }
+
+    public byte[] readBytes() {
+        int length = readVarInt();
+        require(length);
+        byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return bytes;
+    }
+
+    public String readString() {
+        int length = readVarInt();
+        require(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public BigDecimal readDecimal() {
+        int scale = readVarInt();
+        return readByte() == 0
+                ? BigDecimal.valueOf(readVarLong(), scale)
+                : new BigDecimal(new BigInteger(readBytes()), scale);
+    }
+
+    public LocalDateTime readDateTime() {
+        long epochSecond = readVarLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, readVarInt(), ZoneOffset.UTC);
+    }
+
+    public int position() {
+        return position;
+    }
+
+    private void require(int bytes) {
+        if (bytes < 0 || position + bytes > limit) {
+            throw new SerializationException("Truncated cached value");
+        }
+    }
+}
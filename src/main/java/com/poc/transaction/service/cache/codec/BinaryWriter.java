@@ -0,0 +1,83 @@
+package com.poc.transaction.service.cache.codec;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+// Growable byte buffer with the primitives the codecs are built from: zig-zag varints, length-prefixed strings/bytes
+public final class BinaryWriter {
+
+    private byte[] buffer;
+    private int size;
+
+    public BinaryWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    public void writeByte(int value) {
+        ensure(1);
+        buffer[size++] = (byte) value;
+    }
+
+    public void writeVarLong(long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        ensure(10);
+        while ((zigZag & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((zigZag & 0x7F) | 0x80);
+            zigZag >>>= 7;
+        }
+        buffer[size++] = (byte) zigZag;
+    }
+
+    public void writeVarInt(int value) {
+        writeVarLong(value);
+    }
+
+    public void writeBytes(byte[] bytes) {
+        writeVarInt(bytes.length);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    public void writeString(String value) {
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // scale + unscaled value, a long when it fits (the usual case for money), its bytes otherwise
+    public void writeDecimal(BigDecimal value) {
+        writeVarInt(value.scale());
+        if (value.unscaledValue().bitLength() < 64) {
+            writeByte(0);
+            writeVarLong(value.unscaledValue().longValue());
+        } else {
+            writeByte(1);
+            writeBytes(value.unscaledValue().toByteArray());
+        }
+    }
+
+    public void writeDateTime(LocalDateTime value) {
+        writeVarLong(value.toEpochSecond(ZoneOffset.UTC));
+        writeVarInt(value.getNano());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.poc.transaction.service.cache.codec;
+
+/**
+ * Compact binary encoding of one cached type.
+ * The id is written into every value and must never change or be reused. The version is the schema written now;
+ * read() gets the version a value was written with, so older schemas stay readable after a field is added.
+ */
+public interface CacheCodec<T> {
+
+    Class<T> type();
+
+    byte id();
+
+    byte version();
+
+    void write(T value, BinaryWriter out);
+
+    T read(BinaryReader in, int version);
+}
@@ -0,0 +1,23 @@
+package com.poc.transaction.service.cache.codec;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Map;
+
+/**
+ * Value format per cache region, the region being the key prefix before the first ':' (account, idempotency, ...).
+ *
+ * @param defaultFormat        format of regions not listed: json | binary
+ * @param regions              region -> format
+ * @param compressionThreshold binary payloads from this size up are compressed
+ */
+@ConfigurationProperties(prefix = "transaction.cache.codec")
+public record CacheCodecProperties(String defaultFormat, Map<String, String> regions, DataSize compressionThreshold) {
+
+    public CacheCodecProperties {
+        defaultFormat = defaultFormat == null ? CacheCodecs.JSON : defaultFormat;
+        regions = regions == null ? Map.of() : Map.copyOf(regions);
+        compressionThreshold = compressionThreshold == null ? DataSize.ofBytes(512) : compressionThreshold;
+    }
+}
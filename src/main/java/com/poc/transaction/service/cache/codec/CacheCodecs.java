@@ -0,0 +1,43 @@
+package com.poc.transaction.service.cache.codec;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Picks the value serializer of a cache key from its region (key prefix before the first ':')
+@Component
+public class CacheCodecs {
+
+    public static final String JSON = "json";
+    public static final String BINARY = "binary";
+
+    private final Map<String, RedisSerializer<Object>> regions = new HashMap<>();
+    private final RedisSerializer<Object> defaultSerializer;
+
+    public CacheCodecs(CacheCodecProperties properties, RedisSerializer<Object> redisJsonSerializer) {
+        List<CacheCodec<?>> codecs = List.of(new AccountResponseCodec(), new TransactionResponseCodec(), new IdempotencyRecordCodec());
+        int threshold = (int) properties.compressionThreshold().toBytes();
+        RedisSerializer<Object> json = new CompactRedisSerializer(codecs, redisJsonSerializer, false, threshold);
+        RedisSerializer<Object> binary = new CompactRedisSerializer(codecs, redisJsonSerializer, true, threshold);
+
+        this.defaultSerializer = select(properties.defaultFormat(), json, binary);
+        properties.regions().forEach((region, format) -> regions.put(region, select(format, json, binary)));
+    }
+
+    public RedisSerializer<Object> forKey(String key) {
+        int separator = key.indexOf(':');
+        RedisSerializer<Object> serializer = separator > 0 ? regions.get(key.substring(0, separator)) : null;
+        return serializer != null ? serializer : defaultSerializer;
+    }
+
+    private static RedisSerializer<Object> select(String format, RedisSerializer<Object> json, RedisSerializer<Object> binary) {
+        return switch (format) {
+            case JSON -> json;
+            case BINARY -> binary;
+            default -> throw new IllegalArgumentException("Unknown cache value format: " + format);
+        };
+    }
+}
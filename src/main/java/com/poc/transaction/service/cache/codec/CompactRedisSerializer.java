@@ -0,0 +1,143 @@
+package com.poc.transaction.service.cache.codec;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Redis value serializer writing registered types with their compact codec and anything else as JSON.
+ * Binary layout: MAGIC, flags, codec id, schema version, payload (deflated when FLAG_COMPRESSED is set).
+ * - Reading sniffs the first byte, so binary and JSON values can coexist in Redis: switching a region's format
+ *   (either way) needs no flush, old values are still read until their TTL runs out.
+ * - Payloads from compressionThreshold bytes up are deflated (fast level), smaller ones aren't worth it.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    // never the first byte of a JSON document
+    static final byte MAGIC = (byte) 0xB1;
+    static final int FLAG_COMPRESSED = 1;
+    private static final int HEADER_SIZE = 4;
+
+    private final RedisSerializer<Object> json;
+    private final boolean writeBinary;
+    private final int compressionThreshold;
+    private final Map<Class<?>, CacheCodec<?>> byType = new HashMap<>();
+    private final CacheCodec<?>[] byId = new CacheCodec<?>[128];
+
+    public CompactRedisSerializer(List<CacheCodec<?>> codecs, RedisSerializer<Object> json, boolean writeBinary, int compressionThreshold) {
+        this.json = json;
+        this.writeBinary = writeBinary;
+        this.compressionThreshold = compressionThreshold;
+        for (CacheCodec<?> codec : codecs) {
+            if (byId[codec.id()] != null) {
+                throw new IllegalArgumentException("Duplicate cache codec id " + codec.id());
+            }
+            byId[codec.id()] = codec;
+            byType.put(codec.type(), codec);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] serialize(Object value) {
+        CacheCodec<Object> codec = writeBinary && value != null ? (CacheCodec<Object>) byType.get(value.getClass()) : null;
+        if (codec == null) {
+            return json.serialize(value);
+        }
+
+        BinaryWriter out = new BinaryWriter(64);
+        out.writeByte(MAGIC);
+        out.writeByte(0);
+        out.writeByte(codec.id());
+        out.writeByte(codec.version());
+        codec.write(value, out);
+
+        int payloadSize = out.size() - HEADER_SIZE;
+        if (payloadSize < compressionThreshold) {
+            return out.toByteArray();
+        }
+        return compress(out.buffer(), payloadSize);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return json.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_SIZE) {
+            throw new SerializationException("Truncated cached value");
+        }
+        CacheCodec<?> codec = bytes[2] >= 0 ? byId[bytes[2]] : null;
+        if (codec == null) {
+            throw new SerializationException("Unknown cache codec id " + bytes[2]);
+        }
+        int version = bytes[3] & 0xFF;
+        if ((bytes[1] & FLAG_COMPRESSED) == 0) {
+            return codec.read(new BinaryReader(bytes, HEADER_SIZE, bytes.length), version);
+        }
+        byte[] payload = decompress(bytes);
+        return codec.read(new BinaryReader(payload, 0, payload.length), version);
+    }
+
+    private static byte[] compress(byte[] buffer, int payloadSize) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(buffer, HEADER_SIZE, payloadSize);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_SIZE + payloadSize / 2);
+            out.write(buffer[0]);
+            out.write(FLAG_COMPRESSED);
+            out.write(buffer[2]);
+            out.write(buffer[3]);
+            // uncompressed size first, so the reader allocates once
+            BinaryWriter size = new BinaryWriter(5);
+            size.writeVarInt(payloadSize);
+            out.write(size.buffer(), 0, size.size());
+            byte[] chunk = new byte[512];
+            while (!deflater.finished()) {
+                int written = deflater.deflate(chunk);
+                out.write(chunk, 0, written);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] bytes) {
+        BinaryReader header = new BinaryReader(bytes, HEADER_SIZE, bytes.length);
+        int payloadSize = header.readVarInt();
+        int offset = header.position();
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            byte[] payload = new byte[payloadSize];
+            int read = 0;
+            while (read < payloadSize && !inflater.finished()) {
+                int n = inflater.inflate(payload, read, payloadSize - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != payloadSize) {
+                throw new SerializationException("Corrupt compressed cached value");
+            }
+            return payload;
+        } catch (DataFormatException e) {
+            throw new SerializationException("Corrupt compressed cached value", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
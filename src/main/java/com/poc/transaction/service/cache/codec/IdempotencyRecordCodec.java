@@ -0,0 +1,61 @@
+package com.poc.transaction.service.cache.codec;
+
+import com.poc.transaction.model.response.TransactionResponse;
+import com.poc.transaction.service.idempotency.IdempotencyRecord;
+import org.springframework.data.redis.serializer.SerializationException;
+
+public class IdempotencyRecordCodec implements CacheCodec<IdempotencyRecord> {
+
+    private static final int COMPLETED = 1;
+    private static final int HAS_RESPONSE = 1 << 1;
+    private static final int HAS_REFERENCE = 1 << 2;
+
+    private final TransactionResponseCodec responseCodec = new TransactionResponseCodec();
+
+    @Override
+    public Class<IdempotencyRecord> type() {
+        return IdempotencyRecord.class;
+    }
+
+    @Override
+    public byte id() {
+        return 3;
+    }
+
+    @Override
+    public byte version() {
+        return 2;
+    }
+
+    // v2: flags (completed, response and reference present), fingerprint, response (TransactionResponse v1), reference
+    // v1: completed flag, fingerprint, then the response (TransactionResponse v1) when completed
+    @Override
+    public void write(IdempotencyRecord value, BinaryWriter out) {
+        out.writeByte((value.isCompleted() ? COMPLETED : 0)
+                | (value.getResponse() != null ? HAS_RESPONSE : 0)
+                | (value.getReference() != null ? HAS_REFERENCE : 0));
+        out.writeString(value.getFingerprint());
+        if (value.getResponse() != null) {
+            responseCodec.write(value.getResponse(), out);
+        }
+        if (value.getReference() != null) {
+            out.writeString(value.getReference());
+        }
+    }
+
+    @Override
+    public IdempotencyRecord read(BinaryReader in, int version) {
+        if (version != 1 && version != 2) {
+            throw new SerializationException("Unsupported IdempotencyRecord schema version " + version);
+        }
+        int flags = in.readByte();
+        if (version == 1 && flags == COMPLETED) {
+            flags |= HAS_RESPONSE;
+        }
+        String fingerprint = in.readString();
+        TransactionResponse response = (flags & HAS_RESPONSE) != 0 ? responseCodec.read(in, 1) : null;
+        String reference = (flags & HAS_REFERENCE) != 0 ? in.readString() : null;
+        return new IdempotencyRecord((flags & COMPLETED) != 0 ? IdempotencyRecord.COMPLETED : IdempotencyRecord.IN_PROGRESS,
+                fingerprint, response, reference);
+    }
+}
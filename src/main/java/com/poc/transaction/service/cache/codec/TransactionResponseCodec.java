@@ -0,0 +1,80 @@
+package com.poc.transaction.service.cache.codec;
+
+import com.poc.transaction.model.response.TransactionResponse;
+import org.springframework.data.redis.serializer.SerializationException;
+
+public class TransactionResponseCodec implements CacheCodec<TransactionResponse> {
+
+    private static final int HAS_TRANSACTION_ID = 1;
+    private static final int HAS_ACCOUNT_ID = 1 << 1;
+    private static final int HAS_AMOUNT = 1 << 2;
+    private static final int HAS_BALANCE = 1 << 3;
+    private static final int HAS_EVENT_DATE = 1 << 4;
+
+    @Override
+    public Class<TransactionResponse> type() {
+        return TransactionResponse.class;
+    }
+
+    @Override
+    public byte id() {
+        return 2;
+    }
+
+    @Override
+    public byte version() {
+        return 1;
+    }
+
+    // v1: presence bits, transactionId, accountId, operationTypeId, amount, balance, eventDate (UTC epoch second + nanos)
+    @Override
+    public void write(TransactionResponse value, BinaryWriter out) {
+        out.writeByte((value.getTransactionId() != null ? HAS_TRANSACTION_ID : 0)
+                | (value.getAccountId() != null ? HAS_ACCOUNT_ID : 0)
+                | (value.getAmount() != null ? HAS_AMOUNT : 0)
+                | (value.getBalance() != null ? HAS_BALANCE : 0)
+                | (value.getEventDate() != null ? HAS_EVENT_DATE : 0));
+        if (value.getTransactionId() != null) {
+            out.writeVarLong(value.getTransactionId());
+        }
+        if (value.getAccountId() != null) {
+            out.writeVarLong(value.getAccountId());
+        }
+        out.writeVarInt(value.getOperationTypeId());
+        if (value.getAmount() != null) {
+            out.writeDecimal(value.getAmount());
+        }
+        if (value.getBalance() != null) {
+            out.writeDecimal(value.getBalance());
+        }
+        if (value.getEventDate() != null) {
+            out.writeDateTime(value.getEventDate());
+        }
+    }
+
+    @Override
+    public TransactionResponse read(BinaryReader in, int version) {
+        if (version != 1) {
+            throw new SerializationException("Unsupported TransactionResponse schema version " + version);
+        }
+        int present = in.readByte();
+        TransactionResponse value = new TransactionResponse();
+        if ((present & HAS_TRANSACTION_ID) != 0) {
+            value.setTransactionId(in.readVarLong());
+        }
+        if ((present & HAS_ACCOUNT_ID) != 0) {
+            value.setAccountId(in.readVarLong());
+        }
+        value.setOperationTypeId(in.readVarInt());
+        if ((present & HAS_AMOUNT) != 0) {
+            value.setAmount(in.readDecimal());
+        }
+        if ((present & HAS_BALANCE) != 0) {
+            value.setBalance(in.readDecimal());
+        }
+        if ((present & HAS_EVENT_DATE) != 0) {
+            value.setEventDate(in.readDateTime());
+        }
+        return value;
+    }
+}
@@ -0,0 +1,190 @@
+package com.poc.transaction.service.execution;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer execution lanes keyed by account.
+ * - Every account id is hashed onto one of a fixed set of lanes, each lane is a lock-free queue drained by one dedicated thread.
+ * - Work for the same account is therefore strictly ordered (no two payments can discharge the same purchases concurrently),
+ *   while accounts on different lanes run fully in parallel.
+ * - Queue depth and queue wait time are exported per lane.
+ */
+@Slf4j
+@Component
+public class AccountLaneExecutor implements DisposableBean {
+
+    private final Lane[] lanes;
+
+    public AccountLaneExecutor(@Value("${transaction.lanes.count:8}") int laneCount, MeterRegistry meterRegistry) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("At least one execution lane is required");
+        }
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i, meterRegistry);
+        }
+        log.info("Started {} account execution lanes", laneCount);
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Lane an account is pinned to - stable for the lifetime of the executor.
+     */
+    public int laneOf(Long accountId) {
+        long h = accountId == null ? 0 : accountId;
+        // spread the bits, sequential ids would otherwise only use the low bits
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        return (int) Math.floorMod(h, (long) lanes.length);
+    }
+
+    public <T> CompletableFuture<T> submit(Long accountId, Supplier<T> task) {
+        return submitToLane(laneOf(accountId), task);
+    }
+
+    public <T> CompletableFuture<T> submitToLane(int lane, Supplier<T> task) {
+        return lanes[lane].submit(task);
+    }
+
+    /**
+     * Runs the task on the account's lane and waits for it, rethrowing whatever the task threw.
+     * Called from the lane thread itself (nested work for the same lane) the task runs inline instead of dead-locking.
+     */
+    public <T> T execute(Long accountId, Supplier<T> task) {
+        if (isLaneThread(accountId)) {
+            return task.get();
+        }
+        return join(submit(accountId, task));
+    }
+
+    /**
+     * Whether the caller is the thread of the account's lane, i.e. already ordered with the account's other work.
+     */
+    public boolean isLaneThread(Long accountId) {
+        return Thread.currentThread() == lanes[laneOf(accountId)].worker;
+    }
+
+    /**
+     * Waits for a lane task, rethrowing whatever it threw.
+     */
+    static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    public int queueDepth(int lane) {
+        return lanes[lane].depth.get();
+    }
+
+    @Override
+    public void destroy() {
+        for (Lane lane : lanes) {
+            lane.stop();
+        }
+    }
+
+    private static final class Lane implements Runnable {
+        private final Queue<LaneTask<?>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final Timer waitTimer;
+        private final Thread worker;
+        private volatile boolean running = true;
+
+        Lane(int index, MeterRegistry meterRegistry) {
+            String lane = Integer.toString(index);
+            Gauge.builder("transaction.lane.queue.depth", depth, AtomicInteger::get)
+                    .description("Tasks waiting in the account execution lane")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            this.waitTimer = Timer.builder("transaction.lane.wait")
+                    .description("Time a task waits in the lane queue before it starts")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            this.worker = new Thread(this, "lane-" + index);
+            this.worker.setDaemon(true);
+            this.worker.start();
+        }
+
+        <T> CompletableFuture<T> submit(Supplier<T> task) {
+            if (!running) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Execution lane is shut down"));
+            }
+            LaneTask<T> laneTask = new LaneTask<>(task);
+            queue.offer(laneTask);
+            depth.incrementAndGet();
+            LockSupport.unpark(worker);
+            return laneTask.future;
+        }
+
+        @Override
+        public void run() {
+            // keeps draining after stop() so nothing that was accepted is left hanging
+            while (running || !queue.isEmpty()) {
+                LaneTask<?> task = queue.poll();
+                if (task == null) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                depth.decrementAndGet();
+                waitTimer.record(System.nanoTime() - task.enqueuedAt, TimeUnit.NANOSECONDS);
+                task.run();
+            }
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(worker);
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class LaneTask<T> {
+        private final Supplier<T> task;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long enqueuedAt = System.nanoTime();
+
+        LaneTask(Supplier<T> task) {
+            this.task = task;
+        }
+
+        void run() {
+            try {
+                future.complete(task.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+    }
+}
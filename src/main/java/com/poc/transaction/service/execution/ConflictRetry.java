@@ -0,0 +1,163 @@
+package com.poc.transaction.service.execution;
+
+import com.poc.transaction.exception.ApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a whole DB transaction that lost a race with another node: an optimistic version check that failed
+ * (ObjectOptimisticLockingFailureException), or a deadlock / lock timeout Postgres broke up - any ConcurrencyFailureException.
+ * - The lanes only order work within one node, replicas writing the same account are caught by the versions instead of
+ *   locking rows up front; this turns the losing side into a retry instead of an error.
+ * - Up to `max-attempts` runs, sleeping a random time between 0 and initial-backoff * 2^retry (capped at max-backoff)
+ *   before each retry, so colliding nodes don't collide again in lockstep.
+ * - When they're used up the caller gets 409 CONCURRENT_UPDATE.
+ * - Only retries at the outermost transaction: inside one that's already running it rethrows, its owner retries.
+ * - Work on the account lanes goes through {@link #submit}: the backoff is waited out on a scheduler and the retry queued
+ *   again, a lane thread sleeping it out would stall every account of the lane.
+ * Exported: transaction.concurrency.conflicts, .retries and .exhausted.
+ */
+@Slf4j
+@Component
+public class ConflictRetry implements DisposableBean {
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final Counter conflicts;
+    private final Counter retries;
+    private final Counter exhausted;
+    // only waits out the backoff, the retry itself is queued by the attempt again
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "conflict-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ConflictRetry(@Value("${transaction.conflict-retry.max-attempts:5}") int maxAttempts,
+                         @Value("${transaction.conflict-retry.initial-backoff:5ms}") Duration initialBackoff,
+                         @Value("${transaction.conflict-retry.max-backoff:200ms}") Duration maxBackoff,
+                         MeterRegistry meterRegistry) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.conflicts = Counter.builder("transaction.concurrency.conflicts")
+                .description("DB transactions rolled back by a concurrent update of the same rows")
+                .register(meterRegistry);
+        this.retries = Counter.builder("transaction.concurrency.retries")
+                .description("DB transactions re-run after a conflict")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("transaction.concurrency.exhausted")
+                .description("DB transactions given up after max-attempts conflicts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the transaction (which must begin and end in {@code transaction}) and re-runs it on conflicts, sleeping out the
+     * backoff on the calling thread - not for lane threads, see {@link #submit}. Anything else it throws is rethrown as is.
+     */
+    public <T> T execute(Supplier<T> transaction) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transaction.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.get();
+            } catch (ConcurrencyFailureException e) {
+                sleep(onConflict(attempt, e), e);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #execute}, for a transaction that's queued rather than run: {@code attempt} queues one run (e.g. on the
+     * account's lane) and returns its future. A conflicting run is queued again once the backoff is over, the returned
+     * future completes with the first run that didn't conflict - or 409 CONCURRENT_UPDATE.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> attempt) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        run(attempt, 1, result);
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private <T> void run(Supplier<CompletableFuture<T>> attempt, int number, CompletableFuture<T> result) {
+        attempt.get().whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof ConcurrencyFailureException conflict)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            try {
+                long delay = onConflict(number, conflict);
+                if (delay <= 0) {
+                    run(attempt, number + 1, result);
+                } else {
+                    scheduler.schedule(() -> run(attempt, number + 1, result), delay, TimeUnit.NANOSECONDS);
+                }
+            } catch (RejectedExecutionException e) {
+                // shutting down, nothing left to retry on
+                result.completeExceptionally(conflict);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    // counts the conflict and returns the backoff before the next attempt, or throws 409 when there's none left
+    private long onConflict(int attempt, ConcurrencyFailureException conflict) {
+        conflicts.increment();
+        if (attempt >= maxAttempts) {
+            exhausted.increment();
+            log.warn("Giving up after {} conflicting attempts", attempt, conflict);
+            throw new ApiException("The account was updated concurrently, please retry.",
+                    HttpStatus.CONFLICT, "CONCURRENT_UPDATE");
+        }
+        log.debug("Conflict on attempt {}, retrying", attempt, conflict);
+        retries.increment();
+        return backoff(attempt);
+    }
+
+    // full jitter: uniform in [0, min(max, initial * 2^(attempt - 1))]
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 30));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void sleep(long nanos, ConcurrencyFailureException conflict) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
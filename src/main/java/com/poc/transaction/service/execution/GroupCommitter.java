@@ -0,0 +1,220 @@
+package com.poc.transaction.service.execution;
+
+import com.poc.transaction.exception.ApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Group commit on top of the account lanes: work arriving concurrently for accounts of the same lane is collected for up
+ * to `window` (or until `max-batch` items are waiting) and runs in one DB transaction - one commit and fsync instead of
+ * one per request.
+ * - Still single writer per account, the batch runs on the lane thread, items in arrival order.
+ * - An ApiException fails only its own item, so work must throw it before it writes anything (same rule as the batch
+ *   endpoint).
+ * - Anything else rolls the shared transaction back, the items are then retried one transaction each so only the
+ *   broken one fails.
+ * - A zero window (or max-batch 1) turns grouping off: one transaction per item, still on the lane.
+ * - Every transaction that conflicts with another node is re-run as a whole (see {@link ConflictRetry}): its items are
+ *   queued again after the backoff, the lane goes on with other work meanwhile. A nested call from the lane itself runs
+ *   once and leaves the retry to its caller.
+ */
+@Slf4j
+@Component
+public class GroupCommitter {
+
+    private final AccountLaneExecutor laneExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final ConflictRetry conflictRetry;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final Buffer[] buffers;
+    private final DistributionSummary batchSize;
+    private final Counter retries;
+
+    public GroupCommitter(AccountLaneExecutor laneExecutor,
+                          TransactionTemplate transactionTemplate,
+                          ConflictRetry conflictRetry,
+                          @Value("${transaction.group-commit.window:200us}") Duration window,
+                          @Value("${transaction.group-commit.max-batch:32}") int maxBatch,
+                          MeterRegistry meterRegistry) {
+        this.laneExecutor = laneExecutor;
+        this.transactionTemplate = transactionTemplate;
+        this.conflictRetry = conflictRetry;
+        this.windowNanos = window.toNanos();
+        this.maxBatch = Math.max(1, maxBatch);
+        this.buffers = new Buffer[laneExecutor.laneCount()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new Buffer(i);
+        }
+        this.batchSize = DistributionSummary.builder("transaction.group.commit.size")
+                .description("Items written per group commit")
+                .register(meterRegistry);
+        this.retries = Counter.builder("transaction.group.commit.retries")
+                .description("Group commits rolled back and retried item by item")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the work in a DB transaction on the account's lane, grouped with concurrent work of the same lane, and waits
+     * for the commit. Rethrows whatever the work threw.
+     */
+    public <T> T execute(Long accountId, Supplier<T> work) {
+        // nested call from the lane (e.g. async processing) - waiting for a flush queued behind us would dead-lock, and
+        // sleeping out a conflict backoff here would stall the lane: a conflict goes back to the caller
+        if (laneExecutor.isLaneThread(accountId)) {
+            return inTransaction(work);
+        }
+        return AccountLaneExecutor.join(submit(accountId, work));
+    }
+
+    /**
+     * Queues the work for the next group commit of the account's lane, the future completes once it's committed.
+     */
+    public <T> CompletableFuture<T> submit(Long accountId, Supplier<T> work) {
+        return conflictRetry.submit(() -> submitOnce(accountId, work));
+    }
+
+    private <T> CompletableFuture<T> submitOnce(Long accountId, Supplier<T> work) {
+        if (!grouping()) {
+            return laneExecutor.submit(accountId, () -> inTransaction(work));
+        }
+        Item<T> item = new Item<>(work);
+        Buffer buffer = buffers[laneExecutor.laneOf(accountId)];
+        buffer.items.offer(item);
+        if (buffer.size.incrementAndGet() >= maxBatch) {
+            // batch is full, no need to sit out the rest of the window
+            LockSupport.unpark(buffer.flusher);
+        }
+        buffer.schedule();
+        return item.future;
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    private boolean grouping() {
+        return windowNanos > 0 && maxBatch > 1;
+    }
+
+    private void commit(List<Item<?>> batch) {
+        batchSize.record(batch.size());
+        try {
+            inTransaction(() -> {
+                batch.forEach(Item::run);
+                return null;
+            });
+            batch.forEach(Item::complete);
+        } catch (RuntimeException e) {
+            // a conflict is likely to hit every item again right away, they're all queued again after the backoff
+            if (batch.size() == 1 || e instanceof ConcurrencyFailureException) {
+                batch.forEach(item -> item.future.completeExceptionally(e));
+                return;
+            }
+            log.warn("Group commit of {} items rolled back, retrying them one by one", batch.size(), e);
+            retries.increment();
+            for (Item<?> item : batch) {
+                try {
+                    inTransaction(() -> {
+                        item.run();
+                        return null;
+                    });
+                    item.complete();
+                } catch (RuntimeException itemError) {
+                    item.future.completeExceptionally(itemError);
+                }
+            }
+        }
+    }
+
+    private final class Buffer {
+        private final int lane;
+        private final Queue<Item<?>> items = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile Thread flusher;
+
+        Buffer(int lane) {
+            this.lane = lane;
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                laneExecutor.submitToLane(lane, this::flush);
+            }
+        }
+
+        private Void flush() {
+            flusher = Thread.currentThread();
+            long deadline = System.nanoTime() + windowNanos;
+            long remaining;
+            // nothing to wait for when a previous flush already took the items this one was scheduled for
+            int waiting;
+            while ((waiting = size.get()) > 0 && waiting < maxBatch && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            List<Item<?>> batch = new ArrayList<>(Math.min(size.get(), maxBatch));
+            Item<?> item;
+            while (batch.size() < maxBatch && (item = items.poll()) != null) {
+                size.decrementAndGet();
+                batch.add(item);
+            }
+            // anything that arrived meanwhile (or didn't fit) goes into the next flush, queued behind other lane work
+            scheduled.set(false);
+            if (!items.isEmpty()) {
+                schedule();
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+            }
+            return null;
+        }
+    }
+
+    private static final class Item<T> {
+        private final Supplier<T> work;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private ApiException error;
+
+        Item(Supplier<T> work) {
+            this.work = work;
+        }
+
+        // business errors are kept for this item only, anything else breaks the shared transaction
+        void run() {
+            result = null;
+            error = null;
+            try {
+                result = work.get();
+            } catch (ApiException e) {
+                error = e;
+            }
+        }
+
+        void complete() {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
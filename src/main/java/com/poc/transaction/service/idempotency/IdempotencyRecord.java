@@ -0,0 +1,43 @@
+package com.poc.transaction.service.idempotency;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.poc.transaction.model.response.TransactionResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// What the idempotency store keeps per key: a claim while the first request runs, then the response to replay
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+
+    private String status;
+    // hash of the request body, a key can't be reused for a different request
+    private String fingerprint;
+    private TransactionResponse response;
+    // reference of a request accepted with respond-async, replayed instead of a response
+    private String reference;
+
+    public static IdempotencyRecord inProgress(String fingerprint) {
+        return new IdempotencyRecord(IN_PROGRESS, fingerprint, null, null);
+    }
+
+    public static IdempotencyRecord completed(String fingerprint, TransactionResponse response) {
+        return new IdempotencyRecord(COMPLETED, fingerprint, response, null);
+    }
+
+    public static IdempotencyRecord accepted(String fingerprint, String reference) {
+        return new IdempotencyRecord(COMPLETED, fingerprint, null, reference);
+    }
+
+    @JsonIgnore
+    public boolean isCompleted() {
+        return COMPLETED.equals(status);
+    }
+}
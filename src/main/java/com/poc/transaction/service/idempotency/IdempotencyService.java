@@ -0,0 +1,40 @@
+package com.poc.transaction.service.idempotency;
+
+import com.poc.transaction.model.request.TransactionRequest;
+import com.poc.transaction.model.response.TransactionResponse;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    /**
+     * Runs the action at most once per idempotency key.
+     * - A completed key replays the stored response without running the action.
+     * - A duplicate arriving while the first request is still running waits for its outcome.
+     * - A failed execution frees the key, so the client can retry.
+     *
+     * @param key     the Idempotency-Key sent by the client
+     * @param request the request, a key can't be reused for a different one
+     * @param action  creates the transaction
+     * @return the response and whether it was replayed
+     */
+    IdempotentResponse execute(String key, TransactionRequest request, Supplier<TransactionResponse> action);
+
+    /**
+     * The same guarantees for a request accepted for background processing (Prefer: respond-async): a retry gets the
+     * reference of the first accept back instead of queueing the transaction again. A key used for a synchronous
+     * request can't be reused for an accepted one, nor the other way round.
+     *
+     * @param key     the Idempotency-Key sent by the client
+     * @param request the request, a key can't be reused for a different one
+     * @param action  queues the transaction, returns its reference
+     * @return the reference and whether it was replayed
+     */
+    IdempotentAccept accept(String key, TransactionRequest request, Supplier<String> action);
+
+    record IdempotentResponse(TransactionResponse response, boolean replayed) {
+    }
+
+    record IdempotentAccept(String reference, boolean replayed) {
+    }
+}
@@ -0,0 +1,213 @@
+package com.poc.transaction.service.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.poc.transaction.exception.ApiException;
+import com.poc.transaction.model.request.TransactionRequest;
+import com.poc.transaction.model.response.TransactionResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key handling for transaction creation (synchronous, or accepted with respond-async), in three layers:
+ * - completed keys are replayed from a small local cache, then from the shared store - never from Postgres
+ * - duplicates on this node join the running execution's future instead of polling the store
+ * - the store claim (IN_PROGRESS record with a short TTL) makes duplicates on other nodes wait, the TTL frees
+ *   the key if the owning node dies mid-request
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    static final String KEY_PREFIX = "idempotency:transaction:";
+    static final int MAX_KEY_LENGTH = 255;
+    // fingerprints of accepted (respond-async) requests, so a key can't be replayed across the two modes
+    static final String ACCEPT_PREFIX = "accept|";
+
+    private record InFlight(String fingerprint, CompletableFuture<Outcome> result) {
+    }
+
+    private record Outcome(IdempotencyRecord record, boolean replayed) {
+    }
+
+    private final IdempotencyStore store;
+    private final Duration ttl;
+    private final Duration inFlightTtl;
+    private final Duration waitTimeout;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, IdempotencyRecord> replays;
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyServiceImpl(IdempotencyStore store,
+                                  @Value("${transaction.idempotency.ttl:24h}") Duration ttl,
+                                  @Value("${transaction.idempotency.in-flight-ttl:30s}") Duration inFlightTtl,
+                                  @Value("${transaction.idempotency.wait-timeout:10s}") Duration waitTimeout,
+                                  @Value("${transaction.idempotency.local-max-entries:10000}") long localMaxEntries,
+                                  MeterRegistry meterRegistry) {
+        this.store = store;
+        this.ttl = ttl;
+        this.inFlightTtl = inFlightTtl;
+        this.waitTimeout = waitTimeout;
+        this.meterRegistry = meterRegistry;
+        this.replays = Caffeine.newBuilder()
+                .maximumSize(localMaxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public IdempotentResponse execute(String key, TransactionRequest request, Supplier<TransactionResponse> action) {
+        String fingerprint = fingerprint(request);
+        Outcome outcome = execute(key, fingerprint, () -> IdempotencyRecord.completed(fingerprint, action.get()));
+        return new IdempotentResponse(outcome.record().getResponse(), outcome.replayed());
+    }
+
+    @Override
+    public IdempotentAccept accept(String key, TransactionRequest request, Supplier<String> action) {
+        String fingerprint = ACCEPT_PREFIX + fingerprint(request);
+        Outcome outcome = execute(key, fingerprint, () -> IdempotencyRecord.accepted(fingerprint, action.get()));
+        return new IdempotentAccept(outcome.record().getReference(), outcome.replayed());
+    }
+
+    // action returns the completed record to replay
+    private Outcome execute(String key, String fingerprint, Supplier<IdempotencyRecord> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ApiException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters.", HttpStatus.BAD_REQUEST, "INVALID_IDEMPOTENCY_KEY");
+        }
+
+        IdempotencyRecord completed = replays.getIfPresent(key);
+        if (completed != null) {
+            return replay(completed, fingerprint);
+        }
+
+        InFlight mine = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return join(running, fingerprint);
+        }
+        try {
+            Outcome result = claimAndRun(key, fingerprint, action);
+            mine.result().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Outcome claimAndRun(String key, String fingerprint, Supplier<IdempotencyRecord> action) {
+        String storeKey = KEY_PREFIX + key;
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        long backoffMillis = 10;
+
+        while (true) {
+            IdempotencyRecord existing = store.putIfAbsent(storeKey, IdempotencyRecord.inProgress(fingerprint), inFlightTtl);
+            if (existing == null) {
+                return run(key, storeKey, action);
+            }
+            if (existing.isCompleted()) {
+                replays.put(key, existing);
+                return replay(existing, fingerprint);
+            }
+            checkFingerprint(existing, fingerprint);
+
+            // another node is running it, wait for its outcome (or for the claim to be released/expire)
+            if (System.nanoTime() - deadline >= 0) {
+                throw new ApiException("A request with this Idempotency-Key is still being processed.", HttpStatus.CONFLICT, "IDEMPOTENCY_KEY_IN_PROGRESS");
+            }
+            sleep(backoffMillis);
+            backoffMillis = Math.min(backoffMillis * 2, 200);
+        }
+    }
+
+    private Outcome run(String key, String storeKey, Supplier<IdempotencyRecord> action) {
+        IdempotencyRecord completed;
+        try {
+            completed = action.get();
+        } catch (RuntimeException e) {
+            // nothing was created, free the key for the client's retry
+            store.remove(storeKey);
+            throw e;
+        }
+
+        replays.put(key, completed);
+        try {
+            store.put(storeKey, completed, ttl);
+        } catch (RuntimeException e) {
+            // the transaction is committed, so answer anyway - the claim expires and this node still replays locally
+            log.warn("Could not store the response for idempotency key={}", key, e);
+        }
+        count("executed");
+        return new Outcome(completed, false);
+    }
+
+    private Outcome join(InFlight running, String fingerprint) {
+        if (!running.fingerprint().equals(fingerprint)) {
+            throw keyReused();
+        }
+        try {
+            Outcome result = running.result().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            count("joined");
+            return new Outcome(result.record(), true);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ApiException("A request with this Idempotency-Key is still being processed.", HttpStatus.CONFLICT, "IDEMPOTENCY_KEY_IN_PROGRESS");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the idempotent request", e);
+        }
+    }
+
+    private Outcome replay(IdempotencyRecord completed, String fingerprint) {
+        checkFingerprint(completed, fingerprint);
+        count("replayed");
+        return new Outcome(completed, true);
+    }
+
+    private static void checkFingerprint(IdempotencyRecord record, String fingerprint) {
+        if (!fingerprint.equals(record.getFingerprint())) {
+            throw keyReused();
+        }
+    }
+
+    private static ApiException keyReused() {
+        return new ApiException("Idempotency-Key was already used for a different request.", HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCY_KEY_REUSED");
+    }
+
+    // amount normalised, so 10 and 10.00 are the same request
+    static String fingerprint(TransactionRequest request) {
+        return request.getAccountId() + "|" + request.getOperationTypeId() + "|"
+                + (request.getAmount() == null ? null : request.getAmount().stripTrailingZeros().toPlainString());
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("transaction.idempotency.requests", "outcome", outcome).increment();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the idempotent request", e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.poc.transaction.service.idempotency;
+
+import java.time.Duration;
+
+public interface IdempotencyStore {
+    /**
+     * Stores the record only if the key is free (atomic across nodes).
+     *
+     * @param key    the idempotency key
+     * @param record the record to store
+     * @param ttl    how long the record is kept
+     * @return null when the record was stored, otherwise the record already held for the key
+     */
+    IdempotencyRecord putIfAbsent(String key, IdempotencyRecord record, Duration ttl);
+
+    /**
+     * Reads the record held for a key.
+     *
+     * @param key the idempotency key
+     * @return the record, or null if there is none
+     */
+    IdempotencyRecord get(String key);
+
+    /**
+     * Stores (overwrites) the record for a key.
+     *
+     * @param key    the idempotency key
+     * @param record the record to store
+     * @param ttl    how long the record is kept
+     */
+    void put(String key, IdempotencyRecord record, Duration ttl);
+
+    /**
+     * Frees a key, so the request can be executed again.
+     *
+     * @param key the idempotency key
+     */
+    void remove(String key);
+}
@@ -0,0 +1,53 @@
+package com.poc.transaction.service.idempotency;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Single-node stand-in for the Redis store (local runs and tests), expired keys are dropped when touched
+@Component
+@ConditionalOnProperty(name = "transaction.idempotency.store", havingValue = "memory")
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private record Entry(IdempotencyRecord record, long expiresAt) {
+        boolean expired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public IdempotencyRecord putIfAbsent(String key, IdempotencyRecord record, Duration ttl) {
+        long now = System.nanoTime();
+        Entry fresh = new Entry(record, now + ttl.toNanos());
+        Entry held = entries.compute(key, (k, existing) -> existing == null || existing.expired(now) ? fresh : existing);
+        return held == fresh ? null : held.record();
+    }
+
+    @Override
+    public IdempotencyRecord get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expired(System.nanoTime())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.record();
+    }
+
+    @Override
+    public void put(String key, IdempotencyRecord record, Duration ttl) {
+        entries.put(key, new Entry(record, System.nanoTime() + ttl.toNanos()));
+    }
+
+    @Override
+    public void remove(String key) {
+        entries.remove(key);
+    }
+}
@@ -0,0 +1,48 @@
+package com.poc.transaction.service.idempotency;
+
+import com.poc.transaction.service.cache.codec.CacheCodecs;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Shared store, so a retry landing on another node is still recognised
+@Component
+@ConditionalOnProperty(name = "transaction.idempotency.store", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RedisIdempotencyStore implements IdempotencyStore {
+
+    private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+    private final CacheCodecs codecs;
+
+    @Override
+    public IdempotencyRecord putIfAbsent(String key, IdempotencyRecord record, Duration ttl) {
+        // SET NX PX, then read the winner - retried when the winner expired in between
+        byte[] bytes = codecs.forKey(key).serialize(record);
+        while (!Boolean.TRUE.equals(binaryRedisTemplate.opsForValue().setIfAbsent(key, bytes, ttl))) {
+            IdempotencyRecord existing = get(key);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public IdempotencyRecord get(String key) {
+        byte[] bytes = binaryRedisTemplate.opsForValue().get(key);
+        return bytes != null && codecs.forKey(key).deserialize(bytes) instanceof IdempotencyRecord record ? record : null;
+    }
+
+    @Override
+    public void put(String key, IdempotencyRecord record, Duration ttl) {
+        binaryRedisTemplate.opsForValue().set(key, codecs.forKey(key).serialize(record), ttl);
+    }
+
+    @Override
+    public void remove(String key) {
+        binaryRedisTemplate.delete(key);
+    }
+}
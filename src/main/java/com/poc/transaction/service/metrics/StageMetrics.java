@@ -0,0 +1,112 @@
+package com.poc.transaction.service.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency per processing stage of the account and transaction paths, to tell which step a p99 spike comes from.
+ * - One timer per stage: `account.stage` / `transaction.stage`, tagged with the stage.
+ * - Per payment: open purchases the discharge looked at and purchases it changed.
+ * - Sampled: 1 in `stage-sampling` operations is timed, the others cost one random draw. A timer update with histogram
+ *   buckets costs about as much as the whole in-memory discharge, so timing every call would show in the hot path.
+ *   Counts of these meters are sample counts - request totals are in http.server.requests.
+ * - The draw is made once per operation ({@link #sample()}) and passed on to all its stages, so a sampled operation has
+ *   every stage timed and stage timings of the same sample add up.
+ * Usage: {@code boolean sampled = sample(); long t = start(sampled); ...stage 1...; t = record(STAGE_1, t); ...stage 2...;
+ * record(STAGE_2, t);}
+ */
+@Component
+public class StageMetrics {
+
+    public enum Stage {
+        ACCOUNT_CACHE("account", "cache"),
+        ACCOUNT_LOAD("account", "load"),
+        ACCOUNT_CREATE("account", "create"),
+        ACCOUNT_CREATE_BATCH("account", "create.batch"),
+        ACCOUNT_LOOKUP("transaction", "account.lookup"),
+        INSERT("transaction", "insert"),
+        DISCHARGE_FETCH("transaction", "discharge.fetch"),
+        DISCHARGE_APPLY("transaction", "discharge.apply"),
+        DISCHARGE_WRITE("transaction", "discharge.write");
+
+        private final String operation;
+        private final String tag;
+
+        Stage(String operation, String tag) {
+            this.operation = operation;
+            this.tag = tag;
+        }
+    }
+
+    // not 0: System.nanoTime() has an arbitrary origin and can return it
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private final int sampling;
+    private final Timer[] timers;
+    private final DistributionSummary scanned;
+    private final DistributionSummary discharged;
+
+    public StageMetrics(MeterRegistry meterRegistry,
+                        @Value("${transaction.metrics.stage-sampling:100}") int sampling) {
+        this.sampling = Math.max(1, sampling);
+        Stage[] stages = Stage.values();
+        this.timers = new Timer[stages.length];
+        for (Stage stage : stages) {
+            timers[stage.ordinal()] = Timer.builder(stage.operation + ".stage")
+                    .description("Time spent per processing stage (sampled)")
+                    .tag("stage", stage.tag)
+                    .register(meterRegistry);
+        }
+        this.scanned = DistributionSummary.builder("transaction.discharge.scanned")
+                .description("Open purchases looked at per payment (sampled)")
+                .register(meterRegistry);
+        this.discharged = DistributionSummary.builder("transaction.discharge.purchases")
+                .description("Purchases (partly) paid off per payment (sampled)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Decides whether an operation is timed, called once when the operation begins.
+     */
+    public boolean sample() {
+        return sampling == 1 || ThreadLocalRandom.current().nextInt(sampling) == 0;
+    }
+
+    /**
+     * Starts timing a stage of an operation: {@code System.nanoTime()} when the operation is sampled (see
+     * {@link #sample()}), a marker that records nothing otherwise.
+     */
+    public long start(boolean sampled) {
+        return sampled ? System.nanoTime() : NOT_SAMPLED;
+    }
+
+    /**
+     * Records the stage that began at {@code start} (see {@link #start(boolean)}) and returns its end, which is where the
+     * next stage of the same operation begins.
+     */
+    public long record(Stage stage, long start) {
+        if (start == NOT_SAMPLED) {
+            return NOT_SAMPLED;
+        }
+        long end = System.nanoTime();
+        timers[stage.ordinal()].record(end - start, TimeUnit.NANOSECONDS);
+        return end;
+    }
+
+    /**
+     * Records the size of a sampled discharge, {@code start} is any stage start of the same payment.
+     */
+    public void discharge(long start, int purchasesScanned, int purchasesDischarged) {
+        if (start == NOT_SAMPLED) {
+            return;
+        }
+        scanned.record(purchasesScanned);
+        discharged.record(purchasesDischarged);
+    }
+}
@@ -0,0 +1,96 @@
+package com.poc.transaction.service.operationtype;
+
+import com.poc.transaction.repository.OperationTypeRepository;
+import com.poc.transaction.repository.entity.OperationTypeEntity;
+import com.poc.transaction.service.cache.CacheInvalidationBus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Operation types of the operation_types table, served from an immutable {@link OperationTypes} snapshot.
+ * - Loaded once at startup (seeded with {@link OperationTypes#DEFAULT_TYPES} when the table is empty), before any
+ *   request or startup runner uses it. Until then the defaults apply.
+ * - {@link #refresh()} reloads the table and swaps the snapshot with a single volatile write: readers see either the
+ *   old or the new catalog, never a mix, and never wait. Other nodes reload through the cache invalidation bus.
+ * - A type can be added or changed without a redeploy; ids already used by transactions shouldn't change their sign.
+ */
+@Slf4j
+@Component
+public class OperationTypeCatalog implements InitializingBean {
+
+    static final String REFRESH_KEY = "operation-types";
+
+    private final OperationTypeRepository operationTypeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile OperationTypes current = OperationTypes.DEFAULTS;
+
+    public OperationTypeCatalog(OperationTypeRepository operationTypeRepository,
+                                TransactionTemplate transactionTemplate,
+                                CacheInvalidationBus invalidationBus) {
+        this.operationTypeRepository = operationTypeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.invalidationBus = invalidationBus;
+
+        invalidationBus.subscribe(invalidation -> {
+            if (!nodeId.equals(invalidation.origin()) && REFRESH_KEY.equals(invalidation.key())) {
+                load();
+            }
+        });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        load();
+    }
+
+    /**
+     * The catalog as of now - hold on to it for the whole operation, so every lookup of one request sees the same version.
+     */
+    public OperationTypes current() {
+        return current;
+    }
+
+    /**
+     * Reloads the catalog from the table, here and on every other node.
+     *
+     * @return the new snapshot
+     * @throws IllegalArgumentException when the table holds an invalid type, the previous snapshot stays in place
+     */
+    public OperationTypes refresh() {
+        OperationTypes refreshed = load();
+        invalidationBus.publish(new CacheInvalidationBus.Invalidation(nodeId, REFRESH_KEY));
+        return refreshed;
+    }
+
+    private OperationTypes load() {
+        List<OperationTypeEntity> rows = transactionTemplate.execute(status -> operationTypeRepository.findAll());
+        if (rows == null || rows.isEmpty()) {
+            rows = seed();
+        }
+        // built completely before it's published
+        OperationTypes loaded = OperationTypes.of(rows);
+        current = loaded;
+        log.info("Loaded {} operation types", loaded.ids().size());
+        return loaded;
+    }
+
+    private List<OperationTypeEntity> seed() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> operationTypeRepository.saveAll(
+                    OperationTypes.DEFAULT_TYPES.stream().map(type -> type.toBuilder().build()).toList()));
+            log.info("Seeded operation_types with the default operation types");
+        } catch (DataIntegrityViolationException e) {
+            // another node seeded it first
+            log.debug("operation_types was seeded concurrently", e);
+        }
+        return transactionTemplate.execute(status -> operationTypeRepository.findAll());
+    }
+}
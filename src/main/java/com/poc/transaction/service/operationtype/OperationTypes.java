@@ -0,0 +1,128 @@
+package com.poc.transaction.service.operationtype;
+
+import com.poc.transaction.repository.entity.OperationTypeEntity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of the operation type catalog, indexed by operation type id.
+ * - Lookups are plain array reads - no boxing, no hashing, no locks - so they can sit on the transaction hot path.
+ * - Ids are small positive numbers (1..{@link #MAX_ID}), an id without an entry is unknown.
+ * - A changed catalog is a new snapshot, swapped in whole by {@link OperationTypeCatalog}.
+ */
+public final class OperationTypes {
+
+    // keeps the lookup arrays small, ids are a handful of codes
+    public static final int MAX_ID = 1023;
+
+    // what a new database is seeded with - the types the service always had
+    public static final List<OperationTypeEntity> DEFAULT_TYPES = List.of(
+            new OperationTypeEntity(1, "CASH PURCHASE", -1, true),
+            new OperationTypeEntity(2, "INSTALLMENT PURCHASE", -1, true),
+            new OperationTypeEntity(3, "WITHDRAWAL", -1, true),
+            new OperationTypeEntity(4, "PAYMENT", 1, false));
+
+    public static final OperationTypes DEFAULTS = of(DEFAULT_TYPES);
+
+    private final String[] descriptions;
+    private final byte[] signs;
+    private final boolean[] dischargeEligible;
+    private final Set<Integer> ids;
+    private final List<Integer> dischargeEligibleIds;
+
+    private OperationTypes(String[] descriptions, byte[] signs, boolean[] dischargeEligible) {
+        this.descriptions = descriptions;
+        this.signs = signs;
+        this.dischargeEligible = dischargeEligible;
+        List<Integer> known = new ArrayList<>();
+        List<Integer> eligible = new ArrayList<>();
+        for (int id = 0; id < descriptions.length; id++) {
+            if (descriptions[id] != null) {
+                known.add(id);
+                if (dischargeEligible[id]) {
+                    eligible.add(id);
+                }
+            }
+        }
+        this.ids = Set.copyOf(known);
+        this.dischargeEligibleIds = List.copyOf(eligible);
+    }
+
+    /**
+     * Builds a snapshot from catalog rows.
+     *
+     * @throws IllegalArgumentException on an id out of range, a sign other than -1 / +1 or a discharge-eligible credit
+     */
+    public static OperationTypes of(Collection<OperationTypeEntity> operationTypes) {
+        // every row is checked before anything is allocated - the arrays are sized by the largest id
+        int length = 1;
+        for (OperationTypeEntity operationType : operationTypes) {
+            int id = operationType.getOperationTypeId();
+            if (id < 1 || id > MAX_ID) {
+                throw new IllegalArgumentException("Operation type id out of range 1.." + MAX_ID + ": " + id);
+            }
+            if (operationType.getSign() != -1 && operationType.getSign() != 1) {
+                throw new IllegalArgumentException("Operation type " + id + " has sign " + operationType.getSign() + ", expected -1 or 1");
+            }
+            if (operationType.isDischargeEligible() && operationType.getSign() > 0) {
+                throw new IllegalArgumentException("Operation type " + id + " is a credit, only debits can be discharged");
+            }
+            length = Math.max(length, id + 1);
+        }
+        String[] descriptions = new String[length];
+        byte[] signs = new byte[length];
+        boolean[] dischargeEligible = new boolean[length];
+        for (OperationTypeEntity operationType : operationTypes) {
+            int id = operationType.getOperationTypeId();
+            descriptions[id] = operationType.getDescription();
+            signs[id] = (byte) operationType.getSign();
+            dischargeEligible[id] = operationType.isDischargeEligible();
+        }
+        return new OperationTypes(descriptions, signs, dischargeEligible);
+    }
+
+    public boolean isKnown(int operationTypeId) {
+        return operationTypeId >= 0 && operationTypeId < descriptions.length && descriptions[operationTypeId] != null;
+    }
+
+    /**
+     * -1 for debits, +1 for credits - only meaningful for known ids.
+     */
+    public int sign(int operationTypeId) {
+        return isKnown(operationTypeId) ? signs[operationTypeId] : 0;
+    }
+
+    // credits (payments) pay off open debits
+    public boolean isCredit(int operationTypeId) {
+        return sign(operationTypeId) > 0;
+    }
+
+    public boolean isDischargeEligible(int operationTypeId) {
+        return isKnown(operationTypeId) && dischargeEligible[operationTypeId];
+    }
+
+    public String description(int operationTypeId) {
+        return isKnown(operationTypeId) ? descriptions[operationTypeId] : null;
+    }
+
+    public Set<Integer> ids() {
+        return ids;
+    }
+
+    // ids of the debits payments discharge, in id order - the type filter of the discharge queries
+    public List<Integer> dischargeEligibleIds() {
+        return dischargeEligibleIds;
+    }
+
+    public List<OperationTypeEntity> toEntities() {
+        return ids.stream()
+                .sorted(Comparator.naturalOrder())
+                .map(id -> new OperationTypeEntity(id, descriptions[id], signs[id], dischargeEligible[id]))
+                .collect(Collectors.toList());
+    }
+}
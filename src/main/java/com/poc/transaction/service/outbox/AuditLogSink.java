@@ -0,0 +1,26 @@
+package com.poc.transaction.service.outbox;
+
+import com.poc.transaction.repository.entity.OutboxEventEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Audit trail of every committed account and transaction, on its own logger ("audit") so it can be routed separately
+@Slf4j(topic = "audit")
+@Component
+public class AuditLogSink implements OutboxSink {
+
+    @Override
+    public String name() {
+        return "audit";
+    }
+
+    @Override
+    public void publish(List<OutboxEventEntity> events) {
+        for (OutboxEventEntity event : events) {
+            log.info("event={} id={} aggregateId={} createdAt={} payload={}", event.getEventType(), event.getId(),
+                    event.getAggregateId(), event.getCreatedAt(), event.getPayload());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.poc.transaction.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.transaction.model.response.AccountResponse;
+import com.poc.transaction.repository.entity.OutboxEventEntity;
+import com.poc.transaction.repository.entity.OutboxEventType;
+import com.poc.transaction.service.cache.CacheService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.poc.transaction.utils.Constants.CACHE_PREFIX;
+
+// Write-through of newly created accounts into the cache - only runs once the account is committed
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheWarmerSink implements OutboxSink {
+
+    private final CacheService cacheService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String name() {
+        return "cache-warmer";
+    }
+
+    @Override
+    public boolean accepts(OutboxEventType type) {
+        return type == OutboxEventType.ACCOUNT_CREATED;
+    }
+
+    @Override
+    public void publish(List<OutboxEventEntity> events) {
+        Map<String, AccountResponse> accounts = new LinkedHashMap<>();
+        for (OutboxEventEntity event : events) {
+            try {
+                accounts.put(CACHE_PREFIX + event.getAggregateId(), objectMapper.readValue(event.getPayload(), AccountResponse.class));
+            } catch (JsonProcessingException | RuntimeException e) {
+                // a cold cache entry is only a miss later, not worth holding the outbox back for
+                log.warn("Could not warm cache for account {}", event.getAggregateId(), e);
+            }
+        }
+        // the accounts are new, no node has them cached - one pipelined write for the whole batch
+        try {
+            cacheService.putAll(accounts);
+        } catch (RuntimeException e) {
+            log.warn("Could not warm cache for {} accounts", accounts.size(), e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.poc.transaction.service.outbox;
+
+import com.poc.transaction.repository.entity.OutboxEventEntity;
+import com.poc.transaction.repository.entity.OutboxEventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local stand-in for a Kafka producer: one bounded in-memory topic per event type keeping the most recent events.
+ * Swapping in a real broker means another OutboxSink bean, the relay doesn't change.
+ */
+@Component
+@ConditionalOnProperty(name = "transaction.outbox.local-stream.enabled", havingValue = "true", matchIfMissing = true)
+public class LocalEventStreamSink implements OutboxSink {
+
+    private final int capacity;
+    private final Map<OutboxEventType, Deque<OutboxEventEntity>> topics = new EnumMap<>(OutboxEventType.class);
+
+    public LocalEventStreamSink(@Value("${transaction.outbox.local-stream.capacity:10000}") int capacity) {
+        this.capacity = capacity;
+        for (OutboxEventType type : OutboxEventType.values()) {
+            topics.put(type, new ArrayDeque<>());
+        }
+    }
+
+    @Override
+    public String name() {
+        return "local-stream";
+    }
+
+    @Override
+    public void publish(List<OutboxEventEntity> events) {
+        for (OutboxEventEntity event : events) {
+            Deque<OutboxEventEntity> topic = topics.get(event.getEventType());
+            synchronized (topic) {
+                if (topic.size() == capacity) {
+                    topic.pollFirst();
+                }
+                topic.addLast(event);
+            }
+        }
+    }
+
+    /**
+     * Most recent events of a type, oldest first.
+     */
+    public List<OutboxEventEntity> recent(OutboxEventType type) {
+        Deque<OutboxEventEntity> topic = topics.get(type);
+        synchronized (topic) {
+            return new ArrayList<>(topic);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.poc.transaction.service.outbox;
+
+import com.poc.transaction.repository.OutboxEventRepository;
+import com.poc.transaction.repository.entity.OutboxEventEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Moves committed outbox events to the sinks.
+ * - Polls the oldest `batch-size` events FOR UPDATE SKIP LOCKED, so relays on several nodes never hand out the same event.
+ * - Each sink gets the events it accepts as one batch, then the whole batch is deleted in one statement - same DB
+ *   transaction as the lock, a failure leaves the batch for the next poll (at-least-once).
+ * - A full batch is followed by the next one right away, the poll interval only applies once the outbox is drained.
+ * - Exported: outbox.lag (commit to relay, per event), outbox.batch.size and outbox.events.relayed (throughput).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "transaction.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay implements DisposableBean {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OutboxSink> sinks;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Timer lag;
+    private final DistributionSummary batchSizes;
+    private final Counter relayed;
+    private final Map<String, Counter> failures;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       TransactionTemplate transactionTemplate,
+                       List<OutboxSink> sinks,
+                       @Value("${transaction.outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${transaction.outbox.relay.poll-interval:200ms}") Duration pollInterval,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.sinks = sinks;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.lag = Timer.builder("outbox.lag")
+                .description("Time from an event's commit to its relay")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("outbox.batch.size")
+                .description("Events relayed per poll")
+                .register(meterRegistry);
+        this.relayed = Counter.builder("outbox.events.relayed")
+                .description("Events handed to the sinks and removed from the outbox")
+                .register(meterRegistry);
+        this.failures = sinks.stream().collect(Collectors.toMap(OutboxSink::name, sink -> Counter.builder("outbox.sink.failures")
+                .description("Batches a sink failed to publish")
+                .tag("sink", sink.name())
+                .register(meterRegistry), (a, b) -> a));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::drain, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Outbox relay started with sinks={}", sinks.stream().map(OutboxSink::name).toList());
+    }
+
+    /**
+     * Relays batches until the outbox is drained or a batch fails.
+     */
+    public void drain() {
+        try {
+            while (relayBatch() == batchSize) {
+                // full batch - there's probably more
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay failed, retrying in {}", pollInterval, e);
+        }
+    }
+
+    /**
+     * Relays one batch and returns its size.
+     */
+    public int relayBatch() {
+        Integer relayedCount = transactionTemplate.execute(status -> {
+            List<OutboxEventEntity> batch = outboxEventRepository.lockNextBatch(Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            for (OutboxSink sink : sinks) {
+                List<OutboxEventEntity> accepted = batch.stream()
+                        .filter(event -> sink.accepts(event.getEventType()))
+                        .toList();
+                if (accepted.isEmpty()) {
+                    continue;
+                }
+                try {
+                    sink.publish(accepted);
+                } catch (RuntimeException e) {
+                    failures.get(sink.name()).increment();
+                    throw e;
+                }
+            }
+            outboxEventRepository.deleteAllByIdInBatch(batch.stream().map(OutboxEventEntity::getId).toList());
+
+            LocalDateTime now = LocalDateTime.now();
+            batch.forEach(event -> lag.record(Duration.between(event.getCreatedAt(), now)));
+            batchSizes.record(batch.size());
+            relayed.increment(batch.size());
+            return batch.size();
+        });
+        return relayedCount == null ? 0 : relayedCount;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,16 @@
+package com.poc.transaction.service.outbox;
+
+import com.poc.transaction.repository.entity.OutboxEventType;
+
+public interface OutboxService {
+
+    /**
+     * Adds an event to the outbox. Must be called inside the DB transaction that writes the aggregate, the event is then
+     * committed (and relayed) if and only if the aggregate is.
+     *
+     * @param type        the event type
+     * @param aggregateId the id of the account or transaction
+     * @param payload     serialized to JSON as the event payload
+     */
+    void record(OutboxEventType type, Long aggregateId, Object payload);
+}
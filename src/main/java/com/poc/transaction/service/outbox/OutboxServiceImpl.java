@@ -0,0 +1,38 @@
+package com.poc.transaction.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.transaction.repository.OutboxEventRepository;
+import com.poc.transaction.repository.entity.OutboxEventEntity;
+import com.poc.transaction.repository.entity.OutboxEventType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxServiceImpl implements OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(OutboxEventType type, Long aggregateId, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload of " + type + " can't be serialized", e);
+        }
+        outboxEventRepository.save(OutboxEventEntity.builder()
+                .eventType(type)
+                .aggregateId(aggregateId)
+                .payload(json)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+}
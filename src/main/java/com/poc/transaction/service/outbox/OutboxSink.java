@@ -0,0 +1,30 @@
+package com.poc.transaction.service.outbox;
+
+import com.poc.transaction.repository.entity.OutboxEventEntity;
+import com.poc.transaction.repository.entity.OutboxEventType;
+
+import java.util.List;
+
+/**
+ * Destination of relayed outbox events. Delivery is at-least-once: a sink that throws keeps the whole batch in the
+ * outbox and it's handed to every sink again on the next poll, so sinks should tolerate duplicates.
+ */
+public interface OutboxSink {
+
+    /**
+     * Name used in logs and metrics.
+     */
+    String name();
+
+    /**
+     * Whether the sink wants events of this type, the others are filtered out before publish.
+     */
+    default boolean accepts(OutboxEventType type) {
+        return true;
+    }
+
+    /**
+     * Publishes a batch of events, oldest first.
+     */
+    void publish(List<OutboxEventEntity> events);
+}
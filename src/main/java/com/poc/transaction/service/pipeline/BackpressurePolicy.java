@@ -0,0 +1,11 @@
+package com.poc.transaction.service.pipeline;
+
+// What a stage does with a task when its queue is full - none of them throws into the caller
+public enum BackpressurePolicy {
+    // the submitting thread runs the task itself, which slows the producer down to the stage's pace
+    CALLER_RUNS,
+    // the oldest queued task is discarded to make room, for work where only the latest matters (e.g. cache writes)
+    DROP_OLDEST,
+    // the caller waits up to block-timeout for room, the task is discarded if none frees up
+    BLOCK
+}
@@ -0,0 +1,54 @@
+package com.poc.transaction.service.pipeline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs side effects off the request path on named, bounded stages (see PipelineStage), configured under
+ * transaction.pipeline.stages. Stages are created on first use.
+ */
+@Slf4j
+@Component
+public class EventPipeline implements DisposableBean {
+
+    public static final String CACHE_WRITE = "cache-write";
+    public static final String CACHE_INVALIDATION = "cache-invalidation";
+
+    private final PipelineProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, PipelineStage> stages = new ConcurrentHashMap<>();
+
+    public EventPipeline(PipelineProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Hands the task to the stage - returns once it's queued (or run, or discarded, per the stage's policy), never throws.
+     */
+    public void submit(String stage, Runnable task) {
+        stage(stage).submit(task);
+    }
+
+    public PipelineStage stage(String name) {
+        return stages.computeIfAbsent(name, stage -> {
+            PipelineProperties.Stage settings = properties.stage(stage);
+            log.info("Starting pipeline stage={} threads={} queue={} policy={}", stage, settings.threads(),
+                    settings.queueCapacity(), settings.policy());
+            return new PipelineStage(stage, settings, meterRegistry);
+        });
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (PipelineStage stage : stages.values()) {
+            stage.shutdown(5, TimeUnit.SECONDS);
+        }
+    }
+}
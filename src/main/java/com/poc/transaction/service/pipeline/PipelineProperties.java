@@ -0,0 +1,39 @@
+package com.poc.transaction.service.pipeline;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Stages of the event pipeline by name, a stage that isn't configured gets the defaults.
+ *
+ * @param stages stage name -> settings
+ */
+@ConfigurationProperties(prefix = "transaction.pipeline")
+public record PipelineProperties(Map<String, Stage> stages) {
+
+    public PipelineProperties {
+        stages = stages == null ? Map.of() : Map.copyOf(stages);
+    }
+
+    public Stage stage(String name) {
+        return stages.getOrDefault(name, new Stage(0, 0, null, null));
+    }
+
+    /**
+     * @param threads       workers of the stage
+     * @param queueCapacity tasks waiting before the policy kicks in
+     * @param policy        caller-runs | drop-oldest | block
+     * @param blockTimeout  how long `block` waits for room
+     */
+    public record Stage(int threads, int queueCapacity, BackpressurePolicy policy, Duration blockTimeout) {
+
+        public Stage {
+            threads = threads <= 0 ? 1 : threads;
+            queueCapacity = queueCapacity <= 0 ? 1000 : queueCapacity;
+            policy = policy == null ? BackpressurePolicy.CALLER_RUNS : policy;
+            blockTimeout = blockTimeout == null ? Duration.ofMillis(100) : blockTimeout;
+        }
+    }
+}
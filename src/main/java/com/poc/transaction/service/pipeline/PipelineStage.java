@@ -0,0 +1,145 @@
+package com.poc.transaction.service.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One named stage of the event pipeline: a fixed set of workers behind a bounded queue, with the configured
+ * backpressure policy once the queue is full. A failing task is logged and counted, it never reaches the submitter.
+ * Exported per stage: pipeline.queue.depth, pipeline.wait, pipeline.execution, pipeline.rejections{policy} and
+ * pipeline.failures.
+ */
+@Slf4j
+public class PipelineStage {
+
+    private final String name;
+    private final PipelineProperties.Stage settings;
+    private final BlockingQueue<Runnable> queue;
+    private final ThreadPoolExecutor executor;
+    private final Timer waitTimer;
+    private final Timer executionTimer;
+    private final Counter rejections;
+    private final Counter failures;
+
+    public PipelineStage(String name, PipelineProperties.Stage settings, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.settings = settings;
+        this.queue = new ArrayBlockingQueue<>(settings.queueCapacity());
+        AtomicInteger workers = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(settings.threads(), settings.threads(), 0, TimeUnit.MILLISECONDS, queue,
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + workers.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // full queues are handled in submit, this only sees tasks arriving after shutdown
+                new ThreadPoolExecutor.DiscardPolicy());
+        // workers take straight from the queue, submit never hands tasks to the executor
+        executor.prestartAllCoreThreads();
+        Gauge.builder("pipeline.queue.depth", queue, BlockingQueue::size)
+                .description("Tasks waiting in the stage queue")
+                .tag("stage", name)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("pipeline.wait")
+                .description("Time a task waits in the stage queue")
+                .tag("stage", name)
+                .register(meterRegistry);
+        this.executionTimer = Timer.builder("pipeline.execution")
+                .description("Time a task takes to run")
+                .tag("stage", name)
+                .register(meterRegistry);
+        this.rejections = Counter.builder("pipeline.rejections")
+                .description("Tasks that found the stage queue full")
+                .tag("stage", name)
+                .tag("policy", settings.policy().name().toLowerCase().replace('_', '-'))
+                .register(meterRegistry);
+        this.failures = Counter.builder("pipeline.failures")
+                .description("Tasks that threw")
+                .tag("stage", name)
+                .register(meterRegistry);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Queues the task, applying the stage's policy when the queue is full. Never throws.
+     */
+    public void submit(Runnable task) {
+        StageTask stageTask = new StageTask(task);
+        if (executor.isShutdown()) {
+            log.debug("Stage {} is shut down, task discarded", name);
+            return;
+        }
+        if (queue.offer(stageTask)) {
+            return;
+        }
+        rejections.increment();
+        switch (settings.policy()) {
+            case CALLER_RUNS -> stageTask.run();
+            case DROP_OLDEST -> {
+                while (!queue.offer(stageTask)) {
+                    if (queue.poll() != null) {
+                        log.debug("Stage {} full, dropped its oldest task", name);
+                    }
+                }
+            }
+            case BLOCK -> {
+                try {
+                    if (!queue.offer(stageTask, settings.blockTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                        log.warn("Stage {} still full after {}, task discarded", name, settings.blockTimeout());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Stops taking tasks and waits for the queued ones to finish.
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(timeout, unit)) {
+            log.warn("Stage {} shut down with {} tasks still queued", name, queue.size());
+        }
+    }
+
+    private final class StageTask implements Runnable {
+        private final Runnable task;
+        private final long enqueuedAt = System.nanoTime();
+
+        StageTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+            waitTimer.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Task on stage {} failed", name, e);
+            } finally {
+                executionTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
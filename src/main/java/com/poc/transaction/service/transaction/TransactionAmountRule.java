@@ -1,51 +1,50 @@
 package com.poc.transaction.service.transaction;
 
 import com.poc.transaction.exception.ApiException;
+import com.poc.transaction.service.operationtype.OperationTypes;
+import com.poc.transaction.utils.Money;
 import org.springframework.http.HttpStatus;
 
 import java.math.BigDecimal;
-import java.util.Map;
-import java.util.HashMap;
 
 public class TransactionAmountRule {
 
-    // this could be in a separate config table and pulled once from when app starts - just made it as enum for simplicity
-    private static final Map<Integer, String> OPERATION_TYPES = new HashMap<>();
-
-    static {
-        OPERATION_TYPES.put(1, "CASH PURCHASE");
-        OPERATION_TYPES.put(2, "INSTALLMENT PURCHASE");
-        OPERATION_TYPES.put(3, "WITHDRAWAL");
-        OPERATION_TYPES.put(4, "PAYMENT");
-    }
+    // amount / balance columns are numeric(15,2)
+    private static final long MAX_AMOUNT = 999_999_999_999_999L;
 
     private TransactionAmountRule() {
         // utility class, prevent instantiation
     }
 
-    public static BigDecimal applySignRule(int operationTypeId, BigDecimal amount) {
-        validateOperationType(operationTypeId);
-
-        switch (operationTypeId) {
-            case 1: // CASH PURCHASE
-            case 2: // INSTALLMENT PURCHASE
-            case 3: // WITHDRAWAL
-                return amount.negate(); // enforce negative
-            case 4: // PAYMENT
-                return amount; // keep positive
-            default:
-                throw new IllegalArgumentException("Unsupported operation type: " + operationTypeId);
-        }
+    /**
+     * Validates the operation type and the amount, and returns the signed amount in minor units (see {@link Money}):
+     * negative for debts, positive for payments, as the operation type catalog defines them. This is where request
+     * amounts leave BigDecimal.
+     */
+    public static long applySignRule(OperationTypes operationTypes, int operationTypeId, BigDecimal amount) {
+        validateOperationType(operationTypes, operationTypeId);
+        long minorUnits = toMinorUnits(amount);
+
+        return operationTypes.sign(operationTypeId) < 0
+                ? -minorUnits // enforce negative
+                : minorUnits; // keep positive
     }
 
-    private static void validateOperationType(int operationTypeId) {
-        if (!OPERATION_TYPES.containsKey(operationTypeId)) {
-            throw new ApiException("Provided operation type id is invalid.", HttpStatus.BAD_REQUEST, "INVALID_OPERATION_TYPE");
+    private static long toMinorUnits(BigDecimal amount) {
+        try {
+            long minorUnits = Money.of(amount);
+            if (minorUnits <= MAX_AMOUNT) {
+                return minorUnits;
+            }
+        } catch (ArithmeticException e) {
+            // beyond a long, rejected below like any other amount the columns can't hold
         }
+        throw new ApiException("Provided amount is out of range.", HttpStatus.BAD_REQUEST, "INVALID_AMOUNT");
     }
 
-    // this may not be required
-    public static String getDescription(int operationTypeId) {
-        return OPERATION_TYPES.get(operationTypeId);
+    private static void validateOperationType(OperationTypes operationTypes, int operationTypeId) {
+        if (!operationTypes.isKnown(operationTypeId)) {
+            throw new ApiException("Provided operation type id is invalid.", HttpStatus.BAD_REQUEST, "INVALID_OPERATION_TYPE");
+        }
     }
 }
@@ -0,0 +1,37 @@
+package com.poc.transaction.service.transaction;
+
+import com.poc.transaction.model.request.TransactionHistoryFilter;
+import com.poc.transaction.model.response.TransactionPageResponse;
+import com.poc.transaction.model.response.TransactionResponse;
+
+import java.util.function.Consumer;
+
+public interface TransactionHistoryService {
+    /**
+     * Reads one page of an account's transactions, ordered by event date then transaction id.
+     *
+     * @param accountId the account
+     * @param filter    optional date range and operation types
+     * @param cursor    the nextCursor of the previous page, null for the first page
+     * @param limit     page size (capped)
+     * @return the page and the cursor of the next one
+     */
+    TransactionPageResponse getTransactions(Long accountId, TransactionHistoryFilter filter, String cursor, int limit);
+
+    /**
+     * Streams all matching transactions of an account to the consumer through a server-side cursor,
+     * so memory use doesn't depend on the number of rows.
+     *
+     * @param accountId the account
+     * @param filter    optional date range and operation types
+     * @param consumer  receives every row in order
+     */
+    void streamTransactions(Long accountId, TransactionHistoryFilter filter, Consumer<TransactionResponse> consumer);
+
+    /**
+     * Fails with ACCOUNT_NOT_FOUND when the account doesn't exist - lets the API answer 404 before it starts streaming.
+     *
+     * @param accountId the account
+     */
+    void requireAccount(Long accountId);
+}
@@ -0,0 +1,126 @@
+package com.poc.transaction.service.transaction;
+
+import com.poc.transaction.exception.ApiException;
+import com.poc.transaction.model.request.TransactionHistoryFilter;
+import com.poc.transaction.model.response.TransactionPageResponse;
+import com.poc.transaction.model.response.TransactionResponse;
+import com.poc.transaction.repository.AccountRepository;
+import com.poc.transaction.repository.TransactionRepository;
+import com.poc.transaction.repository.projection.TransactionRow;
+import com.poc.transaction.service.account.MissingAccountCache;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.utils.mappers.TransactionMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class TransactionHistoryServiceImpl implements TransactionHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // bounds used when the filter leaves the range open - keeps the query free of nullable parameters
+    private static final LocalDateTime MIN_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final MissingAccountCache missingAccountCache;
+    private final OperationTypeCatalog operationTypeCatalog;
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionPageResponse getTransactions(Long accountId, TransactionHistoryFilter filter, String cursor, int limit) {
+        requireAccount(accountId);
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        LocalDateTime from = from(filter);
+
+        // no cursor: seek from the start of the range (ids are always positive)
+        LocalDateTime afterDate = from;
+        long afterId = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor position = decode(cursor);
+            afterDate = position.eventDate();
+            afterId = position.transactionId();
+        }
+
+        // one extra row tells whether there is a next page
+        List<TransactionRow> rows = transactionRepository.findHistoryPage(accountId, operationTypeIds(filter), from, to(filter),
+                afterDate, afterId, Limit.of(pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<TransactionRow> page = hasMore ? rows.subList(0, pageSize) : rows;
+        TransactionRow last = page.isEmpty() ? null : page.get(page.size() - 1);
+
+        return TransactionPageResponse.builder()
+                .items(page.stream().map(TransactionMapper::toResponse).toList())
+                .nextCursor(hasMore ? encode(last) : null)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamTransactions(Long accountId, TransactionHistoryFilter filter, Consumer<TransactionResponse> consumer) {
+        requireAccount(accountId);
+        try (Stream<TransactionRow> rows = transactionRepository.streamHistory(accountId, operationTypeIds(filter), from(filter), to(filter))) {
+            rows.map(TransactionMapper::toResponse).forEach(consumer);
+        }
+    }
+
+    @Override
+    public void requireAccount(Long accountId) {
+        if (missingAccountCache.isMissing(accountId)) {
+            throw new ApiException("Account not found", HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+        }
+        if (!accountRepository.existsById(accountId)) {
+            missingAccountCache.markMissing(accountId);
+            throw new ApiException("Account not found", HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+        }
+    }
+
+    private static LocalDateTime from(TransactionHistoryFilter filter) {
+        return filter == null || filter.getFrom() == null ? MIN_DATE : filter.getFrom();
+    }
+
+    private static LocalDateTime to(TransactionHistoryFilter filter) {
+        return filter == null || filter.getTo() == null ? MAX_DATE : filter.getTo();
+    }
+
+    private Collection<Integer> operationTypeIds(TransactionHistoryFilter filter) {
+        return filter == null || filter.getOperationTypeIds() == null || filter.getOperationTypeIds().isEmpty()
+                ? operationTypeCatalog.current().ids()
+                : filter.getOperationTypeIds();
+    }
+
+    // cursor = base64url("<eventDate>|<transactionId>") of the last row returned
+    static String encode(TransactionRow last) {
+        String position = last.eventDate() + "|" + last.transactionId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decode(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf('|');
+            return new Cursor(LocalDateTime.parse(position.substring(0, separator)), Long.parseLong(position.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new ApiException("Provided cursor is invalid.", HttpStatus.BAD_REQUEST, "INVALID_CURSOR");
+        }
+    }
+
+    record Cursor(LocalDateTime eventDate, long transactionId) {
+    }
+}
@@ -1,8 +1,11 @@
 package com.poc.transaction.service.transaction;
 
 import com.poc.transaction.model.request.TransactionRequest;
+import com.poc.transaction.model.response.BatchTransactionResponse;
 import com.poc.transaction.model.response.TransactionResponse;
 
+import java.util.List;
+
 public interface TransactionService {
     /**
      * Creates a transaction for the given account and operation type.
@@ -11,4 +14,22 @@ public interface TransactionService {
      * @return a response containing details of the created transaction
      */
     TransactionResponse createTransaction(TransactionRequest request);
+
+    /**
+     * Creates a transaction that was accepted asynchronously, tagging it with the reference handed to the client.
+     *
+     * @param request   the request of the TransactionRequest payload
+     * @param reference the reference of the accepted request
+     * @return a response containing details of the created transaction
+     */
+    TransactionResponse createTransaction(TransactionRequest request, String reference);
+
+    /**
+     * Creates a batch of transactions. Items are grouped by account, purchases are processed before payments
+     * (each in arrival order) and every account group is persisted in its own DB transaction.
+     *
+     * @param requests the transactions to create, in arrival order
+     * @return per-item results (transaction id or error) in the same order as the requests
+     */
+    BatchTransactionResponse createTransactions(List<TransactionRequest> requests);
 }
@@ -2,23 +2,48 @@ package com.poc.transaction.service.transaction;
 
 import com.poc.transaction.exception.ApiException;
 import com.poc.transaction.model.request.TransactionRequest;
+import com.poc.transaction.model.response.BatchItemResult;
+import com.poc.transaction.model.response.BatchTransactionResponse;
 import com.poc.transaction.model.response.TransactionResponse;
 import com.poc.transaction.repository.AccountRepository;
+import com.poc.transaction.repository.OpenTransactionRepository;
 import com.poc.transaction.repository.TransactionRepository;
 import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.entity.OutboxEventType;
 import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.service.account.MissingAccountCache;
+import com.poc.transaction.service.execution.AccountLaneExecutor;
+import com.poc.transaction.service.execution.ConflictRetry;
+import com.poc.transaction.service.execution.GroupCommitter;
+import com.poc.transaction.service.metrics.StageMetrics;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.service.operationtype.OperationTypes;
+import com.poc.transaction.service.outbox.OutboxService;
+import com.poc.transaction.service.transaction.discharge.DischargeStrategy;
+import com.poc.transaction.utils.Money;
 import com.poc.transaction.utils.mappers.TransactionMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -27,162 +52,208 @@ public class TransactionServiceImpl implements TransactionService {
 
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
+    private final OpenTransactionRepository openTransactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final AccountLaneExecutor laneExecutor;
+    private final DischargeStrategy dischargeStrategy;
+    private final MissingAccountCache missingAccountCache;
+    private final GroupCommitter groupCommitter;
+    private final ConflictRetry conflictRetry;
+    private final OutboxService outboxService;
+    private final StageMetrics stageMetrics;
+    private final OperationTypeCatalog operationTypeCatalog;
+    @Value("${transaction.balance.require-funds:false}")
+    private final boolean requireFunds;
 
     @Override
     public TransactionResponse createTransaction(TransactionRequest request) {
+        return createTransaction(request, null);
+    }
 
-        // validate account existence
-        AccountEntity account = validateAccount(request.getAccountId());
-
-        // Validate operation type and apply sign rule
-        BigDecimal finalAmount = TransactionAmountRule.applySignRule(request.getOperationTypeId(), request.getAmount());
+    @Override
+    public TransactionResponse createTransaction(TransactionRequest request, String reference) {
+        // rejected before it queues on a lane or takes a DB connection
+        rejectMissingAccount(request.getAccountId());
 
-        // prepare txn entity
-        // this new variable can be avoided by having the updateBalance func within the TransactionMapper itself
-        TransactionEntity entity = TransactionMapper.toEntity(request, account, finalAmount);
+        // single writer per account - runs on the account's lane, so concurrent payments can't discharge the same purchases
+        // group commit - shares the DB transaction (and its commit) with creates arriving concurrently on the same lane
+        // sampled once: a timed create has all its stages timed, lookup to discharge
+        boolean sampled = stageMetrics.sample();
+        return groupCommitter.execute(request.getAccountId(), () -> {
 
-        // set balance differently for purchases vs payments
-        entity.setBalance(updateBalance(request));
+            // validate account existence
+            AccountEntity account = validateAccount(request.getAccountId(), sampled);
 
-        // save transaction to the repository and return response with txn id
-        // for payment type operation - saving the transaction first, then process discharge makes strong consistency
-        // saving early is safer (so the txn exists even if discharge fails mid-way).
-        TransactionEntity savedEntity = transactionRepository.save(entity);
+            return TransactionMapper.toResponse(record(request, account, reference, sampled));
+        });
+    }
 
-        // discharge only if operation type is payment
-        if (request.getOperationTypeId() == 4){
-            // this could be async process using event-driven, so events can be sourced to payment-discharge, audit-log, notify but for made it sync for simplicity
-            // setting balance again for tests, but balance data will be ignored in API response.
-            entity.setBalance(discharge(savedEntity));
+    @Override
+    public BatchTransactionResponse createTransactions(List<TransactionRequest> requests) {
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+
+        // group item positions by account (arrival order kept within a group), invalid items are answered right away
+        Map<Long, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TransactionRequest request = requests.get(i);
+            Set<ConstraintViolation<TransactionRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                results[i] = BatchItemResult.failed(i, "VALIDATION_ERROR", violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                continue;
+            }
+            groups.computeIfAbsent(request.getAccountId(), accountId -> new ArrayList<>()).add(i);
         }
 
-        // Update balance in account -> Removing this as we don't need it for now.
-        /*
-        account.setAvailableBalance(account.getAvailableBalance().add(finalAmount));
-        accountRepository.save(account);
-        */
+        // each group runs on its account's lane - independent accounts in parallel, ordered with any other work on the account
+        // every group writes to its own slots of the results array
+        CompletableFuture<?>[] futures = groups.entrySet().stream()
+                .map(group -> processGroup(group.getKey(), group.getValue(), requests, results))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
 
-        return TransactionMapper.toResponse(savedEntity);
+        log.info("Processed batch of {} transactions across {} accounts", requests.size(), groups.size());
+        return BatchTransactionResponse.of(Arrays.asList(results));
     }
 
     /**
-     * Discharge logic:
-     * - Use the positive payment amount to offset negative purchase balances.
-     * - Purchases are iterated in order, and each is partially/fully balanced.
-     * - Remaining payment amount is updated accordingly.
+     * Processes all batch items of one account in a single DB transaction.
+     * - Purchases go first, then payments, both in arrival order, so payments can discharge purchases of the same batch.
+     * - Business errors (e.g. invalid operation type) only fail their own item.
+     * - Anything else rolls the group back and fails all of its items.
+     * - A conflict with another node re-runs the whole group, queued on the lane again after the backoff.
      */
-    private BigDecimal discharge(TransactionEntity paymentTransaction) {
-        // Start with the full payment amount (always positive for payments)
-        BigDecimal amountToBalance = paymentTransaction.getAmount();
-
-        // Fetch all purchase transactions for this account that might need balancing
-        List<TransactionEntity> purchases = transactionRepository.fetchTransactions(
-                paymentTransaction.getAccount().getAccountId(),
-                LocalDateTime.now()
-        );
-
-        // If no purchases exist, just set balance on payment and save
-        if (purchases.isEmpty()) {
-            // audit-log it for reports (no need to console log it everytime)
-            log.info("No previous purchases found for accountId={}, saving payment txn with balance={}", paymentTransaction.getAccount().getAccountId(), amountToBalance);
-            return amountToBalance;
-        }
-
-        // List of transactions (purchases + payment) that will be updated and saved
-        List<TransactionEntity> updatedPurchases = new ArrayList<>();
+    private CompletableFuture<Void> processGroup(Long accountId, List<Integer> positions, List<TransactionRequest> requests,
+                                                 BatchItemResult[] results) {
+        // stable sort - keeps arrival order among purchases and among payments
+        OperationTypes operationTypes = operationTypeCatalog.current();
+        List<Integer> ordered = positions.stream()
+                .sorted(Comparator.comparing(position -> operationTypes.isCredit(requests.get(position).getOperationTypeId())))
+                .toList();
+        return conflictRetry.<Void>submit(() -> laneExecutor.submit(accountId, () -> {
+            rejectMissingAccount(accountId);
+            return transactionTemplate.execute(status -> {
+                // account is looked up once for the whole group, and the group is sampled as one operation
+                boolean sampled = stageMetrics.sample();
+                AccountEntity account = validateAccount(accountId, sampled);
+                for (int position : ordered) {
+                    try {
+                        TransactionEntity saved = record(requests.get(position), account, null, sampled);
+                        results[position] = BatchItemResult.created(position, saved.getTransactionId());
+                    } catch (ApiException e) {
+                        results[position] = BatchItemResult.failed(position, e.getCode(), e.getMessage());
+                    }
+                }
+                return null;
+            });
+        })).exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof ApiException e) {
+                positions.forEach(position -> results[position] = BatchItemResult.failed(position, e.getCode(), e.getMessage()));
+            } else {
+                log.error("Batch group for accountId={} failed and was rolled back", accountId, cause);
+                positions.forEach(position -> results[position] = BatchItemResult.failed(position, "BATCH_GROUP_FAILED",
+                        "Transactions of this account could not be persisted"));
+            }
+            return null;
+        });
+    }
 
-        // Iterate through each purchase transaction and try to offset its negative balance
-        for (TransactionEntity purchase : purchases) {
-            // Check if this purchase is eligible:
-            // (1) purchase has negative balance (unpaid), and
-            // (2) payment still has some remaining amount
-            if (isEligibleForDischarge(purchase, amountToBalance)) {
+    /**
+     * Validates the operation type, saves the transaction and discharges open purchases when it's a payment.
+     */
+    private TransactionEntity record(TransactionRequest request, AccountEntity account, String reference, boolean sampled) {
+        // one catalog version for the whole transaction, even if it's refreshed meanwhile
+        OperationTypes operationTypes = operationTypeCatalog.current();
+        int operationTypeId = request.getOperationTypeId();
+
+        // Validate operation type and apply sign rule - amounts are fixed-point minor units from here on (see Money)
+        long finalAmount = TransactionAmountRule.applySignRule(operationTypes, operationTypeId, request.getAmount());
+        BigDecimal signedAmount = Money.toBigDecimal(finalAmount);
+        boolean credit = operationTypes.isCredit(operationTypeId);
+        // discharge-eligible debits stay open items and count as debt until a payment pays them off
+        boolean opensItem = operationTypes.isDischargeEligible(operationTypeId);
+
+        // prepare txn entity, a new transaction's balance is its whole signed amount (negative purchases, positive payments)
+        TransactionEntity entity = TransactionMapper.toEntity(request, account, signedAmount, reference);
+        entity.setBalance(signedAmount);
+
+        // purchases move the account balances first: the funds check is part of the same statement, and a rejected
+        // purchase must fail before anything of it is written (an ApiException doesn't roll back a shared DB transaction)
+        if (!credit) {
+            applyBalanceChange(account, signedAmount, opensItem ? Money.toBigDecimal(Money.negate(finalAmount)) : BigDecimal.ZERO,
+                    requireFunds);
+        }
 
-                // apply discharge logic -> find offset amount to discharge & update purchase balance by applying the offset
-                // returns [offsetAmount, remainingPaymentBalance]
-                BigDecimal[] results = applyDischarge(purchase, amountToBalance);
+        // save transaction to the repository and return response with txn id
+        // for payment type operation - saving the transaction first, then process discharge makes strong consistency
+        // saving early is safer (so the txn exists even if discharge fails mid-way).
+        long start = stageMetrics.start(sampled);
+        TransactionEntity savedEntity = transactionRepository.save(entity);
 
-                // Update remaining payment after discharge
-                amountToBalance = results[1];
+        // unpaid purchases also go to the open items side table (same DB transaction), it's what discharge reads from
+        if (opensItem) {
+            openTransactionRepository.save(TransactionMapper.toOpenEntity(savedEntity));
+        }
+        stageMetrics.record(StageMetrics.Stage.INSERT, start);
+        dischargeStrategy.onRecorded(savedEntity);
 
-                // audit log it to db/ elastic cache for reporting
-                // audit-log it for reporting (no need to console log it everytime)
-                log.info("Discharge: purchaseId={}, newBalance={}, remainingPayment={}",
-                        purchase.getTransactionId(), purchase.getBalance(), amountToBalance);
+        // audit / downstream event, committed (or rolled back) with the transaction
+        outboxService.record(OutboxEventType.TRANSACTION_CREATED, savedEntity.getTransactionId(), TransactionMapper.toResponse(savedEntity));
 
-                // Add updated purchase to the list of entities to persist later
-                updatedPurchases.add(purchase);
+        // discharge only if operation type is payment
+        if (credit) {
+            // this could be async process using event-driven, so events can be sourced to payment-discharge, audit-log, notify but for made it sync for simplicity
+            // setting balance again for tests, but balance data will be ignored in API response.
+            // the strategy sets the payment's balance to what's left of it
+            // replicas can record on the same account concurrently (lanes only order work within a node): the account
+            // version read before the discharge must still be current after it, else the open items it worked on may
+            // have changed meanwhile - the conflict rolls this DB transaction back and ConflictRetry re-runs it
+            long version = accountRepository.findVersion(account.getAccountId());
+            long remaining = dischargeStrategy.discharge(savedEntity, version, sampled);
+
+            // the debt goes down by what the payment paid off, whatever is left of it stays as credit
+            // never checked for funds: a payment only raises the balance, and it's already written by now
+            if (accountRepository.applyPayment(account.getAccountId(), signedAmount,
+                    Money.toBigDecimal(Money.subtract(remaining, finalAmount)), version) == 0) {
+                throw new ObjectOptimisticLockingFailureException(AccountEntity.class, account.getAccountId());
             }
         }
 
-        // After applying to all purchases, set the leftover balance on the payment itself
-        paymentTransaction.setBalance(amountToBalance);
-
-        // Add payment transaction itself to the update list
-        updatedPurchases.add(paymentTransaction);
-        updatedPurchases.sort(Comparator.comparing(TransactionEntity::getEventDate));
-
-        // Persist all changes (both purchases and payment)
-        transactionRepository.saveAll(updatedPurchases);
-
-        return paymentTransaction.getBalance();
-
-    }
-
-    /**
-     * Check if a purchase is eligible for discharge.
-     * i.e., purchase has negative balance AND payment still has funds.
-     */
-    private boolean isEligibleForDischarge(TransactionEntity purchase, BigDecimal amountToBalance) {
-        return purchase.getBalance().compareTo(BigDecimal.ZERO) < 0
-                && amountToBalance.compareTo(BigDecimal.ZERO) > 0;
+        return savedEntity;
     }
 
     /**
-     * Apply discharge: offset purchase balance with available payment amount.
-     * Returns array: [offsetAmount, remainingPaymentBalance]
+     * Adds a transaction to the account's maintained balances with one atomic UPDATE in the current DB transaction.
+     * With checkFunds, a change that would take the available balance below 0 is rejected by that same statement.
      */
-    private BigDecimal[] applyDischarge(TransactionEntity purchase, BigDecimal amountToBalance) {
-        BigDecimal offset = purchase.getBalance().abs().min(amountToBalance);
-
-        // Update purchase balance by applying the offset
-        purchase.setBalance(purchase.getBalance().add(offset));
-
-        amountToBalance = amountToBalance.subtract(offset);
-
-        return new BigDecimal[]{offset, amountToBalance};
-    }
-
-
-    private BigDecimal updateBalance(TransactionRequest request) {
-        return switch (request.getOperationTypeId()) { // CASH PURCHASE
-            // INSTALLMENT PURCHASE
-            case 1, 2, 3 -> // WITHDRAWAL
-                    request.getAmount().negate(); // enforce negative
-            case 4 -> // PAYMENT
-                // To process discharge when payment happens
-                    request.getAmount(); // keep positive
-            default ->
-                    throw new IllegalArgumentException("Unsupported operation type: " + request.getOperationTypeId());
-        };
+    private void applyBalanceChange(AccountEntity account, BigDecimal amount, BigDecimal debt, boolean checkFunds) {
+        int updated = accountRepository.applyBalanceChange(account.getAccountId(), amount, debt, checkFunds);
+        if (updated == 0 && checkFunds) {
+            throw new ApiException("Insufficient funds. Transaction is failed.",
+                    HttpStatus.BAD_REQUEST, "INSUFFICIENT_FUNDS");
+        }
     }
 
-    private AccountEntity validateAccount(Long accountId) {
+    // no single-flight here (see CacheService.load): lookups of the same account already run one at a time on its lane,
+    // and the entity must come from this transaction's persistence context anyway
+    private AccountEntity validateAccount(Long accountId, boolean sampled) {
+        long start = stageMetrics.start(sampled);
         Optional<AccountEntity> accountOpt = accountRepository.findById(accountId);
+        stageMetrics.record(StageMetrics.Stage.ACCOUNT_LOOKUP, start);
         if (accountOpt.isEmpty()) {
+            missingAccountCache.markMissing(accountId);
             throw new ApiException("Account not found", HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
         }
         return accountOpt.get();
     }
 
-    private void validateBalance(AccountEntity account, BigDecimal finalAmount, int operationTypeId) {
-        if (operationTypeId == 1 || operationTypeId == 2 || operationTypeId == 3) { // debt
-            BigDecimal newBalance = account.getAvailableBalance().add(finalAmount); // 100.00 + (-50.00) = 50.00
-            if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
-                throw new ApiException("Insufficient funds. Transaction is failed.",
-                        HttpStatus.BAD_REQUEST, "INSUFFICIENT_FUNDS");
-            }
+    private void rejectMissingAccount(Long accountId) {
+        if (missingAccountCache.isMissing(accountId)) {
+            throw new ApiException("Account not found", HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
         }
-        // if op type = 4 (payment), no validation required
     }
 }
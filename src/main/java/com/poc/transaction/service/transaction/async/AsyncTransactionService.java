@@ -0,0 +1,24 @@
+package com.poc.transaction.service.transaction.async;
+
+import com.poc.transaction.model.request.TransactionRequest;
+import com.poc.transaction.model.response.TransactionStatusResponse;
+
+public interface AsyncTransactionService {
+
+    /**
+     * Validates the request and queues it for background processing on its account's lane.
+     * Returns once the request is durable in the write-ahead log, before it's written to the database.
+     *
+     * @param request the request of the TransactionRequest payload
+     * @return the PENDING status carrying the reference to look the outcome up with
+     */
+    TransactionStatusResponse accept(TransactionRequest request);
+
+    /**
+     * Looks up the outcome of an accepted request.
+     *
+     * @param reference the reference returned on accept
+     * @return PENDING, COMPLETED (with the transaction id) or FAILED (with the error)
+     */
+    TransactionStatusResponse getStatus(String reference);
+}
@@ -0,0 +1,237 @@
+package com.poc.transaction.service.transaction.async;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.poc.transaction.exception.ApiException;
+import com.poc.transaction.model.request.TransactionRequest;
+import com.poc.transaction.model.response.TransactionResponse;
+import com.poc.transaction.model.response.TransactionStatusResponse;
+import com.poc.transaction.repository.TransactionRepository;
+import com.poc.transaction.service.account.AccountService;
+import com.poc.transaction.service.execution.AccountLaneExecutor;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.service.transaction.TransactionAmountRule;
+import com.poc.transaction.service.transaction.TransactionService;
+import com.poc.transaction.service.transaction.async.TransactionWriteAheadLog.Accepted;
+import com.poc.transaction.service.transaction.async.TransactionWriteAheadLog.Replay;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accept-and-queue mode for transaction creation.
+ * - accept validates what it can without touching Postgres (operation type, account via the account cache), appends the
+ *   request to the write-ahead log and queues it on the account's lane - so it's processed in order with every other
+ *   write of that account
+ * - PENDING requests are tracked in memory, outcomes are kept for status-ttl and recorded in the log, completed ones can
+ *   always be found in the database by their reference
+ * - on startup the log is replayed: finished outcomes are reloaded, outstanding requests are queued again (a request that
+ *   made it to the database before the crash is recognised by its reference instead of being written twice)
+ * - only a business error (ApiException) ends a request FAILED. Anything else (database down, connection lost) is taken
+ *   as transient: the request stays PENDING and outstanding in the log, and is queued again after a jittered exponential
+ *   backoff - checking its reference first, the failure may have come after the commit
+ */
+@Service
+@Slf4j
+public class AsyncTransactionServiceImpl implements AsyncTransactionService, ApplicationRunner, DisposableBean {
+
+    private final TransactionService transactionService;
+    private final TransactionRepository transactionRepository;
+    private final AccountService accountService;
+    private final AccountLaneExecutor laneExecutor;
+    private final OperationTypeCatalog operationTypeCatalog;
+    private final TransactionWriteAheadLog writeAheadLog;
+    private final int maxPending;
+    private final Duration shutdownTimeout;
+    private final long retryInitialBackoffMillis;
+    private final long retryMaxBackoffMillis;
+    private final Counter retries;
+    // only waits out the backoff, the retry itself runs on the account's lane again
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "async-transaction-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ConcurrentMap<String, TransactionStatusResponse> pending = new ConcurrentHashMap<>();
+    private final Cache<String, TransactionStatusResponse> finished;
+    // new requests are refused until the log has been replayed, they'd otherwise overtake replayed ones of the same account
+    private volatile boolean ready;
+
+    public AsyncTransactionServiceImpl(TransactionService transactionService,
+                                       TransactionRepository transactionRepository,
+                                       AccountService accountService,
+                                       AccountLaneExecutor laneExecutor,
+                                       OperationTypeCatalog operationTypeCatalog,
+                                       @Value("${transaction.async.wal.dir:data/wal}") Path walDirectory,
+                                       @Value("${transaction.async.wal.compaction-threshold:64MB}") DataSize compactionThreshold,
+                                       @Value("${transaction.async.max-pending:100000}") int maxPending,
+                                       @Value("${transaction.async.status-ttl:1h}") Duration statusTtl,
+                                       @Value("${transaction.async.shutdown-timeout:10s}") Duration shutdownTimeout,
+                                       @Value("${transaction.async.retry.initial-backoff:100ms}") Duration retryInitialBackoff,
+                                       @Value("${transaction.async.retry.max-backoff:30s}") Duration retryMaxBackoff,
+                                       MeterRegistry meterRegistry) throws IOException {
+        this.transactionService = transactionService;
+        this.transactionRepository = transactionRepository;
+        this.accountService = accountService;
+        this.laneExecutor = laneExecutor;
+        this.operationTypeCatalog = operationTypeCatalog;
+        this.writeAheadLog = new TransactionWriteAheadLog(walDirectory, compactionThreshold.toBytes());
+        this.maxPending = maxPending;
+        this.shutdownTimeout = shutdownTimeout;
+        this.retryInitialBackoffMillis = Math.max(1, retryInitialBackoff.toMillis());
+        this.retryMaxBackoffMillis = Math.max(retryInitialBackoffMillis, retryMaxBackoff.toMillis());
+        this.retries = Counter.builder("transaction.async.retries")
+                .description("Accepted transactions queued again after a transient failure")
+                .register(meterRegistry);
+        this.finished = Caffeine.newBuilder()
+                .maximumSize(maxPending)
+                .expireAfterWrite(statusTtl)
+                .build();
+        meterRegistry.gaugeMapSize("transaction.async.pending", Tags.empty(), pending);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        Replay replay = writeAheadLog.replay();
+        replay.finished().forEach(status -> finished.put(status.getReference(), status));
+        for (Accepted accepted : replay.outstanding()) {
+            pending.put(accepted.reference(), TransactionStatusResponse.pending(accepted.reference()));
+            enqueue(accepted.reference(), accepted.request(), true, 1);
+        }
+        ready = true;
+        if (!replay.outstanding().isEmpty()) {
+            log.info("Re-queued {} accepted transactions from the write-ahead log", replay.outstanding().size());
+        }
+    }
+
+    @Override
+    public TransactionStatusResponse accept(TransactionRequest request) {
+        if (!ready) {
+            throw new ApiException("Transaction queue is starting up, retry shortly.", HttpStatus.SERVICE_UNAVAILABLE, "ASYNC_QUEUE_UNAVAILABLE");
+        }
+        // the same checks createTransaction fails fast on, so most rejections still come back synchronously
+        TransactionAmountRule.applySignRule(operationTypeCatalog.current(), request.getOperationTypeId(), request.getAmount());
+        accountService.getAccount(request.getAccountId());
+        if (pending.size() >= maxPending) {
+            throw new ApiException("Too many transactions queued, retry later.", HttpStatus.SERVICE_UNAVAILABLE, "ASYNC_QUEUE_FULL");
+        }
+
+        String reference = UUID.randomUUID().toString();
+        try {
+            writeAheadLog.appendAccepted(reference, request);
+        } catch (IOException e) {
+            log.error("Could not append transaction for accountId={} to the write-ahead log", request.getAccountId(), e);
+            throw new ApiException("Transaction could not be queued.", HttpStatus.SERVICE_UNAVAILABLE, "ASYNC_QUEUE_UNAVAILABLE");
+        }
+        TransactionStatusResponse status = TransactionStatusResponse.pending(reference);
+        pending.put(reference, status);
+        enqueue(reference, request, false, 1);
+        return status;
+    }
+
+    @Override
+    public TransactionStatusResponse getStatus(String reference) {
+        TransactionStatusResponse status = pending.get(reference);
+        if (status == null) {
+            status = finished.getIfPresent(reference);
+        }
+        if (status == null) {
+            // outcome expired locally (or was accepted by another node) - completed ones are in the database
+            status = transactionRepository.findIdByReference(reference)
+                    .map(transactionId -> TransactionStatusResponse.completed(reference, transactionId))
+                    .orElseThrow(() -> new ApiException("Transaction reference not found", HttpStatus.NOT_FOUND, "REFERENCE_NOT_FOUND"));
+        }
+        return status;
+    }
+
+    @Override
+    public void destroy() throws IOException, InterruptedException {
+        // lanes are shut down after this bean, give queued requests the chance to finish and log their outcome
+        // (a request waiting for its retry stays outstanding in the log)
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        while (!pending.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        if (!pending.isEmpty()) {
+            log.warn("{} accepted transactions still queued on shutdown, they'll be replayed on the next start", pending.size());
+        }
+        retryScheduler.shutdownNow();
+        writeAheadLog.close();
+    }
+
+    private void enqueue(String reference, TransactionRequest request, boolean replayed, int attempt) {
+        laneExecutor.submit(request.getAccountId(), () -> process(reference, request, replayed, attempt))
+                .thenAccept(status -> {
+                    if (status != null) {
+                        complete(status);
+                    } else {
+                        retryLater(reference, request, attempt);
+                    }
+                });
+    }
+
+    // the outcome, or null after a transient failure
+    private TransactionStatusResponse process(String reference, TransactionRequest request, boolean replayed, int attempt) {
+        try {
+            if (replayed) {
+                // may have been written just before the crash (or the failure) that lost its outcome
+                Optional<Long> existing = transactionRepository.findIdByReference(reference);
+                if (existing.isPresent()) {
+                    return TransactionStatusResponse.completed(reference, existing.get());
+                }
+            }
+            TransactionResponse response = transactionService.createTransaction(request, reference);
+            return TransactionStatusResponse.completed(reference, response.getTransactionId());
+        } catch (ApiException e) {
+            return TransactionStatusResponse.failed(reference, e.getCode(), e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Accepted transaction {} for accountId={} failed on attempt {}, will retry", reference, request.getAccountId(), attempt, e);
+            return null;
+        }
+    }
+
+    // equal jitter: uniform in [ceiling / 2, ceiling], ceiling = min(max, initial * 2^(attempt - 1))
+    private void retryLater(String reference, TransactionRequest request, int attempt) {
+        long ceiling = Math.min(retryMaxBackoffMillis, retryInitialBackoffMillis << Math.min(attempt - 1, 30));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+        retries.increment();
+        try {
+            retryScheduler.schedule(() -> enqueue(reference, request, true, attempt + 1), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down: stays outstanding in the log and is replayed on the next start
+            log.debug("Retry of accepted transaction {} left to the next start", reference);
+        }
+    }
+
+    private void complete(TransactionStatusResponse status) {
+        finished.put(status.getReference(), status);
+        pending.remove(status.getReference());
+        try {
+            writeAheadLog.appendDone(status);
+        } catch (IOException e) {
+            // outcome is still served from memory, a replay would find a completed transaction by its reference
+            log.warn("Could not record outcome of transaction {} in the write-ahead log", status.getReference(), e);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.poc.transaction.service.transaction.async;
+
+import com.poc.transaction.model.request.TransactionRequest;
+import com.poc.transaction.model.response.TransactionStatusResponse;
+import com.poc.transaction.repository.entity.TransactionStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only file behind the async accept mode: a request is only answered 202 once its ACCEPTED record is on disk,
+ * a DONE record follows when it's been processed. Replaying the file on startup gives the requests still to process.
+ * - record layout: payload length (int), CRC32 of the payload (int), payload (type byte + fields)
+ * - a record torn by a crash fails its length or CRC check and the file is truncated there
+ * - concurrent appends share fsyncs (group commit): one force covers every record written before it
+ * - DONE records aren't forced, a lost one only means the request is looked up again on replay
+ * - once the file has grown past the compaction threshold and at least half of it is settled, it's replaced by a
+ *   checkpoint holding only the outstanding ACCEPTED records (written and forced next to it, then moved over it), so
+ *   the file stays bounded under steady load and a replay only reads what's still queued
+ */
+@Slf4j
+public class TransactionWriteAheadLog implements Closeable {
+
+    static final String FILE_NAME = "transactions.wal";
+    static final String CHECKPOINT_FILE_NAME = "transactions.wal.checkpoint";
+
+    private static final byte ACCEPTED = 1;
+    private static final byte DONE = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    public record Accepted(String reference, TransactionRequest request) {
+    }
+
+    /**
+     * State recovered from the file: accepted requests without a DONE record (in append order) and the outcome of the
+     * ones that have one.
+     */
+    public record Replay(List<Accepted> outstanding, List<TransactionStatusResponse> finished) {
+    }
+
+    private final Path file;
+    private final Path checkpointFile;
+    private final long compactionThreshold;
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+
+    // swapped by a compaction, which holds both locks
+    private volatile FileChannel channel;
+    // logical offsets, they keep growing across compactions so the group commit can compare them - guarded by writeLock
+    private long written;
+    private volatile long synced;
+    // ACCEPTED records without a DONE, by reference in append order, and their size on disk - guarded by writeLock
+    private final Map<String, byte[]> open = new LinkedHashMap<>();
+    private long openBytes;
+
+    public TransactionWriteAheadLog(Path directory, long compactionThreshold) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve(FILE_NAME);
+        this.checkpointFile = directory.resolve(CHECKPOINT_FILE_NAME);
+        // a checkpoint that's still there was never moved over the log, which is then still complete
+        Files.deleteIfExists(checkpointFile);
+        this.channel = FileChannel.open(file, CREATE, READ, WRITE);
+        this.channel.position(channel.size());
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Reads the whole file, truncating it after the last intact record. Meant to run once, before the first append.
+     */
+    public Replay replay() throws IOException {
+        synchronized (writeLock) {
+            Map<String, Accepted> accepted = new LinkedHashMap<>();
+            List<TransactionStatusResponse> finished = new ArrayList<>();
+            long size = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (position + HEADER_BYTES <= size) {
+                header.clear();
+                readFully(header, position);
+                int length = header.getInt(0);
+                int checksum = header.getInt(4);
+                if (length <= 0 || length > MAX_RECORD_BYTES || position + HEADER_BYTES + length > size) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(payload, position + HEADER_BYTES);
+                if (crc(payload.array()) != checksum) {
+                    break;
+                }
+                String reference = decode(payload.array(), accepted, finished);
+                track(reference, accepted.containsKey(reference) ? payload.array() : null);
+                position += HEADER_BYTES + length;
+            }
+            if (position < size) {
+                log.warn("Truncating write-ahead log at byte {} of {}, the rest is a torn or corrupt record", position, size);
+                channel.truncate(position);
+                channel.force(false);
+            }
+            channel.position(position);
+            return new Replay(List.copyOf(accepted.values()), finished);
+        }
+    }
+
+    /**
+     * Appends an ACCEPTED record and returns once it's durable.
+     */
+    public void appendAccepted(String reference, TransactionRequest request) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ACCEPTED);
+        out.writeUTF(reference);
+        out.writeLong(request.getAccountId());
+        out.writeInt(request.getOperationTypeId());
+        out.writeUTF(request.getAmount().toPlainString());
+        sync(append(reference, bytes.toByteArray(), true));
+    }
+
+    /**
+     * Appends the DONE record of a processed request, without waiting for it to reach the disk.
+     */
+    public void appendDone(TransactionStatusResponse status) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(DONE);
+        out.writeUTF(status.getReference());
+        out.writeUTF(status.getStatus().name());
+        out.writeLong(status.getTransactionId() == null ? -1 : status.getTransactionId());
+        out.writeUTF(status.getErrorCode() == null ? "" : status.getErrorCode());
+        out.writeUTF(status.getMessage() == null ? "" : status.getMessage());
+        append(status.getReference(), bytes.toByteArray(), false);
+        if (compactionDue()) {
+            compact();
+        }
+    }
+
+    public int outstanding() {
+        synchronized (writeLock) {
+            return open.size();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    private long append(String reference, byte[] payload, boolean accepted) throws IOException {
+        ByteBuffer record = record(payload);
+        synchronized (writeLock) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            written += record.capacity();
+            track(reference, accepted ? payload : null);
+            return written;
+        }
+    }
+
+    // adds an outstanding ACCEPTED payload, or settles the reference when there's none - caller holds writeLock
+    private void track(String reference, byte[] acceptedPayload) {
+        byte[] previous = acceptedPayload == null ? open.remove(reference) : open.put(reference, acceptedPayload);
+        if (previous != null) {
+            openBytes -= HEADER_BYTES + previous.length;
+        }
+        if (acceptedPayload != null) {
+            openBytes += HEADER_BYTES + acceptedPayload.length;
+        }
+    }
+
+    // past the threshold with at least half of the file settled - so a large backlog isn't rewritten on every DONE
+    private boolean compactionDue() throws IOException {
+        synchronized (writeLock) {
+            long size = channel.size();
+            return size >= compactionThreshold && size >= 2 * openBytes;
+        }
+    }
+
+    /**
+     * Replaces the log by a checkpoint of its outstanding records. Holds the sync lock too, so no force runs on the
+     * channel being replaced, and every ACCEPTED record appended so far is durable once the checkpoint is.
+     */
+    private void compact() throws IOException {
+        synchronized (syncLock) {
+            synchronized (writeLock) {
+                // another DONE may have compacted meanwhile
+                if (!compactionDue()) {
+                    return;
+                }
+                long before = channel.size();
+                try (FileChannel checkpoint = FileChannel.open(checkpointFile, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                    for (byte[] payload : open.values()) {
+                        ByteBuffer record = record(payload);
+                        while (record.hasRemaining()) {
+                            checkpoint.write(record);
+                        }
+                    }
+                    checkpoint.force(false);
+                }
+                Files.move(checkpointFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+                syncDirectory();
+                channel.close();
+                channel = FileChannel.open(file, READ, WRITE);
+                channel.position(channel.size());
+                synced = written;
+                log.debug("Compacted write-ahead log from {} to {} bytes, {} records outstanding", before, channel.size(), open.size());
+            }
+        }
+    }
+
+    private void sync(long upTo) throws IOException {
+        if (synced >= upTo) {
+            return;
+        }
+        synchronized (syncLock) {
+            // the thread before us may have forced our record along with its own
+            if (synced >= upTo) {
+                return;
+            }
+            long target;
+            synchronized (writeLock) {
+                target = written;
+            }
+            channel.force(false);
+            synced = target;
+        }
+    }
+
+    // makes the move durable, appends after it would otherwise land in a file a crash can take back
+    private void syncDirectory() throws IOException {
+        try (FileChannel directory = FileChannel.open(file.getParent(), READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // not every platform can open a directory for that (Windows), the move is still atomic there
+            log.debug("Could not sync write-ahead log directory", e);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of write-ahead log");
+            }
+        }
+    }
+
+    private static ByteBuffer record(byte[] payload) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt(crc(payload)).put(payload).flip();
+        return record;
+    }
+
+    // applies one record to the replay state and returns its reference
+    private static String decode(byte[] payload, Map<String, Accepted> open, List<TransactionStatusResponse> finished)
+            throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        String reference = in.readUTF();
+        if (type == ACCEPTED) {
+            TransactionRequest request = TransactionRequest.builder()
+                    .accountId(in.readLong())
+                    .operationTypeId(in.readInt())
+                    .amount(new BigDecimal(in.readUTF()))
+                    .build();
+            open.put(reference, new Accepted(reference, request));
+        } else if (type == DONE) {
+            TransactionStatus status = TransactionStatus.valueOf(in.readUTF());
+            long transactionId = in.readLong();
+            String errorCode = in.readUTF();
+            String message = in.readUTF();
+            open.remove(reference);
+            finished.add(TransactionStatusResponse.builder()
+                    .reference(reference)
+                    .status(status)
+                    .transactionId(transactionId < 0 ? null : transactionId)
+                    .errorCode(errorCode.isEmpty() ? null : errorCode)
+                    .message(message.isEmpty() ? null : message)
+                    .build());
+        } else {
+            throw new IOException("Unknown write-ahead log record type " + type);
+        }
+        return reference;
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,102 @@
+package com.poc.transaction.service.transaction.discharge;
+
+import com.poc.transaction.repository.OpenItemOrder;
+import com.poc.transaction.repository.OpenTransactionRepository;
+import com.poc.transaction.repository.TransactionRepository;
+import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.repository.projection.OpenItemView;
+import com.poc.transaction.service.metrics.StageMetrics;
+import com.poc.transaction.service.metrics.StageMetrics.Stage;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.utils.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Discharges a payment by reading the account's due open purchases through a DB cursor, in the configured
+ * {@link OpenItemOrder} (allocation policy), and stops reading as soon as the payment is used up.
+ * - rows come {@code fetch-size} at a time, so a small payment against a large backlog reads one fetch, not the backlog.
+ * - only the purchases the payment changed are written, as JDBC batches (transactions and open_transactions).
+ * - no state kept between payments; non-FIFO orders make Postgres sort the account's due open items first.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "transaction.discharge.strategy", havingValue = "cursor")
+public class CursorDischargeStrategy implements DischargeStrategy {
+
+    private final TransactionRepository transactionRepository;
+    private final OpenTransactionRepository openTransactionRepository;
+    private final StageMetrics stageMetrics;
+    private final OperationTypeCatalog operationTypeCatalog;
+    private final OpenItemOrder order;
+    private final List<Integer> typePriority;
+    private final int fetchSize;
+    // only used from lane threads, one buffer per thread
+    private final ThreadLocal<OpenItems.Changes> changesBuffer = ThreadLocal.withInitial(OpenItems.Changes::new);
+
+    public CursorDischargeStrategy(TransactionRepository transactionRepository,
+                                   OpenTransactionRepository openTransactionRepository,
+                                   StageMetrics stageMetrics,
+                                   OperationTypeCatalog operationTypeCatalog,
+                                   @Value("${transaction.discharge.cursor.order:oldest-first}") OpenItemOrder order,
+                                   @Value("${transaction.discharge.cursor.type-priority:}") List<Integer> typePriority,
+                                   @Value("${transaction.discharge.cursor.fetch-size:16}") int fetchSize) {
+        this.transactionRepository = transactionRepository;
+        this.openTransactionRepository = openTransactionRepository;
+        this.stageMetrics = stageMetrics;
+        this.operationTypeCatalog = operationTypeCatalog;
+        this.order = order;
+        this.typePriority = List.copyOf(typePriority);
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    @Override
+    public long discharge(TransactionEntity paymentTransaction, long accountVersion, boolean sampled) {
+        Long accountId = paymentTransaction.getAccount().getAccountId();
+        long remaining = Money.of(paymentTransaction.getAmount());
+        OpenItems.Changes changes = changesBuffer.get();
+        changes.clear();
+
+        // reading and applying interleave row by row, the whole walk is timed as the fetch
+        long stage = stageMetrics.start(sampled);
+        try (Stream<OpenItemView> items = openTransactionRepository.streamOpenItems(accountId,
+                operationTypeCatalog.current().dischargeEligibleIds(), LocalDateTime.now(), order, typePriority, fetchSize)) {
+            Iterator<OpenItemView> cursor = items.iterator();
+            while (remaining > 0 && cursor.hasNext()) {
+                OpenItemView item = cursor.next();
+                long balance = Money.of(item.getBalance());
+                long offset = Math.min(Money.negate(balance), remaining);
+                remaining -= offset;
+                changes.add(item.getTransactionId(), balance + offset);
+            }
+        }
+        stage = stageMetrics.record(Stage.DISCHARGE_FETCH, stage);
+        // the cursor is closed once the payment is used up, every row read is a purchase it changed
+        stageMetrics.discharge(stage, changes.count, changes.count);
+
+        // set before the batch below flushes, so the payment is inserted with its final balance
+        paymentTransaction.setBalance(Money.toBigDecimal(remaining));
+        if (changes.count > 0) {
+            BigDecimal[] balances = new BigDecimal[changes.count];
+            for (int i = 0; i < changes.count; i++) {
+                balances[i] = Money.toBigDecimal(changes.balances[i]);
+            }
+            transactionRepository.updateBalances(changes.ids, balances, changes.count);
+            openTransactionRepository.applyBalances(changes.ids, balances, changes.count);
+        }
+        stageMetrics.record(Stage.DISCHARGE_WRITE, stage);
+
+        // audit-log it for reporting (no need to console log it everytime)
+        log.info("Discharge: accountId={}, order={}, purchasesTouched={}, remainingPayment={}",
+                accountId, order, changes.count, paymentTransaction.getBalance());
+        return remaining;
+    }
+}
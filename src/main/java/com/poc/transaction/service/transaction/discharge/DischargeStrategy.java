@@ -0,0 +1,32 @@
+package com.poc.transaction.service.transaction.discharge;
+
+import com.poc.transaction.repository.entity.TransactionEntity;
+
+/**
+ * Allocates a payment over the account's unpaid purchases.
+ * Implementations are selected with {@code transaction.discharge.strategy} and are always called from the account's
+ * execution lane inside the DB transaction that saved the payment.
+ */
+public interface DischargeStrategy {
+
+    /**
+     * Offsets the open purchases of the payment's account with the payment amount and persists the changed purchases.
+     *
+     * @param paymentTransaction the already saved payment (positive amount)
+     * @param accountVersion     the account version read before the discharge (see AccountRepository#findVersion), the
+     *                           payment moves it on by one when it commits
+     * @param sampled            whether the payment's operation is timed (see StageMetrics#sample), its discharge
+     *                           stages go by the same draw
+     * @return the remaining (undischarged) payment amount in minor units (see {@link com.poc.transaction.utils.Money}),
+     *         also set as the payment's balance
+     */
+    long discharge(TransactionEntity paymentTransaction, long accountVersion, boolean sampled);
+
+    /**
+     * Notified after any transaction got saved, so strategies keeping state can track new open purchases.
+     *
+     * @param transaction the saved transaction
+     */
+    default void onRecorded(TransactionEntity transaction) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.poc.transaction.service.transaction.discharge;
+
+import com.poc.transaction.repository.OpenTransactionRepository;
+import com.poc.transaction.repository.TransactionRepository;
+import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.service.metrics.StageMetrics;
+import com.poc.transaction.service.metrics.StageMetrics.Stage;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.utils.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Original discharge - loads every open purchase of the account as entities on each payment and saves them back.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "transaction.discharge.strategy", havingValue = "entity")
+public class EntityDischargeStrategy implements DischargeStrategy {
+
+    private final TransactionRepository transactionRepository;
+    private final OpenTransactionRepository openTransactionRepository;
+    private final StageMetrics stageMetrics;
+    private final OperationTypeCatalog operationTypeCatalog;
+
+    /**
+     * Discharge logic:
+     * - Use the positive payment amount to offset negative purchase balances.
+     * - Purchases are iterated in order, and each is partially/fully balanced.
+     * - Remaining payment amount is updated accordingly.
+     * Amounts are worked out in minor units (see {@link Money}), only the new balances are turned back into BigDecimal.
+     */
+    @Override
+    public long discharge(TransactionEntity paymentTransaction, long accountVersion, boolean sampled) {
+        // Start with the full payment amount (always positive for payments)
+        long amountToBalance = Money.of(paymentTransaction.getAmount());
+
+        // Fetch all purchase transactions for this account that might need balancing
+        long stage = stageMetrics.start(sampled);
+        List<TransactionEntity> purchases = transactionRepository.fetchTransactions(
+                paymentTransaction.getAccount().getAccountId(),
+                operationTypeCatalog.current().dischargeEligibleIds(),
+                LocalDateTime.now()
+        );
+        stage = stageMetrics.record(Stage.DISCHARGE_FETCH, stage);
+
+        // If no purchases exist, just set balance on payment and save
+        if (purchases.isEmpty()) {
+            // audit-log it for reports (no need to console log it everytime)
+            log.info("No previous purchases found for accountId={}, saving payment txn with balance={}", paymentTransaction.getAccount().getAccountId(), paymentTransaction.getAmount());
+            stageMetrics.discharge(stage, 0, 0);
+            paymentTransaction.setBalance(paymentTransaction.getAmount());
+            return amountToBalance;
+        }
+
+        // List of transactions (purchases + payment) that will be updated and saved
+        List<TransactionEntity> updatedPurchases = new ArrayList<>();
+
+        // Iterate through each purchase transaction and try to offset its negative balance
+        for (TransactionEntity purchase : purchases) {
+            // Check if this purchase is eligible:
+            // (1) purchase has negative balance (unpaid), and
+            // (2) payment still has some remaining amount
+            if (isEligibleForDischarge(purchase, amountToBalance)) {
+
+                // apply discharge logic -> find offset amount to discharge & update purchase balance by applying the offset
+                // Update remaining payment after discharge
+                amountToBalance = applyDischarge(purchase, amountToBalance);
+
+                // audit log it to db/ elastic cache for reporting
+                // audit-log it for reporting (no need to console log it everytime)
+                // remaining payment is only turned back into BigDecimal when it actually gets logged
+                if (log.isInfoEnabled()) {
+                    log.info("Discharge: purchaseId={}, newBalance={}, remainingPayment={}",
+                            purchase.getTransactionId(), purchase.getBalance(), Money.toBigDecimal(amountToBalance));
+                }
+
+                // Add updated purchase to the list of entities to persist later
+                updatedPurchases.add(purchase);
+            }
+        }
+
+        // After applying to all purchases, set the leftover balance on the payment itself
+        paymentTransaction.setBalance(Money.toBigDecimal(amountToBalance));
+
+        // Add payment transaction itself to the update list
+        updatedPurchases.add(paymentTransaction);
+        updatedPurchases.sort(Comparator.comparing(TransactionEntity::getEventDate));
+
+        stage = stageMetrics.record(Stage.DISCHARGE_APPLY, stage);
+        // every purchase is looked at, whether or not the payment reaches it
+        stageMetrics.discharge(stage, purchases.size(), updatedPurchases.size() - 1);
+
+        // Persist all changes (both purchases and payment)
+        transactionRepository.saveAll(updatedPurchases);
+
+        // keep the open items in step - paid off purchases leave the side table
+        int discharged = updatedPurchases.size() - 1;
+        long[] ids = new long[discharged];
+        BigDecimal[] balances = new BigDecimal[discharged];
+        int i = 0;
+        for (TransactionEntity updated : updatedPurchases) {
+            if (updated != paymentTransaction) {
+                ids[i] = updated.getTransactionId();
+                balances[i++] = updated.getBalance();
+            }
+        }
+        openTransactionRepository.applyBalances(ids, balances, discharged);
+        stageMetrics.record(Stage.DISCHARGE_WRITE, stage);
+
+        return amountToBalance;
+
+    }
+
+    /**
+     * Check if a purchase is eligible for discharge.
+     * i.e., purchase has negative balance AND payment still has funds.
+     */
+    private boolean isEligibleForDischarge(TransactionEntity purchase, long amountToBalance) {
+        return purchase.getBalance().signum() < 0 && amountToBalance > 0;
+    }
+
+    /**
+     * Apply discharge: offset purchase balance with available payment amount.
+     * Returns the remaining payment amount.
+     */
+    private long applyDischarge(TransactionEntity purchase, long amountToBalance) {
+        long balance = Money.of(purchase.getBalance());
+        long offset = Math.min(Money.negate(balance), amountToBalance);
+
+        // Update purchase balance by applying the offset
+        purchase.setBalance(Money.toBigDecimal(balance + offset));
+
+        return amountToBalance - offset;
+    }
+}
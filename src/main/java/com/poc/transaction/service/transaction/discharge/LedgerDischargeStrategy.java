@@ -0,0 +1,165 @@
+package com.poc.transaction.service.transaction.discharge;
+
+import com.poc.transaction.repository.OpenTransactionRepository;
+import com.poc.transaction.repository.TransactionRepository;
+import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.repository.projection.OpenItemView;
+import com.poc.transaction.service.metrics.StageMetrics;
+import com.poc.transaction.service.metrics.StageMetrics.Stage;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.service.operationtype.OperationTypes;
+import com.poc.transaction.utils.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Discharges payments against the in-memory {@link OpenItemLedger} instead of re-querying all open purchases.
+ * - cost is O(purchases touched by the payment), not O(purchases open on the account).
+ * - only the rows whose balance actually changed are written, as JDBC batches (transactions and open_transactions).
+ * - if the surrounding DB transaction rolls back, the account is dropped from the ledger and re-hydrated next time.
+ * - an account also holds the account version it's up to date with: a payment reading another version (another node
+ *   recorded on the account meanwhile) re-hydrates it, so replicas sharing the database don't work from stale items.
+ * - an account holds the purchases of the types that were discharge-eligible when it was loaded; once the operation type
+ *   catalog changes which types are, it's re-hydrated on its next payment.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "transaction.discharge.strategy", havingValue = "ledger", matchIfMissing = true)
+public class LedgerDischargeStrategy implements DischargeStrategy {
+
+    private final TransactionRepository transactionRepository;
+    private final OpenTransactionRepository openTransactionRepository;
+    private final OpenItemLedger ledger;
+    private final StageMetrics stageMetrics;
+    private final OperationTypeCatalog operationTypeCatalog;
+    private final Counter stale;
+    // only used from lane threads, one buffer per thread
+    private final ThreadLocal<OpenItems.Changes> changesBuffer = ThreadLocal.withInitial(OpenItems.Changes::new);
+
+    public LedgerDischargeStrategy(TransactionRepository transactionRepository,
+                                   OpenTransactionRepository openTransactionRepository,
+                                   @Value("${transaction.discharge.ledger.max-items:1000000}") long maxItems,
+                                   @Value("${transaction.discharge.ledger.expire-after-access:30m}") Duration expireAfterAccess,
+                                   MeterRegistry meterRegistry,
+                                   StageMetrics stageMetrics,
+                                   OperationTypeCatalog operationTypeCatalog) {
+        this.transactionRepository = transactionRepository;
+        this.openTransactionRepository = openTransactionRepository;
+        this.stageMetrics = stageMetrics;
+        this.operationTypeCatalog = operationTypeCatalog;
+        this.ledger = new OpenItemLedger(maxItems, expireAfterAccess, meterRegistry);
+        this.stale = Counter.builder("discharge.ledger.stale")
+                .description("Accounts re-hydrated because the database moved on (another node) or the eligible types changed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long discharge(TransactionEntity paymentTransaction, long accountVersion, boolean sampled) {
+        Long accountId = paymentTransaction.getAccount().getAccountId();
+        List<Integer> eligibleIds = operationTypeCatalog.current().dischargeEligibleIds();
+        // only a DB read when the account isn't in the ledger yet, is behind the database or was loaded for other types
+        long stage = stageMetrics.start(sampled);
+        OpenItems items = ledger.items(accountId, id -> hydrate(id, eligibleIds, accountVersion));
+        if (items.version() != accountVersion || !items.operationTypeIds().equals(eligibleIds)) {
+            stale.increment();
+            ledger.evict(accountId);
+            items = ledger.items(accountId, id -> hydrate(id, eligibleIds, accountVersion));
+        }
+        evictOnRollback(accountId);
+        stage = stageMetrics.record(Stage.DISCHARGE_FETCH, stage);
+
+        OpenItems.Changes changes = changesBuffer.get();
+        changes.clear();
+        long remaining = items.discharge(Money.of(paymentTransaction.getAmount()), toMicros(LocalDateTime.now()), changes);
+        // what the payment's own balance change makes it
+        items.version(accountVersion + 1);
+        ledger.reweigh(accountId, items);
+        stage = stageMetrics.record(Stage.DISCHARGE_APPLY, stage);
+        // the FIFO is only walked as far as the payment reaches
+        stageMetrics.discharge(stage, changes.count, changes.count);
+
+        // set before the batch below flushes, so the payment is inserted with its final balance
+        paymentTransaction.setBalance(Money.toBigDecimal(remaining));
+        if (changes.count > 0) {
+            BigDecimal[] balances = new BigDecimal[changes.count];
+            for (int i = 0; i < changes.count; i++) {
+                balances[i] = Money.toBigDecimal(changes.balances[i]);
+            }
+            transactionRepository.updateBalances(changes.ids, balances, changes.count);
+            openTransactionRepository.applyBalances(changes.ids, balances, changes.count);
+        }
+        stageMetrics.record(Stage.DISCHARGE_WRITE, stage);
+
+        // audit-log it for reporting (no need to console log it everytime)
+        log.info("Discharge: accountId={}, purchasesTouched={}, stillOpen={}, remainingPayment={}",
+                accountId, changes.count, items.size(), paymentTransaction.getBalance());
+        return remaining;
+    }
+
+    @Override
+    public void onRecorded(TransactionEntity transaction) {
+        // a payment's version is taken care of by its discharge
+        OperationTypes operationTypes = operationTypeCatalog.current();
+        if (operationTypes.isCredit(transaction.getOperationTypeId())) {
+            return;
+        }
+        Long accountId = transaction.getAccount().getAccountId();
+        OpenItems items = ledger.loaded(accountId);
+        if (items == null) {
+            return;
+        }
+        evictOnRollback(accountId);
+        // every debit moved the account version on with its balance change
+        items.version(items.version() + 1);
+        // only discharge-eligible debits join the FIFO - the same rows that get an open_transactions item
+        if (operationTypes.isDischargeEligible(transaction.getOperationTypeId())
+                && transaction.getBalance() != null && transaction.getBalance().signum() < 0) {
+            items.append(transaction.getTransactionId(), toMicros(transaction.getEventDate()), Money.of(transaction.getBalance()));
+            ledger.reweigh(accountId, items);
+        }
+    }
+
+    public OpenItemLedger ledger() {
+        return ledger;
+    }
+
+    private OpenItems hydrate(Long accountId, List<Integer> eligibleIds, long accountVersion) {
+        List<OpenItemView> open = openTransactionRepository.fetchOpenItems(accountId, eligibleIds);
+        OpenItems items = new OpenItems(open.size(), eligibleIds, accountVersion);
+        for (OpenItemView item : open) {
+            items.append(item.getTransactionId(), toMicros(item.getEventDate()), Money.of(item.getBalance()));
+        }
+        log.debug("Hydrated open-item ledger for accountId={} with {} purchases", accountId, open.size());
+        return items;
+    }
+
+    private void evictOnRollback(Long accountId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    ledger.evict(accountId);
+                }
+            }
+        });
+    }
+
+    private static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+}
@@ -0,0 +1,52 @@
+package com.poc.transaction.service.transaction.discharge;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * In-memory open-item ledger: per account, a compact FIFO of its unpaid purchases.
+ * - Hydrated lazily from the DB the first time a payment touches the account, then kept up to date by creates/discharges.
+ * - Bounded by the total number of open items held (an account weighs as many items as it holds) and by idle time,
+ *   an evicted account is simply hydrated again on its next payment.
+ */
+public class OpenItemLedger {
+
+    private final Cache<Long, OpenItems> accounts;
+
+    public OpenItemLedger(long maxItems, Duration expireAfterAccess, MeterRegistry meterRegistry) {
+        this.accounts = Caffeine.newBuilder()
+                .maximumWeight(maxItems)
+                .weigher((Long accountId, OpenItems items) -> items.size() + 1)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, accounts, "discharge.ledger");
+    }
+
+    OpenItems items(Long accountId, Function<Long, OpenItems> loader) {
+        return accounts.get(accountId, loader);
+    }
+
+    // only accounts already in memory are updated, others pick the change up when they're hydrated
+    OpenItems loaded(Long accountId) {
+        return accounts.getIfPresent(accountId);
+    }
+
+    // re-inserting makes the cache re-weigh the account after its FIFO grew or shrank
+    void reweigh(Long accountId, OpenItems items) {
+        accounts.put(accountId, items);
+    }
+
+    public void evict(Long accountId) {
+        accounts.invalidate(accountId);
+    }
+
+    public long size() {
+        return accounts.estimatedSize();
+    }
+}
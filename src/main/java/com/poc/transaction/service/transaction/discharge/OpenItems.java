@@ -0,0 +1,128 @@
+package com.poc.transaction.service.transaction.discharge;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * FIFO of one account's unpaid purchases, held in parallel primitive arrays (no entities, no BigDecimal).
+ * - balances are in minor units (cents, the columns use scale 2) and always negative while the item is open.
+ * - event times are epoch microseconds (UTC), items are kept oldest first.
+ * Not thread-safe: an account is only ever touched from its own execution lane.
+ */
+final class OpenItems {
+
+    // the discharge-eligible operation types the FIFO was loaded with
+    private final List<Integer> operationTypeIds;
+    // the account version (see AccountRepository#findVersion) the FIFO is up to date with
+    private long version;
+    private long[] ids;
+    private long[] eventTimes;
+    private long[] balances;
+    private int head;
+    private int size;
+
+    OpenItems(int initialCapacity, List<Integer> operationTypeIds, long version) {
+        this.operationTypeIds = operationTypeIds;
+        this.version = version;
+        int capacity = Math.max(4, initialCapacity);
+        this.ids = new long[capacity];
+        this.eventTimes = new long[capacity];
+        this.balances = new long[capacity];
+    }
+
+    List<Integer> operationTypeIds() {
+        return operationTypeIds;
+    }
+
+    long version() {
+        return version;
+    }
+
+    void version(long version) {
+        this.version = version;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void append(long id, long eventTime, long balance) {
+        if (head + size == ids.length) {
+            makeRoom();
+        }
+        int tail = head + size;
+        ids[tail] = id;
+        eventTimes[tail] = eventTime;
+        balances[tail] = balance;
+        size++;
+    }
+
+    /**
+     * Offsets open items from the oldest one until the payment runs out, only touching the items it changes.
+     * Fully paid items leave the FIFO; every changed item is reported to {@code changes}.
+     *
+     * @param payment payment amount in minor units (positive)
+     * @param now     items with a later event time are not discharged yet
+     * @return the remaining payment in minor units
+     */
+    long discharge(long payment, long now, Changes changes) {
+        long remaining = payment;
+        while (remaining > 0 && size > 0 && eventTimes[head] <= now) {
+            long balance = balances[head];
+            long offset = Math.min(-balance, remaining);
+            balance += offset;
+            remaining -= offset;
+            changes.add(ids[head], balance);
+            if (balance == 0) {
+                head++;
+                size--;
+            } else {
+                balances[head] = balance;
+            }
+        }
+        if (size == 0) {
+            head = 0;
+        }
+        return remaining;
+    }
+
+    private void makeRoom() {
+        // reuse the space freed at the front before growing
+        if (head > 0) {
+            System.arraycopy(ids, head, ids, 0, size);
+            System.arraycopy(eventTimes, head, eventTimes, 0, size);
+            System.arraycopy(balances, head, balances, 0, size);
+            head = 0;
+            if (size < ids.length * 3 / 4) {
+                return;
+            }
+        }
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        eventTimes = Arrays.copyOf(eventTimes, capacity);
+        balances = Arrays.copyOf(balances, capacity);
+    }
+
+    /**
+     * Growable (id, new balance) pairs collected by one discharge - reused per call to avoid garbage.
+     */
+    static final class Changes {
+        long[] ids = new long[16];
+        long[] balances = new long[16];
+        int count;
+
+        void add(long id, long balance) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                balances = Arrays.copyOf(balances, count * 2);
+            }
+            ids[count] = id;
+            balances[count] = balance;
+            count++;
+        }
+
+        void clear() {
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.poc.transaction.service.transaction.discharge;
+
+import com.poc.transaction.repository.TransactionRepository;
+import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.repository.projection.DischargeSummary;
+import com.poc.transaction.service.metrics.StageMetrics;
+import com.poc.transaction.service.metrics.StageMetrics.Stage;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.utils.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Discharges a payment inside Postgres: one statement allocates it over the open purchases with running totals and
+ * writes the new balances (see {@link TransactionRepository#dischargeOpenItems}).
+ * - one round trip per payment, whatever the number of purchases; nothing but the totals comes back to the JVM.
+ * - no state kept between payments, so nothing to hydrate, bound or evict - at the cost of re-reading the account's open
+ *   items (through the account / event date index) on every payment.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "transaction.discharge.strategy", havingValue = "sql")
+public class SqlDischargeStrategy implements DischargeStrategy {
+
+    private final TransactionRepository transactionRepository;
+    private final StageMetrics stageMetrics;
+    private final OperationTypeCatalog operationTypeCatalog;
+
+    @Override
+    public long discharge(TransactionEntity paymentTransaction, long accountVersion, boolean sampled) {
+        Long accountId = paymentTransaction.getAccount().getAccountId();
+
+        long stage = stageMetrics.start(sampled);
+        DischargeSummary summary = transactionRepository.dischargeOpenItems(accountId,
+                operationTypeCatalog.current().dischargeEligibleIds(), LocalDateTime.now(), paymentTransaction.getAmount());
+        // fetch, apply and write are the same statement
+        stage = stageMetrics.record(Stage.DISCHARGE_WRITE, stage);
+        stageMetrics.discharge(stage, summary.openItems(), summary.purchasesTouched());
+
+        long remaining = Money.subtract(Money.of(paymentTransaction.getAmount()), Money.of(summary.discharged()));
+        paymentTransaction.setBalance(Money.toBigDecimal(remaining));
+
+        // audit-log it for reporting (no need to console log it everytime)
+        log.info("Discharge: accountId={}, purchasesTouched={}, stillOpen={}, remainingPayment={}", accountId,
+                summary.purchasesTouched(), summary.openItems() - summary.purchasesTouched(), paymentTransaction.getBalance());
+        return remaining;
+    }
+}
@@ -0,0 +1,117 @@
+package com.poc.transaction.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of strings: {@link #mightContain} is false only for strings that were never {@link #put} - "true" can be a
+ * false positive, at about the rate it was sized for as long as it holds no more than the expected number of strings.
+ * - Sized the standard way: m = -n ln p / (ln 2)^2 bits, k = m / n ln 2 hash functions (capped at 16).
+ * - Blocked: all k bits of a string fall into one 512-bit block (a cache line), so a put or lookup costs one cache miss
+ *   instead of k. At these sizes that is most of the cost (~7 misses at 1%), for a slightly higher false positive rate.
+ * - Bits live in an AtomicLongArray and are only ever set, so concurrent puts and reads need no lock.
+ * - One 64-bit hash per string (FNV-1a over the chars, then a murmur finalizer), the block and the k bit positions are
+ *   derived from it by double hashing - no allocation per call.
+ */
+public final class BloomFilter {
+
+    private static final int MAX_HASHES = 16;
+    private static final int BLOCK_BITS = 512;
+    private static final int BLOCK_WORDS = BLOCK_BITS / 64;
+
+    private final AtomicLongArray words;
+    private final long blocks;
+    private final int hashes;
+
+    private BloomFilter(long bits, int hashes) {
+        long blockCount = (bits + BLOCK_BITS - 1) / BLOCK_BITS;
+        if (blockCount * BLOCK_WORDS > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter of " + bits + " bits is too large");
+        }
+        this.words = new AtomicLongArray((int) (blockCount * BLOCK_WORDS));
+        this.blocks = blockCount;
+        this.hashes = hashes;
+    }
+
+    /**
+     * @param expectedInsertions strings it's expected to hold
+     * @param falsePositiveRate  wanted false positive rate at that size, between 0 and 1
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Expected insertions must be > 0 and the false positive rate in (0, 1)");
+        }
+        long bits = Math.max(BLOCK_BITS, (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        int hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round((double) bits / expectedInsertions * Math.log(2))));
+        return new BloomFilter(bits, hashes);
+    }
+
+    public void put(CharSequence value) {
+        long hash = hash(value);
+        int base = block(hash);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            int word = base + (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            // already set is the common case once the filter fills up, skip the CAS then
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(CharSequence value) {
+        long hash = hash(value);
+        int base = block(hash);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            if ((words.get(base + (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return blocks * BLOCK_BITS;
+    }
+
+    public int hashCount() {
+        return hashes;
+    }
+
+    /**
+     * False positive rate expected once it holds {@code insertions} distinct strings: (1 - e^(-kn/m))^k, the classic
+     * estimate - a little optimistic for the blocked layout, whose blocks don't fill up evenly.
+     */
+    public double expectedFalsePositiveRate(long insertions) {
+        return Math.pow(1 - Math.exp(-(double) hashes * insertions / bitSize()), hashes);
+    }
+
+    // first word of the string's block, from a re-mixed hash so it's independent of the bit positions
+    private int block(long hash) {
+        return (int) Long.remainderUnsigned(mix(hash + 0x9E3779B97F4A7C15L), blocks) * BLOCK_WORDS;
+    }
+
+    private static long hash(CharSequence value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // murmur3 fmix64 - spreads FNV's weak low bits over the whole word
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,47 @@
+package com.poc.transaction.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money for the internal hot paths (sign rules, discharge): amounts are plain {@code long}s in minor units,
+ * i.e. cents at the scale 2 of the amount / balance columns, so arithmetic on them allocates nothing.
+ * - BigDecimal only at the boundaries: request amounts come in through {@link #of}, entity / JDBC values go out through
+ *   {@link #toBigDecimal}.
+ * - arithmetic is overflow checked, an overflow throws {@link ArithmeticException} instead of wrapping around.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+        // utility class, prevent instantiation
+    }
+
+    /**
+     * Minor units of an amount, rounded to scale 2 the way the numeric(x,2) columns round it.
+     *
+     * @throws ArithmeticException when it doesn't fit a long
+     */
+    public static long of(BigDecimal amount) {
+        // movePointRight + longValueExact of a scale-0 value stays clear of BigInteger, and the temporary is usually
+        // scalar-replaced by the JIT
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static long negate(long a) {
+        return Math.negateExact(a);
+    }
+}
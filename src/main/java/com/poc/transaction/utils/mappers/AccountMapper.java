@@ -1,6 +1,7 @@
 package com.poc.transaction.utils.mappers;
 
 import com.poc.transaction.model.request.AccountRequest;
+import com.poc.transaction.model.response.AccountBalanceResponse;
 import com.poc.transaction.model.response.AccountResponse;
 import com.poc.transaction.repository.entity.AccountEntity;
 
@@ -19,5 +20,12 @@ public class AccountMapper {
                 .documentNumber(entity.getDocumentNumber())
                 .build();
     }
-}
 
+    public static AccountBalanceResponse toBalanceResponse(AccountEntity entity) {
+        return AccountBalanceResponse.builder()
+                .accountId(entity.getAccountId())
+                .availableBalance(entity.getAvailableBalance())
+                .outstandingDebt(entity.getOutstandingDebt())
+                .build();
+    }
+}
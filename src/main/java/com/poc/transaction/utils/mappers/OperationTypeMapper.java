@@ -0,0 +1,20 @@
+package com.poc.transaction.utils.mappers;
+
+import com.poc.transaction.model.response.OperationTypeResponse;
+import com.poc.transaction.service.operationtype.OperationTypes;
+
+import java.util.List;
+
+public class OperationTypeMapper {
+
+    public static List<OperationTypeResponse> toResponses(OperationTypes operationTypes) {
+        return operationTypes.toEntities().stream()
+                .map(type -> OperationTypeResponse.builder()
+                        .operationTypeId(type.getOperationTypeId())
+                        .description(type.getDescription())
+                        .sign(type.getSign())
+                        .dischargeEligible(type.isDischargeEligible())
+                        .build())
+                .toList();
+    }
+}
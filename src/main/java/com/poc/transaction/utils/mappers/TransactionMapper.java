@@ -3,20 +3,24 @@ package com.poc.transaction.utils.mappers;
 import com.poc.transaction.model.request.TransactionRequest;
 import com.poc.transaction.model.response.TransactionResponse;
 import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.entity.OpenTransactionEntity;
 import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.repository.entity.TransactionStatus;
+import com.poc.transaction.repository.projection.TransactionRow;
 
 import java.math.BigDecimal;
 
 public class TransactionMapper {
 
-    public static TransactionEntity toEntity(TransactionRequest request, AccountEntity account, BigDecimal signedAmount) {
+    public static TransactionEntity toEntity(TransactionRequest request, AccountEntity account, BigDecimal signedAmount, String reference) {
 
         return TransactionEntity.builder()
                 .account(account)
                 .operationTypeId(request.getOperationTypeId())
                 .amount(signedAmount)
                 .eventDate(java.time.LocalDateTime.now())
-                .status("COMPLETED") // Default status, can be changed later
+                .status(TransactionStatus.COMPLETED) // written once processed, PENDING/FAILED only live in the async status log
+                .reference(reference)
                 .build();
     }
 
@@ -30,4 +34,25 @@ public class TransactionMapper {
                 .eventDate(entity.getEventDate())
                 .build();
     }
+
+    public static TransactionResponse toResponse(TransactionRow row) {
+        return TransactionResponse.builder()
+                .transactionId(row.transactionId())
+                .accountId(row.accountId())
+                .operationTypeId(row.operationTypeId())
+                .amount(row.amount())
+                .balance(row.balance())
+                .eventDate(row.eventDate())
+                .build();
+    }
+
+    public static OpenTransactionEntity toOpenEntity(TransactionEntity entity) {
+        return OpenTransactionEntity.builder()
+                .transactionId(entity.getTransactionId())
+                .accountId(entity.getAccount().getAccountId())
+                .operationTypeId(entity.getOperationTypeId())
+                .eventDate(entity.getEventDate())
+                .balance(entity.getBalance())
+                .build();
+    }
 }
@@ -4,7 +4,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.poc.transaction.exception.ApiException;
 import com.poc.transaction.exception.GlobalExceptionHandler;
 import com.poc.transaction.model.request.AccountRequest;
+import com.poc.transaction.model.request.BatchAccountRequest;
+import com.poc.transaction.model.response.AccountBalanceResponse;
 import com.poc.transaction.model.response.AccountResponse;
+import com.poc.transaction.model.response.BatchAccountItemResult;
+import com.poc.transaction.model.response.BatchAccountResponse;
 import com.poc.transaction.service.account.AccountService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +21,9 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -65,6 +72,32 @@ public class AccountApiTests {
                 .andExpect(jsonPath("$.documentNumber").value("12345678900"));
     }
 
+    @Test
+    void testCreateAccounts_returnsPerItemResults() throws Exception {
+        BatchAccountRequest request = new BatchAccountRequest(List.of(new AccountRequest("111"), new AccountRequest("222")));
+        when(accountService.createAccounts(any())).thenReturn(BatchAccountResponse.of(List.of(
+                BatchAccountItemResult.created(0, 1L, "111"),
+                BatchAccountItemResult.conflict(1, "222", "ACCOUNT_EXISTS", "Account with this document already exists"))));
+
+        // Act & expect
+        mockMvc.perform(post("/accounts/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.conflicts").value(1))
+                .andExpect(jsonPath("$.results[0].accountId").value(1L))
+                .andExpect(jsonPath("$.results[1].status").value("CONFLICT"));
+    }
+
+    @Test
+    void testCreateAccounts_emptyBatch() throws Exception {
+        mockMvc.perform(post("/accounts/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"accounts\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testGetAccountById_success() throws Exception {
         AccountResponse response = new AccountResponse();
@@ -89,4 +122,17 @@ public class AccountApiTests {
         mockMvc.perform(get("/accounts/99"))
                 .andExpect(status().is4xxClientError()); // or 404 if you mapped exceptions
     }
+
+    @Test
+    void testGetBalance_success() throws Exception {
+        when(accountService.getBalance(1L))
+                .thenReturn(new AccountBalanceResponse(1L, new BigDecimal("-23.50"), new BigDecimal("73.50")));
+
+        // Act & expect
+        mockMvc.perform(get("/accounts/1/balance"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountId").value(1L))
+                .andExpect(jsonPath("$.availableBalance").value(-23.50))
+                .andExpect(jsonPath("$.outstandingDebt").value(73.50));
+    }
 }
@@ -0,0 +1,137 @@
+package com.poc.transaction.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.transaction.exception.ApiException;
+import com.poc.transaction.exception.GlobalExceptionHandler;
+import com.poc.transaction.model.request.TransactionHistoryFilter;
+import com.poc.transaction.model.response.TransactionPageResponse;
+import com.poc.transaction.model.response.TransactionResponse;
+import com.poc.transaction.service.transaction.TransactionHistoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class AccountTransactionApiTests {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private TransactionHistoryService transactionHistoryService;
+
+    @BeforeEach
+    void setup() {
+        AccountTransactionApi api = new AccountTransactionApi(transactionHistoryService, new ObjectMapper().findAndRegisterModules());
+        mockMvc = MockMvcBuilders.standaloneSetup(api)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void testGetTransactions_pageWithFilters() throws Exception {
+        TransactionPageResponse page = TransactionPageResponse.builder()
+                .items(List.of(transaction(10L)))
+                .nextCursor("abc")
+                .build();
+        when(transactionHistoryService.getTransactions(eq(1L), any(TransactionHistoryFilter.class), isNull(), eq(20)))
+                .thenReturn(page);
+
+        mockMvc.perform(get("/accounts/1/transactions")
+                        .param("limit", "20")
+                        .param("from", "2025-01-01T00:00:00")
+                        .param("operationTypeId", "1", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].transactionId").value(10L))
+                .andExpect(jsonPath("$.nextCursor").value("abc"));
+
+        ArgumentCaptor<TransactionHistoryFilter> filter = ArgumentCaptor.forClass(TransactionHistoryFilter.class);
+        verify(transactionHistoryService).getTransactions(eq(1L), filter.capture(), isNull(), eq(20));
+        assertEquals(LocalDateTime.of(2025, 1, 1, 0, 0), filter.getValue().getFrom());
+        assertEquals(List.of(1, 4), filter.getValue().getOperationTypeIds());
+    }
+
+    @Test
+    void testGetTransactions_invalidCursor() throws Exception {
+        when(transactionHistoryService.getTransactions(eq(1L), any(TransactionHistoryFilter.class), eq("bogus"), eq(50)))
+                .thenThrow(new ApiException("Provided cursor is invalid.", HttpStatus.BAD_REQUEST, "INVALID_CURSOR"));
+
+        mockMvc.perform(get("/accounts/1/transactions").param("cursor", "bogus"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Provided cursor is invalid."));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamTransactions_ndjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<TransactionResponse> consumer = invocation.getArgument(2);
+            consumer.accept(transaction(1L));
+            consumer.accept(transaction(2L));
+            return null;
+        }).when(transactionHistoryService).streamTransactions(eq(1L), any(TransactionHistoryFilter.class), any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/accounts/1/transactions").accept(AccountTransactionApi.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(AccountTransactionApi.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, new ObjectMapper().readTree(lines[0]).get("transactionId").asLong());
+        assertEquals(2L, new ObjectMapper().readTree(lines[1]).get("transactionId").asLong());
+    }
+
+    @Test
+    void testStreamTransactions_accountNotFound() throws Exception {
+        doThrow(new ApiException("Account not found", HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND"))
+                .when(transactionHistoryService).requireAccount(99L);
+
+        // errors are rendered as JSON, so the client accepts it next to ndjson
+        mockMvc.perform(get("/accounts/99/transactions").accept(AccountTransactionApi.APPLICATION_NDJSON, MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Account not found"));
+    }
+
+    private static TransactionResponse transaction(Long id) {
+        return TransactionResponse.builder()
+                .transactionId(id)
+                .accountId(1L)
+                .operationTypeId(1)
+                .amount(BigDecimal.valueOf(-10))
+                .balance(BigDecimal.valueOf(-10))
+                .eventDate(LocalDateTime.of(2025, 1, 1, 10, 0))
+                .build();
+    }
+}
@@ -3,9 +3,17 @@ package com.poc.transaction.api;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.poc.transaction.exception.ApiException;
 import com.poc.transaction.exception.GlobalExceptionHandler;
+import com.poc.transaction.model.request.BatchTransactionRequest;
 import com.poc.transaction.model.request.TransactionRequest;
+import com.poc.transaction.model.response.BatchItemResult;
+import com.poc.transaction.model.response.BatchTransactionResponse;
 import com.poc.transaction.model.response.TransactionResponse;
+import com.poc.transaction.model.response.TransactionStatusResponse;
+import com.poc.transaction.service.idempotency.IdempotencyService;
+import com.poc.transaction.service.idempotency.IdempotencyService.IdempotentAccept;
+import com.poc.transaction.service.idempotency.IdempotencyService.IdempotentResponse;
 import com.poc.transaction.service.transaction.TransactionService;
+import com.poc.transaction.service.transaction.async.AsyncTransactionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,10 +27,17 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -36,6 +51,12 @@ class TransactionApiTests {
     @Mock
     private TransactionService transactionService;
 
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private AsyncTransactionService asyncTransactionService;
+
     @InjectMocks
     private TransactionApi transactionApi;
 
@@ -77,6 +98,97 @@ class TransactionApiTests {
                 .andExpect(jsonPath("$.amount").value(-100.00));
     }
 
+    @Test
+    void testCreateTransaction_idempotentReplay() throws Exception {
+        TransactionRequest request = TransactionRequest.builder()
+                .accountId(1L)
+                .operationTypeId(1)
+                .amount(BigDecimal.valueOf(100.00))
+                .build();
+
+        TransactionResponse response = TransactionResponse.builder()
+                .transactionId(10L)
+                .accountId(1L)
+                .operationTypeId(1)
+                .amount(BigDecimal.valueOf(-100.00))
+                .build();
+
+        when(idempotencyService.execute(eq("key-1"), any(TransactionRequest.class), any()))
+                .thenReturn(new IdempotentResponse(response, true));
+
+        // Act & expect
+        mockMvc.perform(post("/transactions")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(TransactionApi.IDEMPOTENT_REPLAYED, "true"))
+                .andExpect(jsonPath("$.transactionId").value(10L));
+
+        verify(transactionService, never()).createTransaction(any());
+    }
+
+    @Test
+    void testCreateTransaction_respondAsync() throws Exception {
+        TransactionRequest request = TransactionRequest.builder()
+                .accountId(1L)
+                .operationTypeId(4)
+                .amount(BigDecimal.valueOf(50.00))
+                .build();
+
+        when(asyncTransactionService.accept(any(TransactionRequest.class)))
+                .thenReturn(TransactionStatusResponse.pending("ref-1"));
+
+        // Act & expect
+        mockMvc.perform(post("/transactions")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/transactions/status/ref-1"))
+                .andExpect(header().string(TransactionApi.PREFERENCE_APPLIED, "respond-async"))
+                .andExpect(jsonPath("$.reference").value("ref-1"))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+
+        verify(transactionService, never()).createTransaction(any());
+    }
+
+    @Test
+    void testCreateTransaction_respondAsync_idempotentReplay() throws Exception {
+        TransactionRequest request = TransactionRequest.builder()
+                .accountId(1L)
+                .operationTypeId(4)
+                .amount(BigDecimal.valueOf(50.00))
+                .build();
+
+        when(idempotencyService.accept(eq("key-1"), any(TransactionRequest.class), any()))
+                .thenReturn(new IdempotentAccept("ref-1", true));
+
+        // Act & expect
+        mockMvc.perform(post("/transactions")
+                        .header("Prefer", "respond-async")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/transactions/status/ref-1"))
+                .andExpect(header().string(TransactionApi.IDEMPOTENT_REPLAYED, "true"))
+                .andExpect(jsonPath("$.reference").value("ref-1"));
+
+        verify(asyncTransactionService, never()).accept(any());
+    }
+
+    @Test
+    void testGetTransactionStatus_unknownReference() throws Exception {
+        when(asyncTransactionService.getStatus("nope"))
+                .thenThrow(new ApiException("Transaction reference not found", HttpStatus.NOT_FOUND, "REFERENCE_NOT_FOUND"));
+
+        // Act & expect
+        mockMvc.perform(get("/transactions/status/nope"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Transaction reference not found"));
+    }
+
     @Test
     void testCreateTransaction_invalidAmount() throws Exception {
         TransactionRequest request = TransactionRequest.builder()
@@ -145,5 +257,35 @@ class TransactionApiTests {
                         .content(new ObjectMapper().writeValueAsString(request)))
                 .andExpect(status().isBadRequest());
     }
-}
 
+    @Test
+    void testCreateTransactions_batchReturnsPerItemResults() throws Exception {
+        BatchTransactionRequest request = new BatchTransactionRequest(List.of(
+                new TransactionRequest(1L, 1, BigDecimal.valueOf(10)),
+                new TransactionRequest(1L, 9, BigDecimal.valueOf(10))));
+
+        when(transactionService.createTransactions(anyList()))
+                .thenReturn(BatchTransactionResponse.of(List.of(
+                        BatchItemResult.created(0, 10L),
+                        BatchItemResult.failed(1, "INVALID_OPERATION_TYPE", "Provided operation type id is invalid."))));
+
+        // Act & expect
+        mockMvc.perform(post("/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.results[0].transactionId").value(10L))
+                .andExpect(jsonPath("$.results[1].errorCode").value("INVALID_OPERATION_TYPE"));
+    }
+
+    @Test
+    void testCreateTransactions_emptyBatch() throws Exception {
+        // Act & expect
+        mockMvc.perform(post("/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"transactions\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,49 @@
+package com.poc.transaction.handlers;
+
+import com.poc.transaction.repository.OpenTransactionRepository;
+import com.poc.transaction.repository.OperationTypeRepository;
+import com.poc.transaction.repository.memory.InMemoryStartupTaskRepository;
+import com.poc.transaction.service.cache.InMemoryCacheInvalidationBus;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OpenTransactionBackfillTest {
+
+    private final OpenTransactionRepository openTransactionRepository = mock(OpenTransactionRepository.class);
+    private final InMemoryStartupTaskRepository startupTaskRepository = new InMemoryStartupTaskRepository();
+    private final OpenTransactionBackfill backfill = new OpenTransactionBackfill(openTransactionRepository,
+            startupTaskRepository, new OperationTypeCatalog(mock(OperationTypeRepository.class),
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), new InMemoryCacheInvalidationBus()));
+
+    @Test
+    void run_backfillsOnce_evenWhenOpenItemsStayEmpty() {
+        when(openTransactionRepository.count()).thenReturn(0L);
+
+        backfill.run(null);
+        // all debt paid since: the side table is empty again, the restart must not re-scan transactions
+        backfill.run(null);
+
+        verify(openTransactionRepository, times(1)).backfillFromTransactions(anyCollection());
+        assertTrue(startupTaskRepository.existsById(OpenTransactionBackfill.TASK));
+    }
+
+    @Test
+    void run_onlyRecordsMarker_whenOpenItemsAlreadyFilled() {
+        when(openTransactionRepository.count()).thenReturn(3L);
+
+        backfill.run(null);
+
+        verify(openTransactionRepository, never()).backfillFromTransactions(anyCollection());
+        assertTrue(startupTaskRepository.existsById(OpenTransactionBackfill.TASK));
+    }
+}
@@ -0,0 +1,237 @@
+package com.poc.transaction.repository;
+
+import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.repository.entity.TransactionStatus;
+import com.poc.transaction.repository.memory.InMemoryAccountRepository;
+import com.poc.transaction.repository.memory.InMemoryOpenTransactionRepository;
+import com.poc.transaction.repository.memory.InMemoryTransactionManager;
+import com.poc.transaction.repository.memory.InMemoryTransactionRepository;
+import com.poc.transaction.repository.projection.TransactionRow;
+import com.poc.transaction.utils.mappers.TransactionMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryRepositoryTest {
+
+    private InMemoryAccountRepository accountRepository;
+    private InMemoryOpenTransactionRepository openTransactionRepository;
+    private InMemoryTransactionRepository transactionRepository;
+    private AccountEntity account;
+    private LocalDateTime now;
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(new InMemoryTransactionManager());
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = new InMemoryAccountRepository();
+        openTransactionRepository = new InMemoryOpenTransactionRepository();
+        transactionRepository = new InMemoryTransactionRepository(openTransactionRepository);
+        account = accountRepository.save(AccountEntity.builder().documentNumber("12345678900").build());
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void save_duplicateDocumentNumber_violatesUniqueConstraint() {
+        assertEquals(1L, account.getAccountId());
+        assertEquals(account, accountRepository.findByDocumentNumber("12345678900").orElseThrow());
+
+        AccountEntity duplicate = AccountEntity.builder().documentNumber("12345678900").build();
+        assertThrows(DataIntegrityViolationException.class, () -> accountRepository.save(duplicate));
+        assertEquals(1, accountRepository.count());
+    }
+
+    @Test
+    void insertMissing_skipsTakenDocumentNumbers() {
+        List<AccountEntity> created = accountRepository.insertMissing(List.of("12345678900", "222", "333"));
+
+        assertEquals(List.of("222", "333"), created.stream().map(AccountEntity::getDocumentNumber).toList());
+        assertEquals(3, accountRepository.count());
+        assertEquals(created.get(0), accountRepository.findByDocumentNumber("222").orElseThrow());
+    }
+
+    @Test
+    void fetchTransactions_onlyOpenPurchasesUpToNow() {
+        TransactionEntity oldest = record(1, "-50.00", now.minusDays(2));
+        TransactionEntity paidOff = record(2, "-10.00", now.minusDays(1));
+        record(4, "60.00", now.minusHours(1));
+        record(3, "-5.00", now.plusDays(1));
+        openTransactionRepository.applyBalances(new long[]{paidOff.getTransactionId()}, new BigDecimal[]{BigDecimal.ZERO.setScale(2)}, 1);
+
+        List<TransactionEntity> open = transactionRepository.fetchTransactions(account.getAccountId(), List.of(1, 2, 3), now);
+
+        // payments never open, future purchases aren't due yet, paid off ones left the open items
+        assertEquals(List.of(oldest), open);
+        assertEquals(2, openTransactionRepository.fetchOpenItems(account.getAccountId(), List.of(1, 2, 3)).size());
+    }
+
+    @Test
+    void findHistoryPage_seeksPastCursorInEventDateOrder() {
+        TransactionEntity first = record(1, "-50.00", now.minusDays(3));
+        TransactionEntity second = record(4, "20.00", now.minusDays(2));
+        TransactionEntity third = record(2, "-10.00", now.minusDays(1));
+
+        List<TransactionRow> page = transactionRepository.findHistoryPage(account.getAccountId(), List.of(1, 2, 3, 4),
+                now.minusDays(10), now, first.getEventDate(), first.getTransactionId(), Limit.of(1));
+        List<TransactionRow> purchases = transactionRepository.findHistoryPage(account.getAccountId(), List.of(1, 2, 3),
+                now.minusDays(10), now, now.minusDays(10), 0L, Limit.of(10));
+
+        assertEquals(List.of(second.getTransactionId()), page.stream().map(TransactionRow::transactionId).toList());
+        assertEquals(List.of(first.getTransactionId(), third.getTransactionId()),
+                purchases.stream().map(TransactionRow::transactionId).toList());
+    }
+
+    @Test
+    void findIdByReference_uniqueReference() {
+        TransactionEntity accepted = transactionRepository.save(transaction(1, "-50.00", now, "ref-1"));
+
+        assertEquals(accepted.getTransactionId(), transactionRepository.findIdByReference("ref-1").orElseThrow());
+        assertThrows(DataIntegrityViolationException.class, () -> transactionRepository.save(transaction(1, "-5.00", now, "ref-1")));
+        assertTrue(transactionRepository.findIdByReference("ref-2").isEmpty());
+    }
+
+    @Test
+    void applyBalanceChange_requireFundsKeepsBalanceNonNegative() {
+        assertEquals(1, accountRepository.applyBalanceChange(account.getAccountId(), new BigDecimal("100.00"), BigDecimal.ZERO, true));
+        assertEquals(1, accountRepository.applyBalanceChange(account.getAccountId(), new BigDecimal("-60.00"), new BigDecimal("60.00"), true));
+
+        // would end at -20: the row is left alone
+        assertEquals(0, accountRepository.applyBalanceChange(account.getAccountId(), new BigDecimal("-60.00"), new BigDecimal("60.00"), true));
+        assertEquals(0, new BigDecimal("40.00").compareTo(account.getAvailableBalance()));
+        assertEquals(0, new BigDecimal("60.00").compareTo(account.getOutstandingDebt()));
+
+        // unchecked changes may go below 0, unknown accounts match nothing
+        assertEquals(1, accountRepository.applyBalanceChange(account.getAccountId(), new BigDecimal("-60.00"), new BigDecimal("60.00"), false));
+        assertEquals(0, new BigDecimal("-20.00").compareTo(account.getAvailableBalance()));
+        assertEquals(0, accountRepository.applyBalanceChange(99L, BigDecimal.ONE, BigDecimal.ZERO, false));
+    }
+
+    @Test
+    void applyPayment_onlyFromTheVersionRead() {
+        Long version = accountRepository.findVersion(account.getAccountId());
+        assertEquals(0L, version);
+
+        assertEquals(1, accountRepository.applyPayment(account.getAccountId(), new BigDecimal("10.00"), BigDecimal.ZERO, version));
+        // a second payment that read the same version lost the race, and leaves the balances alone
+        assertEquals(0, accountRepository.applyPayment(account.getAccountId(), new BigDecimal("10.00"), BigDecimal.ZERO, version));
+        assertEquals(0, new BigDecimal("10.00").compareTo(account.getAvailableBalance()));
+        assertEquals(1L, accountRepository.findVersion(account.getAccountId()));
+        assertEquals(0, accountRepository.applyPayment(99L, BigDecimal.ONE, BigDecimal.ZERO, 0L));
+
+        // purchases move it on too
+        accountRepository.applyBalanceChange(account.getAccountId(), new BigDecimal("-5.00"), new BigDecimal("5.00"), true);
+        assertEquals(2L, accountRepository.findVersion(account.getAccountId()));
+    }
+
+    @Test
+    void rollback_undoesInsertsBalanceChangesAndOpenItemEdits() {
+        TransactionEntity first = record(1, "-50.00", now.minusDays(2));
+        TransactionEntity second = record(2, "-10.00", now.minusDays(1));
+        accountRepository.applyBalanceChange(account.getAccountId(), new BigDecimal("-60.00"), new BigDecimal("60.00"), false);
+        Long accountId = account.getAccountId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // a payment discharging both purchases, the way the strategies write it
+            transactionRepository.save(transaction(4, "55.00", now, "ref-1"));
+            List<TransactionEntity> open = transactionRepository.fetchTransactions(accountId, List.of(1, 2, 3), now);
+            open.get(0).setBalance(new BigDecimal("0.00"));
+            transactionRepository.updateBalances(new long[]{second.getTransactionId()}, new BigDecimal[]{new BigDecimal("-5.00")}, 1);
+            openTransactionRepository.applyBalances(new long[]{first.getTransactionId(), second.getTransactionId()},
+                    new BigDecimal[]{new BigDecimal("0.00"), new BigDecimal("-5.00")}, 2);
+            accountRepository.applyPayment(accountId, new BigDecimal("55.00"), new BigDecimal("-55.00"), 1L);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(2, transactionRepository.count());
+        assertTrue(transactionRepository.findIdByReference("ref-1").isEmpty());
+        assertEquals(new BigDecimal("-50.00"), transactionRepository.findById(first.getTransactionId()).orElseThrow().getBalance());
+        assertEquals(new BigDecimal("-10.00"), transactionRepository.findById(second.getTransactionId()).orElseThrow().getBalance());
+        assertEquals(List.of(first.getTransactionId(), second.getTransactionId()),
+                transactionRepository.findByAccount_AccountId(accountId).stream().map(TransactionEntity::getTransactionId).toList());
+        assertEquals(List.of(new BigDecimal("-50.00"), new BigDecimal("-10.00")),
+                openTransactionRepository.fetchOpenItems(accountId, List.of(1, 2, 3)).stream().map(item -> item.getBalance()).toList());
+        AccountEntity after = accountRepository.findById(accountId).orElseThrow();
+        assertEquals(0, new BigDecimal("-60.00").compareTo(after.getAvailableBalance()));
+        assertEquals(0, new BigDecimal("60.00").compareTo(after.getOutstandingDebt()));
+        assertEquals(1L, accountRepository.findVersion(accountId));
+        assertEquals(after, accountRepository.findByDocumentNumber("12345678900").orElseThrow());
+    }
+
+    @Test
+    void rollback_reRunAfterConflict_insertsOnce() {
+        int[] runs = {0};
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    runs[0]++;
+                    record(1, "-50.00", now);
+                    if (runs[0] == 1) {
+                        throw new ObjectOptimisticLockingFailureException(AccountEntity.class, account.getAccountId());
+                    }
+                });
+                break;
+            } catch (ObjectOptimisticLockingFailureException e) {
+                assertEquals(1, attempt);
+            }
+        }
+
+        assertEquals(1, transactionRepository.count());
+        assertEquals(1, openTransactionRepository.count());
+    }
+
+    @Test
+    void rollback_ofParticipatingTransaction_rollsBackTheOuterOne() {
+        assertThrows(UnexpectedRollbackException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            record(1, "-50.00", now);
+            try {
+                transactionTemplate.executeWithoutResult(inner -> {
+                    throw new IllegalStateException("constraint violated");
+                });
+            } catch (IllegalStateException e) {
+                // the outer transaction goes on, but can't commit any more
+            }
+        }));
+
+        assertEquals(0, transactionRepository.count());
+        assertEquals(0, openTransactionRepository.count());
+    }
+
+    @Test
+    void commit_keepsWrites() {
+        TransactionEntity saved = transactionTemplate.execute(status -> record(1, "-50.00", now));
+
+        assertEquals(saved, transactionRepository.findById(saved.getTransactionId()).orElseThrow());
+        assertEquals(1, openTransactionRepository.count());
+    }
+
+    // saves like TransactionServiceImpl.record: the transaction, and its open item when it's a purchase
+    private TransactionEntity record(int operationTypeId, String amount, LocalDateTime eventDate) {
+        TransactionEntity saved = transactionRepository.save(transaction(operationTypeId, amount, eventDate, null));
+        if (operationTypeId != 4) {
+            openTransactionRepository.save(TransactionMapper.toOpenEntity(saved));
+        }
+        return saved;
+    }
+
+    private TransactionEntity transaction(int operationTypeId, String amount, LocalDateTime eventDate, String reference) {
+        return TransactionEntity.builder()
+                .account(account)
+                .operationTypeId(operationTypeId)
+                .amount(new BigDecimal(amount))
+                .balance(new BigDecimal(amount))
+                .eventDate(eventDate)
+                .status(TransactionStatus.COMPLETED)
+                .reference(reference)
+                .build();
+    }
+}
@@ -0,0 +1,203 @@
+package com.poc.transaction.repository;
+
+import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.entity.OpenTransactionEntity;
+import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.repository.entity.TransactionStatus;
+import com.poc.transaction.repository.projection.DischargeSummary;
+import com.poc.transaction.repository.projection.OpenItemView;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the discharge SQL against a real Postgres: {@link TransactionRepository#dischargeOpenItems} checked against the
+ * same FIFO walk done by hand, and the orders of {@link OpenTransactionRepository#streamOpenItems}. Skipped when Docker
+ * isn't available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class PostgresDischargeTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private OpenTransactionRepository openTransactionRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void dischargeOpenItems_paysOldestFirst_andSkipsFutureAndIneligible() {
+        AccountEntity account = accountRepository.save(AccountEntity.builder().documentNumber("12345678900").build());
+        LocalDateTime now = LocalDateTime.now();
+        TransactionEntity first = purchase(account, 1, "-50.00", now.minusDays(3));
+        TransactionEntity second = purchase(account, 2, "-23.50", now.minusDays(2));
+        TransactionEntity third = purchase(account, 3, "-18.70", now.minusDays(1));
+        TransactionEntity ineligible = purchase(account, 5, "-10.00", now.minusDays(4));
+        TransactionEntity future = purchase(account, 1, "-99.00", now.plusDays(1));
+
+        DischargeSummary summary = transactionRepository.dischargeOpenItems(account.getAccountId(), List.of(1, 2, 3), now,
+                new BigDecimal("60.00"));
+
+        assertEquals(3, summary.openItems());
+        assertEquals(2, summary.purchasesTouched());
+        assertEquals(new BigDecimal("60.00"), summary.discharged());
+        assertEquals(new BigDecimal("0.00"), balance(first));
+        assertEquals(new BigDecimal("-13.50"), balance(second));
+        assertEquals(new BigDecimal("-18.70"), balance(third));
+        assertEquals(new BigDecimal("-10.00"), balance(ineligible));
+        assertEquals(new BigDecimal("-99.00"), balance(future));
+        // paid off leaves the side table, partly paid is updated there too
+        assertEquals(Map.of(second.getTransactionId(), new BigDecimal("-13.50"),
+                third.getTransactionId(), new BigDecimal("-18.70"),
+                ineligible.getTransactionId(), new BigDecimal("-10.00"),
+                future.getTransactionId(), new BigDecimal("-99.00")), openItems(account));
+
+        // more than is owed: everything due is paid, the rest comes back as not discharged
+        summary = transactionRepository.dischargeOpenItems(account.getAccountId(), List.of(1, 2, 3), now,
+                new BigDecimal("100.00"));
+
+        assertEquals(2, summary.purchasesTouched());
+        assertEquals(new BigDecimal("32.20"), summary.discharged());
+        assertEquals(Map.of(ineligible.getTransactionId(), new BigDecimal("-10.00"),
+                future.getTransactionId(), new BigDecimal("-99.00")), openItems(account));
+    }
+
+    @Test
+    void dischargeOpenItems_matchesFifoWalk_onRandomHistory() {
+        AccountEntity account = accountRepository.save(AccountEntity.builder().documentNumber("98765432100").build());
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime eventDate = now.minusDays(1);
+        // reference: open purchases in (event date, id) order
+        Map<Long, BigDecimal> expected = new TreeMap<>();
+
+        for (int i = 0; i < 300; i++) {
+            eventDate = eventDate.plusSeconds(1 + random.nextInt(60));
+            if (random.nextInt(3) != 0) {
+                BigDecimal amount = BigDecimal.valueOf(-(1 + random.nextInt(20_000)), 2);
+                expected.put(purchase(account, 1 + random.nextInt(3), amount.toPlainString(), eventDate).getTransactionId(), amount);
+                continue;
+            }
+            BigDecimal payment = BigDecimal.valueOf(1 + random.nextInt(50_000), 2);
+            BigDecimal remaining = payment;
+            List<Long> paidOff = new ArrayList<>();
+            for (Map.Entry<Long, BigDecimal> item : expected.entrySet()) {
+                if (remaining.signum() == 0) {
+                    break;
+                }
+                BigDecimal paid = remaining.min(item.getValue().negate());
+                item.setValue(item.getValue().add(paid));
+                remaining = remaining.subtract(paid);
+                if (item.getValue().signum() == 0) {
+                    paidOff.add(item.getKey());
+                }
+            }
+            paidOff.forEach(expected::remove);
+
+            DischargeSummary summary = transactionRepository.dischargeOpenItems(account.getAccountId(), List.of(1, 2, 3),
+                    eventDate.plusSeconds(1), payment);
+
+            assertEquals(0, payment.subtract(remaining).compareTo(summary.discharged()), "discharged by payment " + i);
+        }
+        assertEquals(expected.size(), openItems(account).size());
+        expected.forEach((id, balance) -> assertEquals(0, balance.compareTo(openItems(account).get(id)), "open item " + id));
+    }
+
+    @Test
+    void streamOpenItems_returnsDueItemsInEveryOrder() {
+        AccountEntity account = accountRepository.save(AccountEntity.builder().documentNumber("11122233344").build());
+        LocalDateTime now = LocalDateTime.now();
+        Long small = purchase(account, 1, "-50.00", now.minusDays(3)).getTransactionId();
+        Long older = purchase(account, 2, "-80.00", now.minusDays(2)).getTransactionId();
+        Long withdrawal = purchase(account, 3, "-20.00", now.minusDays(1)).getTransactionId();
+        Long newer = purchase(account, 1, "-80.00", now.minusHours(1)).getTransactionId();
+        purchase(account, 3, "-10.00", now.plusDays(1));
+
+        assertEquals(List.of(small, older, withdrawal, newer), stream(account, now, OpenItemOrder.OLDEST_FIRST, List.of()));
+        assertEquals(List.of(older, newer, small, withdrawal), stream(account, now, OpenItemOrder.HIGHEST_BALANCE_FIRST, List.of()));
+        assertEquals(List.of(withdrawal, older, small, newer), stream(account, now, OpenItemOrder.TYPE_PRIORITY, List.of(3, 2)));
+    }
+
+    @Test
+    void versions_areBumpedByEveryWrite_andFenceRejectsStaleVersion() {
+        AccountEntity account = accountRepository.save(AccountEntity.builder().documentNumber("55566677788").build());
+        TransactionEntity purchase = purchase(account, 1, "-50.00", LocalDateTime.now().minusDays(1));
+        transactionRepository.flush();
+
+        Long version = accountRepository.findVersion(account.getAccountId());
+        assertEquals(0L, version);
+        assertEquals(1, accountRepository.applyPayment(account.getAccountId(), new BigDecimal("10.00"), BigDecimal.ZERO, version));
+        assertEquals(0, accountRepository.applyPayment(account.getAccountId(), new BigDecimal("10.00"), BigDecimal.ZERO, version));
+        accountRepository.applyBalanceChange(account.getAccountId(), new BigDecimal("-5.00"), new BigDecimal("5.00"), false);
+        assertEquals(2L, accountRepository.findVersion(account.getAccountId()));
+
+        transactionRepository.updateBalances(new long[]{purchase.getTransactionId()}, new BigDecimal[]{new BigDecimal("-20.00")}, 1);
+        assertEquals(1L, jdbcTemplate.queryForObject("SELECT version FROM transactions WHERE transaction_id = ?", Long.class,
+                purchase.getTransactionId()));
+    }
+
+    private List<Long> stream(AccountEntity account, LocalDateTime now, OpenItemOrder order, List<Integer> typePriority) {
+        try (Stream<OpenItemView> items = openTransactionRepository.streamOpenItems(account.getAccountId(), List.of(1, 2, 3),
+                now, order, typePriority, 2)) {
+            return items.map(OpenItemView::getTransactionId).toList();
+        }
+    }
+
+    private TransactionEntity purchase(AccountEntity account, int operationTypeId, String amount, LocalDateTime eventDate) {
+        TransactionEntity transaction = transactionRepository.save(TransactionEntity.builder()
+                .account(account)
+                .operationTypeId(operationTypeId)
+                .amount(new BigDecimal(amount))
+                .balance(new BigDecimal(amount))
+                .eventDate(eventDate)
+                .status(TransactionStatus.COMPLETED)
+                .build());
+        openTransactionRepository.save(OpenTransactionEntity.builder()
+                .transactionId(transaction.getTransactionId())
+                .accountId(account.getAccountId())
+                .operationTypeId(operationTypeId)
+                .eventDate(eventDate)
+                .balance(transaction.getBalance())
+                .build());
+        return transaction;
+    }
+
+    private BigDecimal balance(TransactionEntity transaction) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM transactions WHERE transaction_id = ?", BigDecimal.class,
+                transaction.getTransactionId());
+    }
+
+    private Map<Long, BigDecimal> openItems(AccountEntity account) {
+        Map<Long, BigDecimal> items = new TreeMap<>();
+        jdbcTemplate.query("SELECT transaction_id, balance FROM open_transactions WHERE account_id = ?",
+                rs -> {
+                    items.put(rs.getLong(1), rs.getBigDecimal(2));
+                }, account.getAccountId());
+        return items;
+    }
+}
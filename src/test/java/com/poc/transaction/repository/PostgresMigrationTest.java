@@ -0,0 +1,61 @@
+package com.poc.transaction.repository;
+
+import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.repository.entity.TransactionStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Startup steps that bring a database written by an older build up to date, against a real Postgres. Skipped when
+ * Docker isn't available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class PostgresMigrationTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void alignIdSequence_movesSequencePastIdsFromIdentityColumn() {
+        AccountEntity account = accountRepository.saveAndFlush(AccountEntity.builder().documentNumber("12345678900").build());
+        // a row written by the IDENTITY build, far above where the fresh sequence starts
+        jdbcTemplate.update("INSERT INTO transactions (transaction_id, account_id, operation_type_id, amount, balance, event_date, status)"
+                + " VALUES (1000, ?, 1, -10.00, -10.00, now(), 'COMPLETED')", account.getAccountId());
+
+        assertEquals(1000L + TransactionEntity.ID_ALLOCATION_SIZE, transactionRepository.alignIdSequence());
+        assertNull(transactionRepository.alignIdSequence()); // already ahead
+
+        TransactionEntity saved = transactionRepository.saveAndFlush(TransactionEntity.builder()
+                .account(account)
+                .operationTypeId(1)
+                .amount(new BigDecimal("-5.00"))
+                .balance(new BigDecimal("-5.00"))
+                .eventDate(LocalDateTime.now())
+                .status(TransactionStatus.COMPLETED)
+                .build());
+        assertTrue(saved.getTransactionId() > 1000L);
+    }
+}
@@ -0,0 +1,121 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.exception.ApiException;
+import com.poc.transaction.service.execution.AccountLaneExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLaneExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AccountLaneExecutor laneExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        laneExecutor = new AccountLaneExecutor(4, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        laneExecutor.destroy();
+    }
+
+    @Test
+    void sameAccount_tasksRunInSubmissionOrder() {
+        // deliberately not thread-safe - the lane is the only writer
+        List<Integer> executed = new ArrayList<>();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int sequence = i;
+            futures.add(laneExecutor.submit(7L, () -> {
+                executed.add(sequence);
+                return sequence;
+            }));
+        }
+
+        futures.forEach(CompletableFuture::join);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, executed.get(i));
+        }
+    }
+
+    @Test
+    void differentLanes_runInParallel() throws Exception {
+        Long blockedAccount = 1L;
+        Long otherAccount = accountOnAnotherLane(blockedAccount);
+
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> blocked = laneExecutor.submit(blockedAccount, () -> await(release));
+
+        // the other lane is not held up by the blocked one
+        assertEquals("done", laneExecutor.submit(otherAccount, () -> "done").get(5, TimeUnit.SECONDS));
+        assertFalse(blocked.isDone());
+
+        release.countDown();
+        assertTrue(blocked.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_rethrowsTaskException() {
+        ApiException exception = assertThrows(ApiException.class, () -> laneExecutor.execute(1L, () -> {
+            throw new ApiException("Account not found", HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+        }));
+
+        assertEquals("ACCOUNT_NOT_FOUND", exception.getCode());
+    }
+
+    @Test
+    void execute_nestedCallOnSameLane_runsInline() {
+        assertEquals("nested", laneExecutor.execute(5L, () -> laneExecutor.execute(5L, () -> "nested")));
+    }
+
+    @Test
+    void lanes_exportQueueDepthAndWaitTime() throws Exception {
+        int lane = laneExecutor.laneOf(3L);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> blocked = laneExecutor.submit(3L, () -> {
+            started.countDown();
+            return await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = laneExecutor.submit(3L, () -> "queued");
+
+        assertEquals(1, laneExecutor.queueDepth(lane));
+        assertEquals(1.0, meterRegistry.get("transaction.lane.queue.depth").tag("lane", String.valueOf(lane)).gauge().value());
+
+        release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+        assertEquals(2, meterRegistry.get("transaction.lane.wait").tag("lane", String.valueOf(lane)).timer().count());
+    }
+
+    private Long accountOnAnotherLane(Long accountId) {
+        long candidate = accountId + 1;
+        while (laneExecutor.laneOf(candidate) == laneExecutor.laneOf(accountId)) {
+            candidate++;
+        }
+        return candidate;
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
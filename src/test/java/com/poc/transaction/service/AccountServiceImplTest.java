@@ -5,22 +5,34 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import com.poc.transaction.exception.ApiException;
-import com.poc.transaction.handlers.AsyncEventDispatcher;
 import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.entity.OutboxEventType;
 import com.poc.transaction.model.request.AccountRequest;
+import com.poc.transaction.model.response.AccountBalanceResponse;
 import com.poc.transaction.model.response.AccountResponse;
+import com.poc.transaction.model.response.BatchAccountItemResult;
+import com.poc.transaction.model.response.BatchAccountResponse;
 import com.poc.transaction.repository.AccountRepository;
 import com.poc.transaction.service.account.AccountServiceImpl;
+import com.poc.transaction.service.account.DocumentNumberFilter;
+import com.poc.transaction.service.account.MissingAccountCache;
 import com.poc.transaction.service.cache.CacheService;
+import com.poc.transaction.service.metrics.StageMetrics;
+import com.poc.transaction.service.outbox.OutboxService;
+import com.poc.transaction.service.pipeline.EventPipeline;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 class AccountServiceImplTest {
 
@@ -31,7 +43,19 @@ class AccountServiceImplTest {
     private CacheService cacheService;
 
     @Mock
-    private AsyncEventDispatcher asyncEventDispatcher;
+    private OutboxService outboxService;
+
+    @Mock
+    private MissingAccountCache missingAccountCache;
+
+    @Mock
+    private EventPipeline eventPipeline;
+
+    @Mock
+    private StageMetrics stageMetrics;
+
+    @Mock
+    private DocumentNumberFilter documentNumberFilter;
 
     @InjectMocks
     private AccountServiceImpl accountService;
@@ -40,6 +64,15 @@ class AccountServiceImplTest {
     void setUp() {
         // set all mocks
         MockitoAnnotations.openMocks(this);
+        // filter not built yet - every document number is looked up
+        when(documentNumberFilter.mightContain(anyString())).thenReturn(true);
+        // single-flight just runs the loader here
+        when(cacheService.load(anyString(), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        // pipeline stages run inline
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(eventPipeline).submit(anyString(), any(Runnable.class));
     }
 
     @Test
@@ -65,6 +98,8 @@ class AccountServiceImplTest {
         assertEquals(1L, response.getAccountId());
         assertEquals("123456789", response.getDocumentNumber());
         verify(accountRepository).save(any(AccountEntity.class));
+        verify(missingAccountCache).clear(1L);
+        verify(outboxService).record(eq(OutboxEventType.ACCOUNT_CREATED), eq(1L), any(AccountResponse.class));
     }
 
     @Test
@@ -87,6 +122,66 @@ class AccountServiceImplTest {
         verify(accountRepository, never()).save(any());
     }
 
+    @Test
+    void createAccount_newDocumentPerFilter_skipsLookup() {
+        AccountRequest request = new AccountRequest("123456789");
+        when(documentNumberFilter.mightContain("123456789")).thenReturn(false);
+        when(accountRepository.save(any(AccountEntity.class)))
+                .thenReturn(AccountEntity.builder().accountId(1L).documentNumber("123456789").build());
+
+        // Act
+        AccountResponse response = accountService.createAccount(request);
+
+        // Assert
+        assertEquals(1L, response.getAccountId());
+        verify(accountRepository, never()).findByDocumentNumber(anyString());
+        verify(documentNumberFilter).add("123456789");
+    }
+
+    @Test
+    void createAccount_uniqueConstraintViolation_throwsConflict() {
+        AccountRequest request = new AccountRequest("123456789");
+        when(documentNumberFilter.mightContain("123456789")).thenReturn(false);
+        when(accountRepository.save(any(AccountEntity.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"));
+
+        // Act & Assert
+        ApiException exception = assertThrows(ApiException.class, () -> accountService.createAccount(request));
+
+        assertEquals("ACCOUNT_EXISTS", exception.getCode());
+        assertEquals(HttpStatus.CONFLICT, exception.getHttpStatus());
+        verify(outboxService, never()).record(any(), any(), any());
+    }
+
+    @Test
+    void createAccounts_reportsCreatedConflictsAndInvalidItems() {
+        // "111" is repeated in the payload, "222" already has an account, the blank one is invalid
+        List<AccountRequest> requests = List.of(new AccountRequest("111"), new AccountRequest("222"),
+                new AccountRequest("111"), new AccountRequest(" "), new AccountRequest("333"));
+        when(accountRepository.insertMissing(List.of("111", "222", "333"))).thenReturn(List.of(
+                AccountEntity.builder().accountId(8L).documentNumber("333").build(),
+                AccountEntity.builder().accountId(7L).documentNumber("111").build()));
+
+        // Act
+        BatchAccountResponse response = accountService.createAccounts(requests);
+
+        // Assert
+        assertEquals(5, response.getTotal());
+        assertEquals(2, response.getCreated());
+        assertEquals(2, response.getConflicts());
+        assertEquals(1, response.getFailed());
+        List<BatchAccountItemResult> results = response.getResults();
+        assertEquals(7L, results.get(0).getAccountId());
+        assertEquals("ACCOUNT_EXISTS", results.get(1).getErrorCode());
+        assertEquals("DUPLICATE_IN_BATCH", results.get(2).getErrorCode());
+        assertEquals("INVALID_DOCUMENT_NUMBER", results.get(3).getErrorCode());
+        assertEquals(8L, results.get(4).getAccountId());
+        verify(accountRepository, never()).findByDocumentNumber(anyString());
+        verify(missingAccountCache).clear(7L);
+        verify(outboxService).record(eq(OutboxEventType.ACCOUNT_CREATED), eq(8L), any(AccountResponse.class));
+        verify(outboxService, times(2)).record(any(), any(), any());
+    }
+
     @Test
     void getAccount_foundInCache() {
         Long accountId = 1L;
@@ -114,6 +209,21 @@ class AccountServiceImplTest {
 
         assertEquals("ACCOUNT_NOT_FOUND", exception.getCode());
         assertEquals(HttpStatus.NOT_FOUND, exception.getHttpStatus());
+        verify(missingAccountCache).markMissing(accountId);
+    }
+
+    @Test
+    void getAccount_knownMissing_skipsDb() {
+        Long accountId = 99L;
+        when(cacheService.get(CACHE_PREFIX + accountId)).thenReturn(null);
+        when(missingAccountCache.isMissing(accountId)).thenReturn(true);
+
+        // Act & Assert
+        ApiException exception = assertThrows(ApiException.class,
+                () -> accountService.getAccount(accountId));
+
+        assertEquals("ACCOUNT_NOT_FOUND", exception.getCode());
+        verify(accountRepository, never()).findById(any());
     }
 
     @Test
@@ -142,5 +252,26 @@ class AccountServiceImplTest {
         assertEquals("123456789", response.getDocumentNumber());
 
         verify(cacheService).set(eq(CACHE_PREFIX + accountId), any(AccountResponse.class));
+        verify(cacheService).load(eq(CACHE_PREFIX + accountId), any());
+    }
+
+    @Test
+    void getBalance_fromMaintainedColumnsWithoutCache() {
+        AccountEntity entity = AccountEntity.builder()
+                .accountId(1L)
+                .documentNumber("123456789")
+                .availableBalance(new BigDecimal("-23.50"))
+                .outstandingDebt(new BigDecimal("73.50"))
+                .build();
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(entity));
+
+        // Act
+        AccountBalanceResponse response = accountService.getBalance(1L);
+
+        // Assert
+        assertEquals(1L, response.getAccountId());
+        assertEquals(new BigDecimal("-23.50"), response.getAvailableBalance());
+        assertEquals(new BigDecimal("73.50"), response.getOutstandingDebt());
+        verifyNoInteractions(cacheService);
     }
 }
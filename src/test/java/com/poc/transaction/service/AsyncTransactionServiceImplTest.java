@@ -0,0 +1,205 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.exception.ApiException;
+import com.poc.transaction.model.request.TransactionRequest;
+import com.poc.transaction.model.response.TransactionResponse;
+import com.poc.transaction.model.response.TransactionStatusResponse;
+import com.poc.transaction.repository.TransactionRepository;
+import com.poc.transaction.repository.OperationTypeRepository;
+import com.poc.transaction.service.cache.InMemoryCacheInvalidationBus;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.poc.transaction.repository.entity.TransactionStatus;
+import com.poc.transaction.service.account.AccountService;
+import com.poc.transaction.service.execution.AccountLaneExecutor;
+import com.poc.transaction.service.transaction.TransactionService;
+import com.poc.transaction.service.transaction.async.AsyncTransactionServiceImpl;
+import com.poc.transaction.service.transaction.async.TransactionWriteAheadLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransactionServiceImplTest {
+
+    @TempDir
+    Path walDirectory;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountService accountService;
+
+    private AccountLaneExecutor laneExecutor;
+    private Duration shutdownTimeout = Duration.ofSeconds(5);
+    private AsyncTransactionServiceImpl asyncService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        laneExecutor = new AccountLaneExecutor(2, new SimpleMeterRegistry());
+        asyncService = start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        asyncService.destroy();
+        laneExecutor.destroy();
+    }
+
+    @Test
+    void testAccept_processesInBackground() throws Exception {
+        when(transactionService.createTransaction(any(TransactionRequest.class), anyString()))
+                .thenReturn(TransactionResponse.builder().transactionId(11L).build());
+
+        TransactionStatusResponse accepted = asyncService.accept(request(1));
+        assertEquals(TransactionStatus.PENDING, accepted.getStatus());
+
+        TransactionStatusResponse done = awaitOutcome(accepted.getReference());
+        assertEquals(TransactionStatus.COMPLETED, done.getStatus());
+        assertEquals(11L, done.getTransactionId());
+        verify(transactionService).createTransaction(any(TransactionRequest.class), eq(accepted.getReference()));
+    }
+
+    @Test
+    void testAccept_businessErrorIsReportedAsFailed() throws Exception {
+        when(transactionService.createTransaction(any(TransactionRequest.class), anyString()))
+                .thenThrow(new ApiException("Insufficient balance", HttpStatus.UNPROCESSABLE_ENTITY, "INSUFFICIENT_BALANCE"));
+
+        TransactionStatusResponse done = awaitOutcome(asyncService.accept(request(1)).getReference());
+
+        assertEquals(TransactionStatus.FAILED, done.getStatus());
+        assertEquals("INSUFFICIENT_BALANCE", done.getErrorCode());
+    }
+
+    @Test
+    void testAccept_transientErrorIsRetried_notFailed() throws Exception {
+        when(transactionService.createTransaction(any(TransactionRequest.class), anyString()))
+                .thenThrow(new CannotCreateTransactionException("Connection refused"))
+                .thenThrow(new CannotCreateTransactionException("Connection refused"))
+                .thenReturn(TransactionResponse.builder().transactionId(12L).build());
+
+        String reference = asyncService.accept(request(1)).getReference();
+        TransactionStatusResponse done = awaitOutcome(reference);
+
+        assertEquals(TransactionStatus.COMPLETED, done.getStatus());
+        assertEquals(12L, done.getTransactionId());
+        // a retry first looks for a commit whose answer was lost
+        verify(transactionRepository, times(2)).findIdByReference(reference);
+    }
+
+    @Test
+    void testAccept_transientErrorStaysOutstandingInLog_untilItGoesThrough() throws Exception {
+        when(transactionService.createTransaction(any(TransactionRequest.class), anyString()))
+                .thenThrow(new CannotCreateTransactionException("Connection refused"));
+        shutdownTimeout = Duration.ofMillis(100);
+        asyncService.destroy();
+        asyncService = start();
+
+        String reference = asyncService.accept(request(1)).getReference();
+        Thread.sleep(100);
+        assertEquals(TransactionStatus.PENDING, asyncService.getStatus(reference).getStatus());
+        asyncService.destroy();
+
+        // next start: the database is back
+        when(transactionService.createTransaction(any(TransactionRequest.class), eq(reference)))
+                .thenReturn(TransactionResponse.builder().transactionId(13L).build());
+        asyncService = start();
+
+        assertEquals(13L, awaitOutcome(reference).getTransactionId());
+    }
+
+    @Test
+    void testAccept_invalidOperationTypeRejectedBeforeQueueing() {
+        ApiException ex = assertThrows(ApiException.class, () -> asyncService.accept(request(9)));
+
+        assertEquals("INVALID_OPERATION_TYPE", ex.getCode());
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void testRun_replaysOutstandingAndSkipsAlreadyWritten() throws Exception {
+        asyncService.destroy();
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(walDirectory, Long.MAX_VALUE)) {
+            log.replay();
+            log.appendAccepted("written", request(1));
+            log.appendAccepted("queued", request(1));
+        }
+        when(transactionRepository.findIdByReference("written")).thenReturn(Optional.of(5L));
+        when(transactionRepository.findIdByReference("queued")).thenReturn(Optional.empty());
+        when(transactionService.createTransaction(any(TransactionRequest.class), eq("queued")))
+                .thenReturn(TransactionResponse.builder().transactionId(6L).build());
+
+        asyncService = start();
+
+        assertEquals(5L, awaitOutcome("written").getTransactionId());
+        assertEquals(6L, awaitOutcome("queued").getTransactionId());
+        verify(transactionService, never()).createTransaction(any(TransactionRequest.class), eq("written"));
+    }
+
+    @Test
+    void testGetStatus_unknownReference() {
+        when(transactionRepository.findIdByReference("missing")).thenReturn(Optional.empty());
+
+        ApiException ex = assertThrows(ApiException.class, () -> asyncService.getStatus("missing"));
+
+        assertEquals("REFERENCE_NOT_FOUND", ex.getCode());
+    }
+
+    private AsyncTransactionServiceImpl start() throws Exception {
+        AsyncTransactionServiceImpl service = new AsyncTransactionServiceImpl(transactionService, transactionRepository,
+                accountService, laneExecutor,
+                new OperationTypeCatalog(mock(OperationTypeRepository.class), new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                        new InMemoryCacheInvalidationBus()),
+                walDirectory, DataSize.ofMegabytes(1), 100, Duration.ofMinutes(5),
+                shutdownTimeout, Duration.ofMillis(10), Duration.ofMillis(50), new SimpleMeterRegistry());
+        service.run(null);
+        return service;
+    }
+
+    private TransactionStatusResponse awaitOutcome(String reference) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        TransactionStatusResponse status = asyncService.getStatus(reference);
+        while (status.getStatus() == TransactionStatus.PENDING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = asyncService.getStatus(reference);
+        }
+        return status;
+    }
+
+    private TransactionRequest request(int operationTypeId) {
+        return TransactionRequest.builder()
+                .accountId(1L)
+                .operationTypeId(operationTypeId)
+                .amount(new BigDecimal("10.00"))
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.poc.transaction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.poc.transaction.model.response.AccountResponse;
+import com.poc.transaction.model.response.TransactionResponse;
+import com.poc.transaction.service.cache.codec.CacheCodecProperties;
+import com.poc.transaction.service.cache.codec.CacheCodecs;
+import com.poc.transaction.service.idempotency.IdempotencyRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheCodecsTest {
+
+    private final RedisSerializer<Object> json = GenericJackson2JsonRedisSerializer.builder()
+            .objectMapper(new ObjectMapper().registerModule(new JavaTimeModule()))
+            .defaultTyping(true)
+            .build();
+
+    private final CacheCodecs codecs = new CacheCodecs(
+            new CacheCodecProperties(CacheCodecs.JSON, Map.of("account", CacheCodecs.BINARY, "idempotency", CacheCodecs.BINARY),
+                    DataSize.ofBytes(64)), json);
+
+    @Test
+    void testAccountResponse_binaryRoundTripIsSmallerThanJson() {
+        AccountResponse account = AccountResponse.builder().accountId(123456L).documentNumber("12345678900").build();
+
+        byte[] binary = codecs.forKey("account:123456").serialize(account);
+
+        assertEquals(account, codecs.forKey("account:123456").deserialize(binary));
+        assertTrue(binary.length * 4 < json.serialize(account).length, "binary=" + binary.length);
+    }
+
+    @Test
+    void testTransactionResponse_roundTripKeepsAllFields() {
+        TransactionResponse transaction = TransactionResponse.builder()
+                .transactionId(42L)
+                .accountId(7L)
+                .operationTypeId(4)
+                .amount(new BigDecimal("-123.45"))
+                .balance(new BigDecimal("12345678901234567890.12"))
+                .eventDate(LocalDateTime.of(2025, 3, 1, 10, 15, 30, 123456789))
+                .build();
+        IdempotencyRecord record = IdempotencyRecord.completed("7|4|123.45", transaction);
+
+        IdempotencyRecord decoded = (IdempotencyRecord) codecs.forKey("idempotency:transaction:k1")
+                .deserialize(codecs.forKey("idempotency:transaction:k1").serialize(record));
+
+        assertEquals(record, decoded);
+        assertEquals(new BigDecimal("12345678901234567890.12"), decoded.getResponse().getBalance());
+    }
+
+    @Test
+    void testIdempotencyRecord_roundTripKeepsAcceptedReference() {
+        IdempotencyRecord record = IdempotencyRecord.accepted("accept|7|4|123.45", "0b9f6c1e-ref");
+
+        IdempotencyRecord decoded = (IdempotencyRecord) codecs.forKey("idempotency:transaction:k1")
+                .deserialize(codecs.forKey("idempotency:transaction:k1").serialize(record));
+
+        assertEquals(record, decoded);
+        assertTrue(decoded.isCompleted());
+    }
+
+    @Test
+    void testLargePayload_isCompressed() {
+        AccountResponse account = AccountResponse.builder().accountId(1L).documentNumber("9".repeat(1_000)).build();
+
+        byte[] binary = codecs.forKey("account:1").serialize(account);
+
+        assertTrue(binary.length < 100, "binary=" + binary.length);
+        assertEquals(account, codecs.forKey("account:1").deserialize(binary));
+    }
+
+    @Test
+    void testFormats_readEachOther() {
+        AccountResponse account = AccountResponse.builder().accountId(1L).documentNumber("123").build();
+
+        // values written before a region switched format stay readable
+        byte[] asJson = codecs.forKey("other:1").serialize(account);
+        byte[] asBinary = codecs.forKey("account:1").serialize(account);
+
+        assertEquals('{', asJson[0]);
+        assertEquals(account, codecs.forKey("account:1").deserialize(asJson));
+        assertEquals(account, codecs.forKey("other:1").deserialize(asBinary));
+    }
+}
@@ -0,0 +1,110 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.model.response.AccountResponse;
+import com.poc.transaction.service.cache.CacheServiceImpl;
+import com.poc.transaction.service.cache.InMemoryCacheInvalidationBus;
+import com.poc.transaction.service.cache.codec.CacheCodecProperties;
+import com.poc.transaction.service.cache.codec.CacheCodecs;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheServiceImplTest {
+
+    private static final String KEY = "account:1";
+
+    @Mock
+    private RedisTemplate<String, byte[]> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, byte[]> valueOperations;
+
+    private final CacheCodecs codecs = new CacheCodecs(
+            new CacheCodecProperties(CacheCodecs.BINARY, null, null), RedisSerializer.json());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InMemoryCacheInvalidationBus bus = new InMemoryCacheInvalidationBus();
+    private CacheServiceImpl node1;
+    private CacheServiceImpl node2;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        node1 = cache();
+        node2 = cache();
+    }
+
+    @Test
+    void testGet_servedFromNearCacheAfterFirstRead() {
+        AccountResponse account = AccountResponse.builder().accountId(1L).documentNumber("123").build();
+        when(valueOperations.get(KEY)).thenReturn(encode(account));
+
+        assertEquals(account, node1.get(KEY));
+        assertEquals(account, node1.get(KEY));
+
+        verify(valueOperations, times(1)).get(KEY);
+        assertEquals(1, meterRegistry.get("cache.get").tags("tier", "l1", "result", "hit").timer().count());
+        assertEquals(1, meterRegistry.get("cache.get").tags("tier", "l2", "result", "hit").timer().count());
+    }
+
+    @Test
+    void testSet_invalidatesOtherNodes() {
+        AccountResponse stale = AccountResponse.builder().accountId(1L).documentNumber("old").build();
+        AccountResponse fresh = AccountResponse.builder().accountId(1L).documentNumber("new").build();
+        when(valueOperations.get(KEY)).thenReturn(encode(stale), encode(fresh));
+        node2.get(KEY);
+
+        node1.set(KEY, fresh);
+
+        // node1 keeps its own write in L1, node2 dropped its copy and re-reads Redis
+        assertEquals(fresh, node1.get(KEY));
+        assertEquals(fresh, node2.get(KEY));
+        verify(valueOperations, times(2)).get(KEY);
+    }
+
+    @Test
+    void testPutAll_writesOnePipelineAndFillsNearCache() {
+        AccountResponse first = AccountResponse.builder().accountId(1L).documentNumber("111").build();
+        AccountResponse second = AccountResponse.builder().accountId(2L).documentNumber("222").build();
+
+        node1.putAll(Map.of(KEY, first, "account:2", second));
+
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        assertEquals(first, node1.get(KEY));
+        assertEquals(second, node1.get("account:2"));
+        verify(valueOperations, never()).get(anyString());
+    }
+
+    @Test
+    void testRemove_dropsBothTiers() {
+        node1.set(KEY, AccountResponse.builder().accountId(1L).build());
+
+        node1.remove(KEY);
+
+        verify(redisTemplate).delete(KEY);
+        assertNull(node1.get(KEY));
+    }
+
+    private byte[] encode(Object value) {
+        return codecs.forKey(KEY).serialize(value);
+    }
+
+    private CacheServiceImpl cache() {
+        return new CacheServiceImpl(redisTemplate, codecs, bus, Duration.ofMinutes(10), DataSize.ofMegabytes(1), Duration.ofSeconds(30), meterRegistry);
+    }
+}
@@ -0,0 +1,134 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.exception.ApiException;
+import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.service.execution.ConflictRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConflictRetryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConflictRetry retry = new ConflictRetry(4, Duration.ofMillis(1), Duration.ofMillis(2), meterRegistry);
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Test
+    void execute_reRunsConflicts_untilOneCommits() {
+        String result = retry.execute(() -> {
+            switch (attempts.incrementAndGet()) {
+                case 1 -> throw new ObjectOptimisticLockingFailureException(AccountEntity.class, 1L);
+                case 2 -> throw new CannotAcquireLockException("deadlock detected");
+                default -> {
+                    return "committed";
+                }
+            }
+        });
+
+        assertEquals("committed", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2.0, count("transaction.concurrency.conflicts"));
+        assertEquals(2.0, count("transaction.concurrency.retries"));
+        assertEquals(0.0, count("transaction.concurrency.exhausted"));
+    }
+
+    @Test
+    void execute_givesUpWith409_afterMaxAttempts() {
+        ApiException exception = assertThrows(ApiException.class, () -> retry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(AccountEntity.class, 1L);
+        }));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getHttpStatus());
+        assertEquals("CONCURRENT_UPDATE", exception.getCode());
+        assertEquals(4, attempts.get());
+        assertEquals(4.0, count("transaction.concurrency.conflicts"));
+        assertEquals(3.0, count("transaction.concurrency.retries"));
+        assertEquals(1.0, count("transaction.concurrency.exhausted"));
+    }
+
+    @Test
+    void execute_rethrowsOtherErrors_withoutRetrying() {
+        assertThrows(DataIntegrityViolationException.class, () -> retry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new DataIntegrityViolationException("duplicate reference");
+        }));
+
+        assertEquals(1, attempts.get());
+        assertEquals(0.0, count("transaction.concurrency.conflicts"));
+    }
+
+    @Test
+    void execute_leavesRetryToOutermostTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThrows(ObjectOptimisticLockingFailureException.class, () -> retry.execute(() -> {
+                attempts.incrementAndGet();
+                throw new ObjectOptimisticLockingFailureException(AccountEntity.class, 1L);
+            }));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void submit_queuesConflictsAgain_untilOneCommits() {
+        CompletableFuture<String> result = retry.submit(() -> attempts.incrementAndGet() < 3
+                ? CompletableFuture.failedFuture(new ObjectOptimisticLockingFailureException(AccountEntity.class, 1L))
+                : CompletableFuture.completedFuture("committed"));
+
+        assertEquals("committed", result.join());
+        assertEquals(3, attempts.get());
+        assertEquals(2.0, count("transaction.concurrency.retries"));
+    }
+
+    @Test
+    void submit_waitsOutBackoffOffTheCallingThread() {
+        ConflictRetry slow = new ConflictRetry(2, Duration.ofSeconds(5), Duration.ofSeconds(5), meterRegistry);
+        try {
+            long start = System.nanoTime();
+            CompletableFuture<String> result = slow.submit(() -> {
+                attempts.incrementAndGet();
+                return CompletableFuture.failedFuture(new CannotAcquireLockException("deadlock detected"));
+            });
+
+            // the caller (a lane) is free again at once, the retry is pending on the scheduler
+            assertTrue(System.nanoTime() - start < Duration.ofSeconds(1).toNanos());
+            assertEquals(1, attempts.get());
+            assertFalse(result.isDone());
+        } finally {
+            slow.destroy();
+        }
+    }
+
+    @Test
+    void submit_givesUpWith409_andPassesOtherErrorsOn() {
+        CompletionException exhausted = assertThrows(CompletionException.class, () -> retry.submit(() -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new ObjectOptimisticLockingFailureException(AccountEntity.class, 1L));
+        }).join());
+        CompletionException other = assertThrows(CompletionException.class, () -> retry.submit(() ->
+                CompletableFuture.failedFuture(new DataIntegrityViolationException("duplicate reference"))).join());
+
+        assertEquals("CONCURRENT_UPDATE", ((ApiException) exhausted.getCause()).getCode());
+        assertEquals(4, attempts.get());
+        assertInstanceOf(DataIntegrityViolationException.class, other.getCause());
+    }
+
+    private double count(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+}
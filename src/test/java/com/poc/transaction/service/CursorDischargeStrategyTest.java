@@ -0,0 +1,144 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.repository.OpenItemOrder;
+import com.poc.transaction.repository.OperationTypeRepository;
+import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.entity.OpenTransactionEntity;
+import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.repository.memory.InMemoryOpenTransactionRepository;
+import com.poc.transaction.repository.memory.InMemoryTransactionRepository;
+import com.poc.transaction.service.cache.InMemoryCacheInvalidationBus;
+import com.poc.transaction.service.metrics.StageMetrics;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.service.transaction.discharge.CursorDischargeStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class CursorDischargeStrategyTest {
+
+    private static final long ACCOUNT_ID = 1L;
+
+    private final InMemoryOpenTransactionRepository openTransactionRepository = new InMemoryOpenTransactionRepository();
+    private final InMemoryTransactionRepository transactionRepository = new InMemoryTransactionRepository(openTransactionRepository);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StageMetrics stageMetrics = new StageMetrics(meterRegistry, 1);
+    private final OperationTypeCatalog operationTypeCatalog = new OperationTypeCatalog(mock(OperationTypeRepository.class),
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), new InMemoryCacheInvalidationBus());
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    void oldestFirst_paysInEventDateOrder() {
+        TransactionEntity first = purchase(1, "-50.00", now.minusDays(3));
+        TransactionEntity second = purchase(2, "-80.00", now.minusDays(2));
+        TransactionEntity third = purchase(3, "-20.00", now.minusDays(1));
+
+        long remaining = strategy(OpenItemOrder.OLDEST_FIRST, List.of()).discharge(payment("60.00"), 0L, true);
+
+        assertEquals(0, remaining);
+        assertEquals(new BigDecimal("0.00"), balance(first));
+        assertEquals(new BigDecimal("-70.00"), balance(second));
+        assertEquals(new BigDecimal("-20.00"), balance(third));
+    }
+
+    @Test
+    void highestBalanceFirst_paysLargestDebtFirst_oldestOnTies() {
+        TransactionEntity small = purchase(1, "-50.00", now.minusDays(3));
+        TransactionEntity older = purchase(2, "-80.00", now.minusDays(2));
+        TransactionEntity newer = purchase(1, "-80.00", now.minusHours(1));
+
+        strategy(OpenItemOrder.HIGHEST_BALANCE_FIRST, List.of()).discharge(payment("100.00"), 0L, true);
+
+        assertEquals(new BigDecimal("0.00"), balance(older));
+        assertEquals(new BigDecimal("-60.00"), balance(newer));
+        assertEquals(new BigDecimal("-50.00"), balance(small));
+    }
+
+    @Test
+    void typePriority_paysListedTypesFirst_unlistedLast_andSkipsFuturePurchases() {
+        TransactionEntity unlisted = purchase(1, "-50.00", now.minusDays(3));
+        TransactionEntity installment = purchase(2, "-80.00", now.minusDays(2));
+        TransactionEntity withdrawal = purchase(3, "-20.00", now.minusDays(1));
+        TransactionEntity future = purchase(3, "-10.00", now.plusDays(1));
+
+        long remaining = strategy(OpenItemOrder.TYPE_PRIORITY, List.of(3, 2)).discharge(payment("120.00"), 0L, true);
+
+        assertEquals(0, remaining);
+        assertEquals(new BigDecimal("0.00"), balance(withdrawal));
+        assertEquals(new BigDecimal("0.00"), balance(installment));
+        assertEquals(new BigDecimal("-30.00"), balance(unlisted));
+        assertEquals(new BigDecimal("-10.00"), balance(future));
+        // paid off purchases leave the open items
+        assertEquals(2, openTransactionRepository.fetchOpenItems(ACCOUNT_ID, List.of(1, 2, 3)).size());
+    }
+
+    @Test
+    void discharge_stopsReading_whenPaymentIsUsedUp() {
+        for (int i = 0; i < 1_000; i++) {
+            purchase(1, "-10.00", now.minusDays(2).plusSeconds(i));
+        }
+
+        long remaining = strategy(OpenItemOrder.OLDEST_FIRST, List.of()).discharge(payment("15.00"), 0L, true);
+
+        assertEquals(0, remaining);
+        // a payment covering 2 purchases of a backlog of 1000 reads 2
+        assertEquals(2.0, meterRegistry.get("transaction.discharge.scanned").summary().totalAmount());
+        assertEquals(999, openTransactionRepository.fetchOpenItems(ACCOUNT_ID, List.of(1, 2, 3)).size());
+    }
+
+    @Test
+    void discharge_returnsRest_whenPaymentExceedsDebt() {
+        purchase(1, "-10.00", now.minusDays(1));
+        TransactionEntity payment = payment("25.50");
+
+        long remaining = strategy(OpenItemOrder.OLDEST_FIRST, List.of()).discharge(payment, 0L, true);
+
+        assertEquals(1550, remaining);
+        assertEquals(new BigDecimal("15.50"), payment.getBalance());
+        assertEquals(0, openTransactionRepository.fetchOpenItems(ACCOUNT_ID, List.of(1, 2, 3)).size());
+    }
+
+    private CursorDischargeStrategy strategy(OpenItemOrder order, List<Integer> typePriority) {
+        return new CursorDischargeStrategy(transactionRepository, openTransactionRepository, stageMetrics,
+                operationTypeCatalog, order, typePriority, 4);
+    }
+
+    private TransactionEntity purchase(int operationTypeId, String amount, LocalDateTime eventDate) {
+        TransactionEntity transaction = transactionRepository.save(TransactionEntity.builder()
+                .account(AccountEntity.builder().accountId(ACCOUNT_ID).build())
+                .operationTypeId(operationTypeId)
+                .amount(new BigDecimal(amount))
+                .balance(new BigDecimal(amount))
+                .eventDate(eventDate)
+                .build());
+        openTransactionRepository.save(OpenTransactionEntity.builder()
+                .transactionId(transaction.getTransactionId())
+                .accountId(ACCOUNT_ID)
+                .operationTypeId(operationTypeId)
+                .eventDate(eventDate)
+                .balance(transaction.getBalance())
+                .build());
+        return transaction;
+    }
+
+    private TransactionEntity payment(String amount) {
+        return transactionRepository.save(TransactionEntity.builder()
+                .account(AccountEntity.builder().accountId(ACCOUNT_ID).build())
+                .operationTypeId(4)
+                .amount(new BigDecimal(amount))
+                .eventDate(now)
+                .build());
+    }
+
+    private BigDecimal balance(TransactionEntity transaction) {
+        return transactionRepository.findById(transaction.getTransactionId()).orElseThrow().getBalance();
+    }
+}
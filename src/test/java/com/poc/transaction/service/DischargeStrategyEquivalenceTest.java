@@ -0,0 +1,151 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.repository.OpenItemOrder;
+import com.poc.transaction.repository.OperationTypeRepository;
+import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.entity.OpenTransactionEntity;
+import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.repository.memory.InMemoryOpenTransactionRepository;
+import com.poc.transaction.repository.memory.InMemoryTransactionRepository;
+import com.poc.transaction.service.cache.InMemoryCacheInvalidationBus;
+import com.poc.transaction.service.metrics.StageMetrics;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.service.transaction.discharge.CursorDischargeStrategy;
+import com.poc.transaction.service.transaction.discharge.DischargeStrategy;
+import com.poc.transaction.service.transaction.discharge.EntityDischargeStrategy;
+import com.poc.transaction.service.transaction.discharge.LedgerDischargeStrategy;
+import com.poc.transaction.service.transaction.discharge.SqlDischargeStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the same random histories (purchases, partial and over-payments, purchases dated after the payments) through
+ * every discharge strategy on the in-memory backend and expects the same remainders and balances from all of them.
+ * "ledger-replicas" is three ledger nodes sharing the database, taking the operations in turn.
+ */
+class DischargeStrategyEquivalenceTest {
+
+    private static final int ACCOUNTS = 5;
+    private static final int OPERATIONS = 2_000;
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 7, 42, 1234, 987654321})
+    void allStrategiesAgree_onRandomHistories(long seed) {
+        List<World> worlds = List.of(new World("ledger"), new World("entity"), new World("sql"), new World("cursor"),
+                new World("ledger-replicas"));
+        Random random = new Random(seed);
+        LocalDateTime now = LocalDateTime.now();
+        // the last ~5% of the history is dated in the future: not due yet, payments must leave it alone
+        LocalDateTime eventDate = now.minusSeconds(OPERATIONS * 29L); // steps of 30.5s on average
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            long accountId = 1 + random.nextInt(ACCOUNTS);
+            boolean payment = random.nextInt(3) == 0;
+            // up to 200.00 per purchase, payments between a cent and 500.00 - some pay several purchases, some more than is owed
+            BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(payment ? 50_000 : 20_000), 2);
+            int operationTypeId = payment ? 4 : 1 + random.nextInt(3);
+            eventDate = eventDate.plusSeconds(1 + random.nextInt(60));
+
+            List<Long> remainders = new ArrayList<>();
+            for (World world : worlds) {
+                remainders.add(world.record(accountId, operationTypeId, payment ? amount : amount.negate(), eventDate));
+            }
+            for (int w = 1; w < worlds.size(); w++) {
+                assertEquals(remainders.get(0), remainders.get(w), worlds.get(w).name + " remainder of operation " + i);
+            }
+        }
+
+        for (int w = 1; w < worlds.size(); w++) {
+            assertEquals(worlds.get(0).balances(), worlds.get(w).balances(), worlds.get(w).name + " transaction balances");
+            assertEquals(worlds.get(0).openItems(), worlds.get(w).openItems(), worlds.get(w).name + " open items");
+        }
+    }
+
+    // one in-memory database per strategy
+    private static final class World {
+
+        private final String name;
+        private final InMemoryOpenTransactionRepository openTransactionRepository = new InMemoryOpenTransactionRepository();
+        private final InMemoryTransactionRepository transactionRepository = new InMemoryTransactionRepository(openTransactionRepository);
+        private final List<DischargeStrategy> nodes;
+        private int operations;
+        // account versions, moved on by every transaction like AccountRepository does
+        private final Map<Long, Long> versions = new HashMap<>();
+
+        private World(String name) {
+            this.name = name;
+            StageMetrics stageMetrics = new StageMetrics(new SimpleMeterRegistry(), 1);
+            OperationTypeCatalog operationTypeCatalog = new OperationTypeCatalog(mock(OperationTypeRepository.class),
+                    new TransactionTemplate(mock(PlatformTransactionManager.class)), new InMemoryCacheInvalidationBus());
+            this.nodes = switch (name) {
+                case "ledger" -> List.of(ledger(stageMetrics, operationTypeCatalog));
+                case "ledger-replicas" -> List.of(ledger(stageMetrics, operationTypeCatalog), ledger(stageMetrics, operationTypeCatalog),
+                        ledger(stageMetrics, operationTypeCatalog));
+                case "entity" -> List.of(new EntityDischargeStrategy(transactionRepository, openTransactionRepository, stageMetrics,
+                        operationTypeCatalog));
+                case "cursor" -> List.of(new CursorDischargeStrategy(transactionRepository, openTransactionRepository, stageMetrics,
+                        operationTypeCatalog, OpenItemOrder.OLDEST_FIRST, List.of(), 4));
+                default -> List.of(new SqlDischargeStrategy(transactionRepository, stageMetrics, operationTypeCatalog));
+            };
+        }
+
+        private LedgerDischargeStrategy ledger(StageMetrics stageMetrics, OperationTypeCatalog operationTypeCatalog) {
+            return new LedgerDischargeStrategy(transactionRepository, openTransactionRepository, 1_000_000,
+                    Duration.ofMinutes(5), new SimpleMeterRegistry(), stageMetrics, operationTypeCatalog);
+        }
+
+        // what TransactionServiceImpl.record does around the strategy
+        private long record(long accountId, int operationTypeId, BigDecimal amount, LocalDateTime eventDate) {
+            DischargeStrategy strategy = nodes.get(operations++ % nodes.size());
+            long version = versions.getOrDefault(accountId, 0L);
+            versions.put(accountId, version + 1);
+            TransactionEntity transaction = transactionRepository.save(TransactionEntity.builder()
+                    .account(AccountEntity.builder().accountId(accountId).build())
+                    .operationTypeId(operationTypeId)
+                    .amount(amount)
+                    .balance(amount)
+                    .eventDate(eventDate)
+                    .build());
+            if (amount.signum() < 0) {
+                openTransactionRepository.save(OpenTransactionEntity.builder()
+                        .transactionId(transaction.getTransactionId())
+                        .accountId(accountId)
+                        .operationTypeId(operationTypeId)
+                        .eventDate(eventDate)
+                        .balance(amount)
+                        .build());
+                strategy.onRecorded(transaction);
+                return 0;
+            }
+            return strategy.discharge(transaction, version, true);
+        }
+
+        private Map<Long, BigDecimal> balances() {
+            Map<Long, BigDecimal> balances = new TreeMap<>();
+            transactionRepository.findAll().forEach(t -> balances.put(t.getTransactionId(), t.getBalance().setScale(2)));
+            return balances;
+        }
+
+        private Map<Long, BigDecimal> openItems() {
+            Map<Long, BigDecimal> items = new TreeMap<>();
+            openTransactionRepository.findAll().forEach(o -> items.put(o.getTransactionId(), o.getBalance().setScale(2)));
+            return items;
+        }
+    }
+}
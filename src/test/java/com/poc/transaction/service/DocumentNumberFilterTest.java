@@ -0,0 +1,66 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.memory.InMemoryAccountRepository;
+import com.poc.transaction.service.account.DocumentNumberFilter;
+import com.poc.transaction.utils.BloomFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class DocumentNumberFilterTest {
+
+    private final InMemoryAccountRepository accountRepository = new InMemoryAccountRepository();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void mightContain_maybeForEverything_untilBuilt() {
+        accountRepository.save(AccountEntity.builder().documentNumber("111").build());
+        DocumentNumberFilter filter = filter(true);
+
+        assertTrue(filter.mightContain("999"));
+
+        filter.load();
+
+        assertTrue(filter.mightContain("111"));
+        assertFalse(filter.mightContain("999"));
+        filter.add("999");
+        assertTrue(filter.mightContain("999"));
+        assertEquals(1, meterRegistry.get("account.document.filter").tag("result", "absent").counter().count());
+    }
+
+    @Test
+    void mightContain_alwaysMaybe_whenDisabled() {
+        DocumentNumberFilter filter = filter(false);
+        filter.load();
+
+        assertTrue(filter.mightContain("999"));
+    }
+
+    @Test
+    void bloomFilter_falsePositiveRateAsSized() {
+        BloomFilter bloomFilter = BloomFilter.create(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            bloomFilter.put("doc-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(bloomFilter.mightContain("doc-" + i)); // never a false negative
+            if (bloomFilter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertEquals(7, bloomFilter.hashCount());
+        assertTrue(falsePositives < 1_500, "false positives: " + falsePositives);
+    }
+
+    private DocumentNumberFilter filter(boolean enabled) {
+        return new DocumentNumberFilter(accountRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                enabled, 1000, 0.01, meterRegistry);
+    }
+}
@@ -0,0 +1,162 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.exception.ApiException;
+import com.poc.transaction.service.execution.AccountLaneExecutor;
+import com.poc.transaction.service.execution.ConflictRetry;
+import com.poc.transaction.service.execution.GroupCommitter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class GroupCommitterTest {
+
+    private AccountLaneExecutor laneExecutor;
+    private PlatformTransactionManager transactionManager;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // one lane, so every account shares the same group
+        laneExecutor = new AccountLaneExecutor(1, new SimpleMeterRegistry());
+        transactionManager = mock(PlatformTransactionManager.class);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        laneExecutor.destroy();
+    }
+
+    @Test
+    void testSubmit_concurrentWorkSharesOneTransaction() {
+        GroupCommitter committer = committer(Duration.ofSeconds(5), 4);
+
+        // a full batch is flushed right away instead of waiting out the window
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[4];
+        for (int i = 0; i < futures.length; i++) {
+            int value = i;
+            futures[i] = committer.submit((long) i, () -> value);
+        }
+        CompletableFuture.allOf(futures).orTimeout(2, TimeUnit.SECONDS).join();
+
+        for (int i = 0; i < futures.length; i++) {
+            assertEquals(i, futures[i].join());
+        }
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void testSubmit_businessErrorOnlyFailsItsItem() {
+        GroupCommitter committer = committer(Duration.ofSeconds(5), 3);
+
+        CompletableFuture<String> first = committer.submit(1L, () -> "first");
+        CompletableFuture<String> failing = committer.submit(2L, () -> {
+            throw new ApiException("Account not found", HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+        });
+        CompletableFuture<String> last = committer.submit(3L, () -> "last");
+
+        assertEquals("first", first.join());
+        assertEquals("last", last.join());
+        CompletionException ex = assertThrows(CompletionException.class, failing::join);
+        assertEquals("ACCOUNT_NOT_FOUND", ((ApiException) ex.getCause()).getCode());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void testSubmit_brokenTransactionIsRetriedItemByItem() {
+        GroupCommitter committer = committer(Duration.ofSeconds(5), 3);
+        AtomicInteger firstRuns = new AtomicInteger();
+
+        CompletableFuture<String> first = committer.submit(1L, () -> {
+            firstRuns.incrementAndGet();
+            return "first";
+        });
+        CompletableFuture<String> broken = committer.submit(2L, () -> {
+            throw new IllegalStateException("constraint violated");
+        });
+        CompletableFuture<String> last = committer.submit(3L, () -> "last");
+
+        assertEquals("first", first.join());
+        assertEquals("last", last.join());
+        assertThrows(CompletionException.class, broken::join);
+        // shared attempt rolled back, then one transaction per item
+        assertEquals(2, firstRuns.get());
+        verify(transactionManager, times(4)).getTransaction(any());
+        verify(transactionManager, times(2)).rollback(any());
+    }
+
+    @Test
+    void testSubmit_conflictIsQueuedAgain_withoutStallingTheLane() {
+        GroupCommitter committer = new GroupCommitter(laneExecutor, transactionTemplate,
+                new ConflictRetry(3, Duration.ofMillis(300), Duration.ofMillis(300), new SimpleMeterRegistry()),
+                Duration.ZERO, 1, new SimpleMeterRegistry());
+        AtomicInteger conflictingRuns = new AtomicInteger();
+
+        CompletableFuture<String> conflicting = committer.submit(1L, () -> {
+            if (conflictingRuns.incrementAndGet() == 1) {
+                throw new CannotAcquireLockException("deadlock detected");
+            }
+            return "retried";
+        });
+        // same lane, queued behind the conflict - done while the first one still waits out its backoff
+        CompletableFuture<String> next = committer.submit(2L, () -> "next");
+
+        assertEquals("next", next.orTimeout(200, TimeUnit.MILLISECONDS).join());
+        assertFalse(conflicting.isDone());
+        assertEquals("retried", conflicting.orTimeout(2, TimeUnit.SECONDS).join());
+        assertEquals(2, conflictingRuns.get());
+    }
+
+    @Test
+    void testSubmit_conflictInGroupRequeuesEveryItem() {
+        GroupCommitter committer = committer(Duration.ofSeconds(5), 2);
+        AtomicInteger runs = new AtomicInteger();
+
+        CompletableFuture<String> first = committer.submit(1L, () -> {
+            if (runs.incrementAndGet() == 1) {
+                throw new CannotAcquireLockException("deadlock detected");
+            }
+            return "first";
+        });
+        CompletableFuture<String> second = committer.submit(2L, () -> "second");
+
+        assertEquals("first", first.orTimeout(2, TimeUnit.SECONDS).join());
+        assertEquals("second", second.orTimeout(2, TimeUnit.SECONDS).join());
+        // no one-by-one rerun of the rolled back group, both went back through the retry
+        assertEquals(2, runs.get());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    void testExecute_zeroWindowCommitsEachItem() {
+        GroupCommitter committer = committer(Duration.ZERO, 32);
+
+        assertEquals("a", committer.execute(1L, () -> "a"));
+        assertEquals("b", committer.execute(2L, () -> "b"));
+
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    private GroupCommitter committer(Duration window, int maxBatch) {
+        return new GroupCommitter(laneExecutor, transactionTemplate,
+                new ConflictRetry(3, Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry()), window, maxBatch, new SimpleMeterRegistry());
+    }
+}
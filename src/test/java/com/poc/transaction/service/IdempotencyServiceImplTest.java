@@ -0,0 +1,161 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.exception.ApiException;
+import com.poc.transaction.model.request.TransactionRequest;
+import com.poc.transaction.model.response.TransactionResponse;
+import com.poc.transaction.service.idempotency.IdempotencyRecord;
+import com.poc.transaction.service.idempotency.IdempotencyService.IdempotentAccept;
+import com.poc.transaction.service.idempotency.IdempotencyService.IdempotentResponse;
+import com.poc.transaction.service.idempotency.IdempotencyServiceImpl;
+import com.poc.transaction.service.idempotency.InMemoryIdempotencyStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceImplTest {
+
+    private InMemoryIdempotencyStore store;
+    private IdempotencyServiceImpl idempotencyService;
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryIdempotencyStore();
+        idempotencyService = new IdempotencyServiceImpl(store, Duration.ofHours(1), Duration.ofSeconds(30),
+                Duration.ofSeconds(2), 100, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testExecute_replaysCompletedKey() {
+        IdempotentResponse first = idempotencyService.execute("k1", request("10.00"), this::create);
+        IdempotentResponse retry = idempotencyService.execute("k1", request("10"), this::create);
+
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals(first.response().getTransactionId(), retry.response().getTransactionId());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testExecute_concurrentDuplicateWaitsForFirst() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<IdempotentResponse> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("k1", request("10"), () -> {
+                    running.countDown();
+                    await(release);
+                    return create();
+                }));
+        assertTrue(running.await(1, TimeUnit.SECONDS));
+        CompletableFuture<IdempotentResponse> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("k1", request("10"), this::create));
+
+        release.countDown();
+
+        assertEquals(first.get(1, TimeUnit.SECONDS).response().getTransactionId(),
+                duplicate.get(1, TimeUnit.SECONDS).response().getTransactionId());
+        assertTrue(duplicate.get().replayed());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testExecute_waitsForClaimHeldByAnotherNode() throws Exception {
+        // claim taken by another node, which completes it a bit later
+        store.putIfAbsent("idempotency:transaction:k1", IdempotencyRecord.inProgress("1|1|10"), Duration.ofSeconds(30));
+        TransactionResponse theirs = TransactionResponse.builder().transactionId(42L).build();
+        CompletableFuture.runAsync(() -> {
+            sleep(50);
+            store.put("idempotency:transaction:k1", IdempotencyRecord.completed("1|1|10", theirs), Duration.ofHours(1));
+        });
+
+        IdempotentResponse result = idempotencyService.execute("k1", request("10"), this::create);
+
+        assertTrue(result.replayed());
+        assertEquals(42L, result.response().getTransactionId());
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void testExecute_keyReusedForDifferentRequest() {
+        idempotencyService.execute("k1", request("10"), this::create);
+
+        ApiException exception = assertThrows(ApiException.class,
+                () -> idempotencyService.execute("k1", request("11"), this::create));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getHttpStatus());
+        assertEquals("IDEMPOTENCY_KEY_REUSED", exception.getCode());
+    }
+
+    @Test
+    void testExecute_failureFreesKey() {
+        assertThrows(ApiException.class, () -> idempotencyService.execute("k1", request("10"), () -> {
+            throw new ApiException("Account not found", HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+        }));
+
+        IdempotentResponse retry = idempotencyService.execute("k1", request("10"), this::create);
+
+        assertFalse(retry.replayed());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testAccept_replaysReferenceOfFirstAccept() {
+        IdempotentAccept first = idempotencyService.accept("k1", request("10.00"), () -> "ref-" + executions.incrementAndGet());
+        IdempotentAccept retry = idempotencyService.accept("k1", request("10"), () -> "ref-" + executions.incrementAndGet());
+
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals("ref-1", retry.reference());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testAccept_keyOfSynchronousRequestIsNotReplayedAsAccept() {
+        idempotencyService.execute("k1", request("10"), this::create);
+
+        ApiException exception = assertThrows(ApiException.class,
+                () -> idempotencyService.accept("k1", request("10"), () -> "ref"));
+
+        assertEquals("IDEMPOTENCY_KEY_REUSED", exception.getCode());
+    }
+
+    private TransactionResponse create() {
+        return TransactionResponse.builder()
+                .transactionId((long) executions.incrementAndGet())
+                .accountId(1L)
+                .operationTypeId(1)
+                .amount(BigDecimal.TEN.negate())
+                .build();
+    }
+
+    private static TransactionRequest request(String amount) {
+        return TransactionRequest.builder().accountId(1L).operationTypeId(1).amount(new BigDecimal(amount)).build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.repository.OpenTransactionRepository;
+import com.poc.transaction.repository.OperationTypeRepository;
+import com.poc.transaction.service.cache.InMemoryCacheInvalidationBus;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.service.operationtype.OperationTypes;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.poc.transaction.repository.TransactionRepository;
+import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.repository.projection.OpenItemView;
+import com.poc.transaction.service.metrics.StageMetrics;
+import com.poc.transaction.service.transaction.discharge.LedgerDischargeStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LedgerDischargeStrategyTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private OpenTransactionRepository openTransactionRepository;
+
+    @Mock
+    private OperationTypeRepository operationTypeRepository;
+
+    private OperationTypeCatalog operationTypeCatalog;
+    private LedgerDischargeStrategy strategy;
+
+    private AccountEntity account;
+    // the account version the next payment reads - moved on by every transaction, like AccountRepository does
+    private long version;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        operationTypeCatalog = new OperationTypeCatalog(operationTypeRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new InMemoryCacheInvalidationBus());
+        strategy = new LedgerDischargeStrategy(transactionRepository, openTransactionRepository, 1000, Duration.ofMinutes(5), new SimpleMeterRegistry(),
+                new StageMetrics(new SimpleMeterRegistry(), 1), operationTypeCatalog);
+        account = AccountEntity.builder().accountId(1L).documentNumber("12345").build();
+    }
+
+    @Test
+    void discharge_oldestFirst_writesOnlyChangedRows() {
+        LocalDateTime now = LocalDateTime.now();
+        when(openTransactionRepository.fetchOpenItems(eq(1L), any())).thenReturn(List.of(
+                openItem(101L, now.minusDays(3), "-50.00"),
+                openItem(102L, now.minusDays(2), "-23.45"),
+                openItem(103L, now.minusDays(1), "-10.00")));
+
+        TransactionEntity payment = payment(200L, "60.00");
+        long remaining = discharge(payment);
+
+        // 50.00 pays 101 off, 10.00 goes to 102, 103 is never touched
+        assertEquals(0L, remaining);
+        assertEquals(new BigDecimal("0.00"), payment.getBalance());
+        ArgumentCaptor<long[]> ids = ArgumentCaptor.forClass(long[].class);
+        ArgumentCaptor<BigDecimal[]> balances = ArgumentCaptor.forClass(BigDecimal[].class);
+        verify(transactionRepository).updateBalances(ids.capture(), balances.capture(), eq(2));
+        assertEquals(101L, ids.getValue()[0]);
+        assertEquals(102L, ids.getValue()[1]);
+        assertEquals(new BigDecimal("0.00"), balances.getValue()[0]);
+        assertEquals(new BigDecimal("-13.45"), balances.getValue()[1]);
+        // same changes go to the open items side table
+        verify(openTransactionRepository).applyBalances(same(ids.getValue()), same(balances.getValue()), eq(2));
+    }
+
+    @Test
+    void discharge_hydratesOnce_thenWorksFromMemory() {
+        when(openTransactionRepository.fetchOpenItems(eq(1L), any())).thenReturn(List.of(
+                openItem(101L, LocalDateTime.now().minusDays(1), "-30.00")));
+
+        discharge(payment(200L, "10.00"));
+        discharge(payment(201L, "10.00"));
+        TransactionEntity payment = payment(202L, "25.00");
+        long remaining = discharge(payment);
+
+        // third payment clears what's left (10.00) and keeps 15.00
+        assertEquals(1500L, remaining); // minor units
+        assertEquals(new BigDecimal("15.00"), payment.getBalance());
+        verify(openTransactionRepository, times(1)).fetchOpenItems(eq(1L), any());
+        verify(transactionRepository, never()).fetchTransactions(anyLong(), any(), any());
+    }
+
+    @Test
+    void onRecorded_newPurchaseJoinsLoadedLedger() {
+        when(openTransactionRepository.fetchOpenItems(eq(1L), any())).thenReturn(List.of());
+        assertEquals(500L, discharge(payment(200L, "5.00")));
+
+        strategy.onRecorded(TransactionEntity.builder()
+                .transactionId(300L)
+                .account(account)
+                .operationTypeId(1)
+                .amount(new BigDecimal("-40.00"))
+                .balance(new BigDecimal("-40.00"))
+                .eventDate(LocalDateTime.now().minusSeconds(1))
+                .build());
+        version++;
+        long remaining = discharge(payment(201L, "15.00"));
+
+        assertEquals(0L, remaining);
+        ArgumentCaptor<long[]> ids = ArgumentCaptor.forClass(long[].class);
+        verify(transactionRepository).updateBalances(ids.capture(), any(), eq(1));
+        assertEquals(300L, ids.getValue()[0]);
+        verify(openTransactionRepository, times(1)).fetchOpenItems(eq(1L), any());
+    }
+
+    @Test
+    void evictedAccount_isHydratedAgain() {
+        when(openTransactionRepository.fetchOpenItems(eq(1L), any())).thenReturn(List.of());
+        discharge(payment(200L, "5.00"));
+
+        strategy.ledger().evict(1L);
+        discharge(payment(201L, "5.00"));
+
+        verify(openTransactionRepository, times(2)).fetchOpenItems(eq(1L), any());
+    }
+
+    @Test
+    void accountChangedByAnotherNode_isHydratedAgain() {
+        when(openTransactionRepository.fetchOpenItems(eq(1L), any())).thenReturn(List.of(
+                openItem(101L, LocalDateTime.now().minusDays(1), "-30.00")));
+        discharge(payment(200L, "10.00"));
+
+        // another node paid 15.00 of it meanwhile
+        version++;
+        when(openTransactionRepository.fetchOpenItems(eq(1L), any())).thenReturn(List.of(
+                openItem(101L, LocalDateTime.now().minusDays(1), "-5.00")));
+        long remaining = discharge(payment(201L, "10.00"));
+
+        assertEquals(500L, remaining);
+        verify(openTransactionRepository, times(2)).fetchOpenItems(eq(1L), any());
+    }
+
+    @Test
+    void catalogChange_rehydratesWithNewEligibleTypes() {
+        when(openTransactionRepository.fetchOpenItems(eq(1L), any())).thenReturn(List.of());
+        discharge(payment(200L, "5.00"));
+        verify(openTransactionRepository).fetchOpenItems(1L, List.of(1, 2, 3));
+
+        // withdrawals stop being discharged by payments
+        when(operationTypeRepository.findAll()).thenReturn(OperationTypes.DEFAULT_TYPES.stream()
+                .map(type -> type.getOperationTypeId() == 3 ? type.toBuilder().dischargeEligible(false).build() : type)
+                .toList());
+        operationTypeCatalog.refresh();
+        discharge(payment(201L, "5.00"));
+        discharge(payment(202L, "5.00"));
+
+        verify(openTransactionRepository, times(1)).fetchOpenItems(1L, List.of(1, 2));
+    }
+
+    private long discharge(TransactionEntity payment) {
+        return strategy.discharge(payment, version++, true);
+    }
+
+    private TransactionEntity payment(Long id, String amount) {
+        return TransactionEntity.builder()
+                .transactionId(id)
+                .account(account)
+                .operationTypeId(4)
+                .amount(new BigDecimal(amount))
+                .balance(new BigDecimal(amount))
+                .eventDate(LocalDateTime.now())
+                .build();
+    }
+
+    private static OpenItemView openItem(Long id, LocalDateTime eventDate, String balance) {
+        return new OpenItemView() {
+            @Override
+            public Long getTransactionId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getEventDate() {
+                return eventDate;
+            }
+
+            @Override
+            public BigDecimal getBalance() {
+                return new BigDecimal(balance);
+            }
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.repository.entity.OperationTypeEntity;
+import com.poc.transaction.repository.memory.InMemoryOperationTypeRepository;
+import com.poc.transaction.service.cache.InMemoryCacheInvalidationBus;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.service.operationtype.OperationTypes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class OperationTypeCatalogTest {
+
+    private final InMemoryOperationTypeRepository repository = new InMemoryOperationTypeRepository();
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    private final InMemoryCacheInvalidationBus bus = new InMemoryCacheInvalidationBus();
+    private OperationTypeCatalog node1;
+    private OperationTypeCatalog node2;
+
+    @BeforeEach
+    void setUp() {
+        // two nodes on one table and one bus
+        node1 = new OperationTypeCatalog(repository, transactionTemplate, bus);
+        node2 = new OperationTypeCatalog(repository, transactionTemplate, bus);
+        node1.afterPropertiesSet();
+        node2.afterPropertiesSet();
+    }
+
+    @Test
+    void load_seedsDefaults_whenTableIsEmpty() {
+        assertEquals(4, repository.findAll().size());
+        OperationTypes types = node1.current();
+
+        assertEquals(List.of(1, 2, 3), types.dischargeEligibleIds());
+        assertEquals(-1, types.sign(1));
+        assertTrue(types.isCredit(4));
+        assertFalse(types.isDischargeEligible(4));
+        assertEquals("WITHDRAWAL", types.description(3));
+        assertFalse(types.isKnown(5));
+        assertNull(types.description(999));
+    }
+
+    @Test
+    void refresh_swapsSnapshot_onEveryNode() {
+        OperationTypes before = node2.current();
+        repository.saveAll(List.of(new OperationTypeEntity(5, "REFUND", 1, false),
+                new OperationTypeEntity(6, "FEE", -1, false)));
+
+        OperationTypes refreshed = node1.refresh();
+
+        assertSame(refreshed, node1.current());
+        assertNotSame(before, node2.current());
+        assertTrue(node2.current().isCredit(5));
+        // a debit that isn't discharged: no open item, not in the discharge filter
+        assertEquals(-1, node2.current().sign(6));
+        assertEquals(List.of(1, 2, 3), node2.current().dischargeEligibleIds());
+        assertFalse(before.isKnown(5)); // old snapshot is untouched
+    }
+
+    @Test
+    void refresh_keepsSnapshot_whenTableIsInvalid() {
+        OperationTypes before = node1.current();
+        OperationTypes beforeNode2 = node2.current();
+        repository.saveAll(List.of(new OperationTypeEntity(5, "REFUND", 1, true)));
+
+        assertThrows(IllegalArgumentException.class, node1::refresh);
+
+        // nothing is published either
+        assertSame(before, node1.current());
+        assertSame(beforeNode2, node2.current());
+    }
+
+    @Test
+    void of_rejectsInvalidTypes() {
+        assertThrows(IllegalArgumentException.class,
+                () -> OperationTypes.of(List.of(new OperationTypeEntity(1, "ZERO", 0, false))));
+        assertThrows(IllegalArgumentException.class,
+                () -> OperationTypes.of(List.of(new OperationTypeEntity(OperationTypes.MAX_ID + 1, "BIG", -1, false))));
+        assertThrows(IllegalArgumentException.class,
+                () -> OperationTypes.of(List.of(new OperationTypeEntity(0, "NONE", -1, false))));
+        assertThrows(IllegalArgumentException.class,
+                () -> OperationTypes.of(List.of(new OperationTypeEntity(4, "PAYMENT", 1, true))));
+    }
+
+    @Test
+    void of_rejectsHugeIds_beforeAllocatingForThem() {
+        // max + 1 would overflow into a negative array size, a large id would allocate gigabytes
+        IllegalArgumentException overflow = assertThrows(IllegalArgumentException.class, () -> OperationTypes.of(List.of(
+                new OperationTypeEntity(1, "CASH PURCHASE", -1, true),
+                new OperationTypeEntity(Integer.MAX_VALUE, "BROKEN", -1, false))));
+        assertThrows(IllegalArgumentException.class, () -> OperationTypes.of(List.of(
+                new OperationTypeEntity(Integer.MAX_VALUE - 8, "BROKEN", 1, false))));
+
+        assertTrue(overflow.getMessage().contains("out of range"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.repository.OutboxEventRepository;
+import com.poc.transaction.repository.entity.OutboxEventEntity;
+import com.poc.transaction.repository.entity.OutboxEventType;
+import com.poc.transaction.service.outbox.LocalEventStreamSink;
+import com.poc.transaction.service.outbox.OutboxRelay;
+import com.poc.transaction.service.outbox.OutboxSink;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LocalEventStreamSink stream;
+    private final List<OutboxEventEntity> accountEvents = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        stream = new LocalEventStreamSink(10);
+    }
+
+    @Test
+    void testRelayBatch_publishesToAcceptingSinksAndDeletes() {
+        when(outboxEventRepository.lockNextBatch(Limit.of(2)))
+                .thenReturn(List.of(event(1L, OutboxEventType.ACCOUNT_CREATED), event(2L, OutboxEventType.TRANSACTION_CREATED)));
+
+        int relayed = relay(2, stream, accountsOnly()).relayBatch();
+
+        assertEquals(2, relayed);
+        assertEquals(1, stream.recent(OutboxEventType.ACCOUNT_CREATED).size());
+        assertEquals(1, stream.recent(OutboxEventType.TRANSACTION_CREATED).size());
+        // the account-only sink never sees the transaction event
+        assertEquals(List.of(1L), accountEvents.stream().map(OutboxEventEntity::getId).toList());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        assertEquals(2.0, meterRegistry.get("outbox.events.relayed").counter().count());
+    }
+
+    @Test
+    void testDrain_failingSinkKeepsBatch() {
+        when(outboxEventRepository.lockNextBatch(any(Limit.class)))
+                .thenReturn(List.of(event(1L, OutboxEventType.ACCOUNT_CREATED)));
+        OutboxSink broken = new OutboxSink() {
+            @Override
+            public String name() {
+                return "broken";
+            }
+
+            @Override
+            public void publish(List<OutboxEventEntity> events) {
+                throw new IllegalStateException("broker down");
+            }
+        };
+
+        relay(10, broken).drain();
+
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(anyList());
+        verify(transactionManager).rollback(any());
+        assertEquals(1.0, meterRegistry.get("outbox.sink.failures").tag("sink", "broken").counter().count());
+    }
+
+    @Test
+    void testDrain_keepsGoingWhileBatchesAreFull() {
+        when(outboxEventRepository.lockNextBatch(Limit.of(1)))
+                .thenReturn(List.of(event(1L, OutboxEventType.ACCOUNT_CREATED)))
+                .thenReturn(List.of(event(2L, OutboxEventType.ACCOUNT_CREATED)))
+                .thenReturn(List.of());
+
+        relay(1, stream).drain();
+
+        verify(outboxEventRepository, times(3)).lockNextBatch(Limit.of(1));
+        assertEquals(2, stream.recent(OutboxEventType.ACCOUNT_CREATED).size());
+    }
+
+    private OutboxRelay relay(int batchSize, OutboxSink... sinks) {
+        return new OutboxRelay(outboxEventRepository, new TransactionTemplate(transactionManager), List.of(sinks), batchSize,
+                Duration.ofMillis(200), meterRegistry);
+    }
+
+    private OutboxSink accountsOnly() {
+        return new OutboxSink() {
+            @Override
+            public String name() {
+                return "accounts";
+            }
+
+            @Override
+            public boolean accepts(OutboxEventType type) {
+                return type == OutboxEventType.ACCOUNT_CREATED;
+            }
+
+            @Override
+            public void publish(List<OutboxEventEntity> events) {
+                accountEvents.addAll(events);
+            }
+        };
+    }
+
+    private OutboxEventEntity event(Long id, OutboxEventType type) {
+        return OutboxEventEntity.builder()
+                .id(id)
+                .eventType(type)
+                .aggregateId(id)
+                .payload("{}")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,106 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.service.pipeline.BackpressurePolicy;
+import com.poc.transaction.service.pipeline.PipelineProperties;
+import com.poc.transaction.service.pipeline.PipelineStage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineStageTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> ran = new CopyOnWriteArrayList<>();
+    private PipelineStage stage;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        stage.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testSubmit_callerRunsWhenFull() throws InterruptedException {
+        stage = busyStage(BackpressurePolicy.CALLER_RUNS);
+        stage.submit(() -> ran.add("queued"));
+
+        stage.submit(() -> ran.add(Thread.currentThread().getName()));
+
+        assertEquals(List.of(Thread.currentThread().getName()), ran);
+        assertEquals(1.0, rejections());
+    }
+
+    @Test
+    void testSubmit_dropOldestMakesRoom() throws InterruptedException {
+        stage = busyStage(BackpressurePolicy.DROP_OLDEST);
+        stage.submit(() -> ran.add("oldest"));
+
+        stage.submit(() -> ran.add("newest"));
+        release.countDown();
+        stage.shutdown(1, TimeUnit.SECONDS);
+
+        assertEquals(List.of("newest"), ran);
+        assertEquals(1.0, rejections());
+    }
+
+    @Test
+    void testSubmit_blockGivesUpAfterTimeout() throws InterruptedException {
+        stage = busyStage(BackpressurePolicy.BLOCK);
+        stage.submit(() -> ran.add("queued"));
+
+        long startedAt = System.nanoTime();
+        stage.submit(() -> ran.add("discarded"));
+        release.countDown();
+        stage.shutdown(1, TimeUnit.SECONDS);
+
+        assertTrue(System.nanoTime() - startedAt >= Duration.ofMillis(20).toNanos());
+        assertEquals(List.of("queued"), ran);
+    }
+
+    @Test
+    void testSubmit_failingTaskIsCountedNotThrown() throws InterruptedException {
+        stage = new PipelineStage("test", new PipelineProperties.Stage(1, 10, null, null), meterRegistry);
+
+        stage.submit(() -> {
+            throw new IllegalStateException("boom");
+        });
+        stage.submit(() -> ran.add("next"));
+        stage.shutdown(1, TimeUnit.SECONDS);
+
+        assertEquals(List.of("next"), ran);
+        assertEquals(1.0, meterRegistry.get("pipeline.failures").counter().count());
+    }
+
+    // one worker stuck on a task and a queue of one, so the next-but-one submit finds the stage full
+    private PipelineStage busyStage(BackpressurePolicy policy) throws InterruptedException {
+        PipelineStage busy = new PipelineStage("test", new PipelineProperties.Stage(1, 1, policy, Duration.ofMillis(20)), meterRegistry);
+        CountDownLatch running = new CountDownLatch(1);
+        busy.submit(() -> {
+            running.countDown();
+            await(release);
+        });
+        assertTrue(running.await(1, TimeUnit.SECONDS));
+        return busy;
+    }
+
+    private double rejections() {
+        return meterRegistry.get("pipeline.rejections").counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
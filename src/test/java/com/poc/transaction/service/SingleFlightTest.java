@@ -0,0 +1,100 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.exception.ApiException;
+import com.poc.transaction.service.cache.SingleFlight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>("test", meterRegistry);
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testExecute_concurrentCallersShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> first = executor.submit(() -> singleFlight.execute("account:1", () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "loaded";
+        }));
+        assertTrue(loading.await(1, TimeUnit.SECONDS));
+
+        List<Future<String>> others = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            others.add(executor.submit(() -> singleFlight.execute("account:1", () -> {
+                loads.incrementAndGet();
+                return "again";
+            })));
+        }
+        // let the callers queue up behind the running load
+        while (meterRegistry.get("cache.load").tag("result", "coalesced").counter().count() < 5) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertEquals("loaded", first.get(1, TimeUnit.SECONDS));
+        for (Future<String> other : others) {
+            assertEquals("loaded", other.get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("cache.load").tag("result", "executed").counter().count());
+    }
+
+    @Test
+    void testExecute_failureIsSharedThenForgotten() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ApiException notFound = new ApiException("Account not found", HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND");
+
+        Future<String> first = executor.submit(() -> singleFlight.execute("account:9", () -> {
+            loading.countDown();
+            await(release);
+            throw notFound;
+        }));
+        assertTrue(loading.await(1, TimeUnit.SECONDS));
+        Future<String> waiter = executor.submit(() -> singleFlight.execute("account:9", () -> "unused"));
+        while (meterRegistry.get("cache.load").tag("result", "coalesced").counter().count() < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertSame(notFound, assertThrows(ExecutionException.class, () -> first.get(1, TimeUnit.SECONDS)).getCause());
+        assertSame(notFound, assertThrows(ExecutionException.class, () -> waiter.get(1, TimeUnit.SECONDS)).getCause());
+
+        // the failed flight is gone, the next caller loads again
+        assertEquals("fresh", singleFlight.execute("account:9", () -> "fresh"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
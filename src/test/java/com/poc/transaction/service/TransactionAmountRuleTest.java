@@ -1,6 +1,7 @@
 package com.poc.transaction.service;
 
 import com.poc.transaction.exception.ApiException;
+import com.poc.transaction.service.operationtype.OperationTypes;
 import com.poc.transaction.service.transaction.TransactionAmountRule;
 import org.junit.jupiter.api.Test;
 
@@ -12,48 +13,51 @@ class TransactionAmountRuleTest {
 
     @Test
     void applySignRule_shouldNegateAmount_forCashPurchase() {
-        BigDecimal result = TransactionAmountRule.applySignRule(1, new BigDecimal("100.00"));
-        assertEquals(new BigDecimal("-100.00"), result);
+        long result = TransactionAmountRule.applySignRule(OperationTypes.DEFAULTS, 1, new BigDecimal("100.00"));
+        assertEquals(-10000L, result); // minor units
     }
 
     @Test
     void applySignRule_shouldNegateAmount_forInstallmentPurchase() {
-        BigDecimal result = TransactionAmountRule.applySignRule(2, new BigDecimal("200.00"));
-        assertEquals(new BigDecimal("-200.00"), result);
+        long result = TransactionAmountRule.applySignRule(OperationTypes.DEFAULTS, 2, new BigDecimal("200.00"));
+        assertEquals(-20000L, result); // minor units
     }
 
     @Test
     void applySignRule_shouldNegateAmount_forWithdrawal() {
-        BigDecimal result = TransactionAmountRule.applySignRule(3, new BigDecimal("300.00"));
-        assertEquals(new BigDecimal("-300.00"), result);
+        long result = TransactionAmountRule.applySignRule(OperationTypes.DEFAULTS, 3, new BigDecimal("300.00"));
+        assertEquals(-30000L, result); // minor units
     }
 
     @Test
     void applySignRule_shouldKeepPositive_forPayment() {
-        BigDecimal result = TransactionAmountRule.applySignRule(4, new BigDecimal("400.00"));
-        assertEquals(new BigDecimal("400.00"), result);
+        long result = TransactionAmountRule.applySignRule(OperationTypes.DEFAULTS, 4, new BigDecimal("400.00"));
+        assertEquals(40000L, result); // minor units
     }
 
     @Test
     void applySignRule_shouldThrowApiException_forInvalidOperationType() {
         ApiException exception = assertThrows(ApiException.class,
-                () -> TransactionAmountRule.applySignRule(99, new BigDecimal("500.00")));
+                () -> TransactionAmountRule.applySignRule(OperationTypes.DEFAULTS, 99, new BigDecimal("500.00")));
 
         assertEquals("Provided operation type id is invalid.", exception.getMessage());
         assertEquals("INVALID_OPERATION_TYPE", exception.getCode());
     }
 
     @Test
-    void getDescription_shouldReturnCorrectDescription() {
-        assertEquals("CASH PURCHASE", TransactionAmountRule.getDescription(1));
-        assertEquals("INSTALLMENT PURCHASE", TransactionAmountRule.getDescription(2));
-        assertEquals("WITHDRAWAL", TransactionAmountRule.getDescription(3));
-        assertEquals("PAYMENT", TransactionAmountRule.getDescription(4));
+    void applySignRule_shouldRoundToCents() {
+        assertEquals(-1001L, TransactionAmountRule.applySignRule(OperationTypes.DEFAULTS, 1, new BigDecimal("10.005")));
+        assertEquals(1000L, TransactionAmountRule.applySignRule(OperationTypes.DEFAULTS, 4, new BigDecimal("10")));
     }
 
     @Test
-    void getDescription_shouldReturnNull_forUnknownOperationType() {
-        assertNull(TransactionAmountRule.getDescription(999));
+    void applySignRule_shouldThrowApiException_forAmountBeyondColumn() {
+        ApiException exception = assertThrows(ApiException.class,
+                () -> TransactionAmountRule.applySignRule(OperationTypes.DEFAULTS, 1, new BigDecimal("10000000000000.00")));
+        ApiException overflow = assertThrows(ApiException.class,
+                () -> TransactionAmountRule.applySignRule(OperationTypes.DEFAULTS, 4, new BigDecimal("1e30")));
+
+        assertEquals("INVALID_AMOUNT", exception.getCode());
+        assertEquals("INVALID_AMOUNT", overflow.getCode());
     }
 }
-
@@ -0,0 +1,130 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.exception.ApiException;
+import com.poc.transaction.model.request.TransactionHistoryFilter;
+import com.poc.transaction.model.response.TransactionPageResponse;
+import com.poc.transaction.model.response.TransactionResponse;
+import com.poc.transaction.repository.AccountRepository;
+import com.poc.transaction.repository.TransactionRepository;
+import com.poc.transaction.repository.projection.TransactionRow;
+import com.poc.transaction.service.account.MissingAccountCache;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.service.operationtype.OperationTypes;
+import com.poc.transaction.service.transaction.TransactionHistoryServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionHistoryServiceImplTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private MissingAccountCache missingAccountCache;
+
+    @Mock
+    private OperationTypeCatalog operationTypeCatalog;
+
+    @InjectMocks
+    private TransactionHistoryServiceImpl transactionHistoryService;
+
+    @Test
+    void testGetTransactions_returnsCursorThatSeeksAfterLastRow() {
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        // no type filter - every type of the catalog
+        when(operationTypeCatalog.current()).thenReturn(OperationTypes.DEFAULTS);
+        when(transactionRepository.findHistoryPage(eq(1L), eq(OperationTypes.DEFAULTS.ids()), any(), any(),
+                any(), eq(0L), eq(Limit.of(3))))
+                .thenReturn(List.of(row(5L, T0), row(6L, T0), row(7L, T0.plusMinutes(1))));
+
+        TransactionPageResponse first = transactionHistoryService.getTransactions(1L, null, null, 2);
+
+        assertEquals(List.of(5L, 6L), first.getItems().stream().map(TransactionResponse::getTransactionId).toList());
+        assertNotNull(first.getNextCursor());
+
+        // second page starts right after (T0, 6)
+        when(transactionRepository.findHistoryPage(eq(1L), any(), any(), any(), eq(T0), eq(6L), eq(Limit.of(3))))
+                .thenReturn(List.of(row(7L, T0.plusMinutes(1))));
+
+        TransactionPageResponse second = transactionHistoryService.getTransactions(1L, null, first.getNextCursor(), 2);
+
+        assertEquals(List.of(7L), second.getItems().stream().map(TransactionResponse::getTransactionId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testGetTransactions_appliesFilterAndCapsLimit() {
+        LocalDateTime from = T0.minusDays(1);
+        TransactionHistoryFilter filter = TransactionHistoryFilter.builder().from(from).to(T0).operationTypeIds(List.of(4)).build();
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(transactionRepository.findHistoryPage(1L, List.of(4), from, T0, from, 0L, Limit.of(501)))
+                .thenReturn(List.of());
+
+        TransactionPageResponse page = transactionHistoryService.getTransactions(1L, filter, null, 10_000);
+
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetTransactions_invalidCursor() {
+        when(accountRepository.existsById(1L)).thenReturn(true);
+
+        ApiException exception = assertThrows(ApiException.class,
+                () -> transactionHistoryService.getTransactions(1L, null, "not-a-cursor", 10));
+
+        assertEquals("INVALID_CURSOR", exception.getCode());
+    }
+
+    @Test
+    void testGetTransactions_accountNotFound() {
+        when(accountRepository.existsById(99L)).thenReturn(false);
+
+        ApiException exception = assertThrows(ApiException.class,
+                () -> transactionHistoryService.getTransactions(99L, null, null, 10));
+
+        assertEquals("ACCOUNT_NOT_FOUND", exception.getCode());
+    }
+
+    @Test
+    void testStreamTransactions_closesStream() {
+        List<Long> seen = new ArrayList<>();
+        boolean[] closed = {false};
+        when(accountRepository.existsById(1L)).thenReturn(true);
+        when(operationTypeCatalog.current()).thenReturn(OperationTypes.DEFAULTS);
+        when(transactionRepository.streamHistory(eq(1L), any(), any(), any()))
+                .thenReturn(Stream.of(row(1L, T0), row(2L, T0)).onClose(() -> closed[0] = true));
+
+        transactionHistoryService.streamTransactions(1L, null, transaction -> seen.add(transaction.getTransactionId()));
+
+        assertEquals(List.of(1L, 2L), seen);
+        assertTrue(closed[0]);
+        verify(transactionRepository).streamHistory(eq(1L), eq(OperationTypes.DEFAULTS.ids()), any(), any());
+    }
+
+    private static TransactionRow row(Long id, LocalDateTime eventDate) {
+        return new TransactionRow(id, 1L, 1, BigDecimal.valueOf(-10), BigDecimal.valueOf(-10), eventDate);
+    }
+}
@@ -2,25 +2,47 @@ package com.poc.transaction.service;
 
 import com.poc.transaction.exception.ApiException;
 import com.poc.transaction.model.request.TransactionRequest;
+import com.poc.transaction.model.response.BatchItemResult;
+import com.poc.transaction.model.response.BatchTransactionResponse;
 import com.poc.transaction.model.response.TransactionResponse;
 import com.poc.transaction.repository.AccountRepository;
+import com.poc.transaction.repository.OpenTransactionRepository;
+import com.poc.transaction.repository.OperationTypeRepository;
 import com.poc.transaction.repository.TransactionRepository;
 import com.poc.transaction.repository.entity.AccountEntity;
+import com.poc.transaction.repository.entity.OpenTransactionEntity;
 import com.poc.transaction.repository.entity.TransactionEntity;
+import com.poc.transaction.service.account.MissingAccountCache;
+import com.poc.transaction.service.cache.InMemoryCacheInvalidationBus;
+import com.poc.transaction.service.execution.AccountLaneExecutor;
+import com.poc.transaction.service.execution.ConflictRetry;
+import com.poc.transaction.service.execution.GroupCommitter;
+import com.poc.transaction.service.metrics.StageMetrics;
+import com.poc.transaction.service.operationtype.OperationTypeCatalog;
+import com.poc.transaction.service.outbox.OutboxService;
 import com.poc.transaction.service.transaction.TransactionServiceImpl;
+import com.poc.transaction.service.transaction.discharge.EntityDischargeStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -32,20 +54,70 @@ class TransactionServiceImplTest {
     @Mock
     private AccountRepository accountRepository;
 
-    @InjectMocks
+    @Mock
+    private OpenTransactionRepository openTransactionRepository;
+
+    @Mock
+    private OutboxService outboxService;
+
     private TransactionServiceImpl transactionService;
 
+    private AccountLaneExecutor laneExecutor;
+
+    private MissingAccountCache missingAccountCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
     private AccountEntity account;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
 
+        // real lanes, no-op transaction manager, a plain bean validator and the entity based discharge - only the repositories are mocked
+        laneExecutor = new AccountLaneExecutor(2, new SimpleMeterRegistry());
+        missingAccountCache = new MissingAccountCache(new InMemoryCacheInvalidationBus(), Duration.ofSeconds(30), 100, new SimpleMeterRegistry());
+        meterRegistry = new SimpleMeterRegistry();
+        transactionService = newService(false);
+
         account = AccountEntity.builder()
                 .accountId(1L)
                 .documentNumber("12345")
                 .availableBalance(new BigDecimal("100.00"))
                 .build();
+        // no other node recording on the account
+        when(accountRepository.findVersion(1L)).thenReturn(0L);
+        when(accountRepository.applyPayment(eq(1L), any(), any(), eq(0L))).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        laneExecutor.destroy();
+    }
+
+    private TransactionServiceImpl newService(boolean requireFunds) {
+        return newService(requireFunds, 1); // every call timed
+    }
+
+    private TransactionServiceImpl newService(boolean requireFunds, int stageSampling) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        ConflictRetry conflictRetry = new ConflictRetry(3, Duration.ZERO, Duration.ZERO, meterRegistry);
+        StageMetrics stageMetrics = new StageMetrics(meterRegistry, stageSampling);
+        // never loaded in here - serves the default operation types
+        OperationTypeCatalog operationTypeCatalog = new OperationTypeCatalog(mock(OperationTypeRepository.class), transactionTemplate,
+                new InMemoryCacheInvalidationBus());
+        return new TransactionServiceImpl(transactionRepository, accountRepository, openTransactionRepository,
+                transactionTemplate,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                laneExecutor,
+                new EntityDischargeStrategy(transactionRepository, openTransactionRepository, stageMetrics, operationTypeCatalog),
+                missingAccountCache,
+                new GroupCommitter(laneExecutor, transactionTemplate, conflictRetry, Duration.ofMillis(1), 16, new SimpleMeterRegistry()),
+                conflictRetry,
+                outboxService,
+                stageMetrics,
+                operationTypeCatalog,
+                requireFunds);
     }
 
     @Test
@@ -66,10 +138,13 @@ class TransactionServiceImplTest {
         assertNotNull(response);
         assertEquals(1L, response.getAccountId());
         verify(transactionRepository).save(any(TransactionEntity.class));
-        // verify(accountRepository).save(any(AccountEntity.class));
+        // unpaid purchase is tracked in the open items side table
+        verify(openTransactionRepository).save(argThat(open ->
+                open.getAccountId() == 1L && new BigDecimal("-50.00").equals(open.getBalance())));
 
-        // Assert - not updating account's balance for now
-        // assertEquals(new BigDecimal("50.00"), account.getAvailableBalance());
+        // balance down and debt up by the purchase, with one UPDATE instead of saving the account
+        verify(accountRepository).applyBalanceChange(1L, new BigDecimal("-50.00"), new BigDecimal("50.00"), false);
+        verify(accountRepository, never()).save(any());
     }
 
     // Payment offsets multiple purchases fully → leftover becomes 0.
@@ -123,7 +198,7 @@ class TransactionServiceImplTest {
         when(transactionRepository.save(any(TransactionEntity.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
-        when(transactionRepository.fetchTransactions(eq(1L), any()))
+        when(transactionRepository.fetchTransactions(eq(1L), eq(List.of(1, 2, 3)), any()))
                 .thenReturn(List.of(purchase1, purchase2, purchase3));
 
         // When
@@ -139,6 +214,46 @@ class TransactionServiceImplTest {
         assertTrue(BigDecimal.ZERO.compareTo(purchase1.getBalance()) == 0);
         assertEquals(new BigDecimal("-10.00"), purchase2.getBalance());
         assertEquals(new BigDecimal("-10.00"), purchase3.getBalance());
+
+        // purchase1 leaves the open items, the payment itself never enters them
+        verify(openTransactionRepository).applyBalances(aryEq(new long[]{101L}), any(), eq(1));
+        verify(openTransactionRepository, never()).save(any(OpenTransactionEntity.class));
+
+        // the whole payment went to purchase1, so the debt goes down by all of it
+        verify(accountRepository).applyPayment(1L, new BigDecimal("50.00"), new BigDecimal("-50.00"), 0L);
+
+        // every stage of the payment is timed, the entity discharge looked at all 3 purchases to pay off 1
+        for (String stage : List.of("account.lookup", "insert", "discharge.fetch", "discharge.apply", "discharge.write")) {
+            assertEquals(1, meterRegistry.get("transaction.stage").tag("stage", stage).timer().count(), stage);
+        }
+        assertEquals(3, meterRegistry.get("transaction.discharge.scanned").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("transaction.discharge.purchases").summary().totalAmount());
+    }
+
+    // 1 in 2 payments timed - a sampled payment has all its stages timed, the others none of them
+    @Test
+    void testCreateTransaction_stagesAreSampledPerOperation() {
+        TransactionServiceImpl sampledService = newService(false, 2);
+        TransactionRequest paymentRequest = new TransactionRequest();
+        paymentRequest.setAccountId(1L);
+        paymentRequest.setOperationTypeId(4); // PAYMENT
+        paymentRequest.setAmount(new BigDecimal("10.00"));
+
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(transactionRepository.save(any(TransactionEntity.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(transactionRepository.fetchTransactions(eq(1L), eq(List.of(1, 2, 3)), any())).thenReturn(List.of());
+
+        int payments = 64;
+        for (int i = 0; i < payments; i++) {
+            sampledService.createTransaction(paymentRequest);
+        }
+
+        long sampled = meterRegistry.get("transaction.stage").tag("stage", "account.lookup").timer().count();
+        assertTrue(sampled > 0 && sampled < payments, "sampled " + sampled + " of " + payments);
+        assertEquals(sampled, meterRegistry.get("transaction.stage").tag("stage", "insert").timer().count());
+        assertEquals(sampled, meterRegistry.get("transaction.stage").tag("stage", "discharge.fetch").timer().count());
+        assertEquals(sampled, meterRegistry.get("transaction.discharge.scanned").summary().count());
     }
 
     // Payment partially offsets purchase → purchase still negative with decimals (-9.50), payment exhausted.
@@ -183,7 +298,7 @@ class TransactionServiceImplTest {
         when(transactionRepository.save(any(TransactionEntity.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
-        when(transactionRepository.fetchTransactions(eq(1L), any()))
+        when(transactionRepository.fetchTransactions(eq(1L), eq(List.of(1, 2, 3)), any()))
                 .thenReturn(List.of(purchase1, purchase2));
 
         // When
@@ -223,7 +338,7 @@ class TransactionServiceImplTest {
         when(transactionRepository.save(any(TransactionEntity.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
-        when(transactionRepository.fetchTransactions(eq(1L), any()))
+        when(transactionRepository.fetchTransactions(eq(1L), eq(List.of(1, 2, 3)), any()))
                 .thenReturn(List.of(purchase1));
 
         TransactionResponse response = transactionService.createTransaction(paymentRequest);
@@ -256,7 +371,7 @@ class TransactionServiceImplTest {
         when(transactionRepository.save(any(TransactionEntity.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
-        when(transactionRepository.fetchTransactions(eq(1L), any()))
+        when(transactionRepository.fetchTransactions(eq(1L), eq(List.of(1, 2, 3)), any()))
                 .thenReturn(List.of(purchase1));
 
         TransactionResponse response = transactionService.createTransaction(paymentRequest);
@@ -281,7 +396,7 @@ class TransactionServiceImplTest {
         when(transactionRepository.save(any(TransactionEntity.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
-        when(transactionRepository.fetchTransactions(eq(1L), any()))
+        when(transactionRepository.fetchTransactions(eq(1L), eq(List.of(1, 2, 3)), any()))
                 .thenReturn(List.of()); // no purchases
 
         TransactionResponse response = transactionService.createTransaction(paymentRequest);
@@ -291,14 +406,17 @@ class TransactionServiceImplTest {
     }
 
 
-    // @Test - removing this now cause not checking the account balance here
+    @Test
     void testCreateTransaction_insufficientFunds() {
+        transactionService = newService(true);
         TransactionRequest request = new TransactionRequest();
         request.setAccountId(1L);
         request.setOperationTypeId(3); // WITHDRAWAL
         request.setAmount(new BigDecimal("150.00"));
 
         when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        // the guarded UPDATE matched no row - the balance would have gone below 0
+        when(accountRepository.applyBalanceChange(1L, new BigDecimal("-150.00"), new BigDecimal("150.00"), true)).thenReturn(0);
 
         // Act
         ApiException ex = assertThrows(ApiException.class,
@@ -308,12 +426,15 @@ class TransactionServiceImplTest {
         assertEquals("INSUFFICIENT_FUNDS", ex.getCode());
         assertEquals(HttpStatus.BAD_REQUEST, ex.getHttpStatus());
 
+        // rejected before anything of it was written
         verify(transactionRepository, never()).save(any());
-        verify(accountRepository, never()).save(any());
+        verify(openTransactionRepository, never()).save(any());
+        verify(outboxService, never()).record(any(), any(), any());
     }
 
-    // @Test - removing this now because not adding the account balance here
+    @Test
     void testCreateTransaction_paymentIncreasesBalance() {
+        transactionService = newService(true);
         TransactionRequest request = new TransactionRequest();
         request.setAccountId(1L);
         request.setOperationTypeId(4); // PAYMENT (credit)
@@ -322,6 +443,7 @@ class TransactionServiceImplTest {
         when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
         when(transactionRepository.save(any(TransactionEntity.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
+        when(transactionRepository.fetchTransactions(eq(1L), eq(List.of(1, 2, 3)), any())).thenReturn(List.of()); // nothing to pay off
 
         // Act
         TransactionResponse response = transactionService.createTransaction(request);
@@ -329,10 +451,10 @@ class TransactionServiceImplTest {
         // Assert
         assertNotNull(response);
         assertEquals(1L, response.getAccountId());
-        assertEquals(new BigDecimal("300.00"), account.getAvailableBalance());
 
+        // balance goes up by the payment, no debt paid off - payments are never checked for funds
+        verify(accountRepository).applyPayment(1L, new BigDecimal("200.00"), new BigDecimal("0.00"), 0L);
         verify(transactionRepository).save(any(TransactionEntity.class));
-        verify(accountRepository).save(any(AccountEntity.class));
     }
 
     @Test
@@ -355,6 +477,24 @@ class TransactionServiceImplTest {
         verify(transactionRepository, never()).save(any());
     }
 
+    @Test
+    void testCreateTransaction_unknownAccountIsNegativelyCached() {
+        TransactionRequest request = new TransactionRequest(99L, 1, new BigDecimal("10.00"));
+        when(accountRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(ApiException.class, () -> transactionService.createTransaction(request));
+        ApiException again = assertThrows(ApiException.class, () -> transactionService.createTransaction(request));
+
+        // the retry is answered from the negative cache, without a second lookup
+        assertEquals("ACCOUNT_NOT_FOUND", again.getCode());
+        verify(accountRepository, times(1)).findById(99L);
+
+        // once the account exists it's looked up again
+        missingAccountCache.clear(99L);
+        assertThrows(ApiException.class, () -> transactionService.createTransaction(request));
+        verify(accountRepository, times(2)).findById(99L);
+    }
+
     @Test
     void testCreateTransaction_invalidOperationType() {
         TransactionRequest request = new TransactionRequest();
@@ -375,5 +515,122 @@ class TransactionServiceImplTest {
         verify(transactionRepository, never()).save(any());
         verify(accountRepository, never()).save(any());
     }
-}
 
+    // Batch: purchases are processed before payments of the same account, so the payment discharges them.
+    @Test
+    void testCreateTransactions_purchasesBeforePaymentsPerAccount() {
+        AccountEntity otherAccount = AccountEntity.builder().accountId(2L).documentNumber("67890").build();
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.findById(2L)).thenReturn(Optional.of(otherAccount));
+
+        // repository stand-in - keeps saved entities so the discharge query can see purchases of the same batch
+        List<TransactionEntity> saved = new ArrayList<>();
+        AtomicLong ids = new AtomicLong(1);
+        when(transactionRepository.save(any(TransactionEntity.class))).thenAnswer(invocation -> {
+            TransactionEntity entity = invocation.getArgument(0);
+            entity.setTransactionId(ids.getAndIncrement());
+            saved.add(entity);
+            return entity;
+        });
+        when(transactionRepository.fetchTransactions(eq(1L), eq(List.of(1, 2, 3)), any())).thenAnswer(invocation -> saved.stream()
+                .filter(t -> t.getAccount().getAccountId() == 1L && t.getOperationTypeId() != 4)
+                .toList());
+
+        BatchTransactionResponse response = transactionService.createTransactions(List.of(
+                new TransactionRequest(1L, 4, new BigDecimal("30.00")),    // payment arrives first
+                new TransactionRequest(1L, 1, new BigDecimal("50.00")),
+                new TransactionRequest(2L, 1, new BigDecimal("10.00"))));
+
+        assertEquals(3, response.getSucceeded());
+        assertEquals(0, response.getFailed());
+        // purchase of account 1 saved before its payment, and discharged by it
+        TransactionEntity purchase = saved.stream().filter(t -> t.getOperationTypeId() == 1 && t.getAccount() == account).findFirst().orElseThrow();
+        TransactionEntity payment = saved.stream().filter(t -> t.getOperationTypeId() == 4).findFirst().orElseThrow();
+        assertTrue(saved.indexOf(purchase) < saved.indexOf(payment));
+        assertEquals(new BigDecimal("-20.00"), purchase.getBalance());
+        assertEquals(0, payment.getBalance().compareTo(BigDecimal.ZERO));
+        // results come back in request order
+        assertEquals(payment.getTransactionId(), response.getResults().get(0).getTransactionId());
+        assertEquals(purchase.getTransactionId(), response.getResults().get(1).getTransactionId());
+        verify(accountRepository, times(1)).findById(1L);
+    }
+
+    // Batch: a bad row only fails itself, an unknown account only fails its own group.
+    @Test
+    void testCreateTransactions_failuresAreIsolatedPerItem() {
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(accountRepository.findById(99L)).thenReturn(Optional.empty());
+        when(transactionRepository.save(any(TransactionEntity.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        BatchTransactionResponse response = transactionService.createTransactions(List.of(
+                new TransactionRequest(1L, 1, new BigDecimal("10.00")),
+                new TransactionRequest(1L, 7, new BigDecimal("10.00")),    // invalid operation type
+                new TransactionRequest(1L, 1, BigDecimal.ZERO),            // fails bean validation
+                new TransactionRequest(99L, 1, new BigDecimal("10.00")))); // unknown account
+
+        List<BatchItemResult> results = response.getResults();
+        assertEquals(1, response.getSucceeded());
+        assertEquals(3, response.getFailed());
+        assertEquals(BatchItemResult.CREATED, results.get(0).getStatus());
+        assertEquals("INVALID_OPERATION_TYPE", results.get(1).getErrorCode());
+        assertEquals("VALIDATION_ERROR", results.get(2).getErrorCode());
+        assertEquals("ACCOUNT_NOT_FOUND", results.get(3).getErrorCode());
+        verify(transactionRepository, times(1)).save(any(TransactionEntity.class));
+    }
+
+    // Another node recorded on the account between our version read and our fence: the whole transaction is re-run.
+    @Test
+    void testCreateTransaction_paymentRetried_whenAnotherNodeDischargedMeanwhile() {
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(transactionRepository.save(any(TransactionEntity.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(accountRepository.findVersion(1L)).thenReturn(0L, 1L);
+        when(accountRepository.applyPayment(eq(1L), any(), any(), eq(0L))).thenReturn(0);
+        when(accountRepository.applyPayment(eq(1L), any(), any(), eq(1L))).thenReturn(1);
+
+        TransactionResponse response = transactionService.createTransaction(new TransactionRequest(1L, 4, new BigDecimal("10.00")));
+
+        assertNotNull(response);
+        verify(transactionRepository, times(2)).save(any(TransactionEntity.class));
+        // the balance change is the fence, only the winning run makes it
+        verify(accountRepository, times(2)).applyPayment(eq(1L), any(), any(), anyLong());
+        verify(accountRepository, never()).applyBalanceChange(any(), any(), any(), anyBoolean());
+        assertEquals(1.0, meterRegistry.get("transaction.concurrency.conflicts").counter().count());
+        assertEquals(1.0, meterRegistry.get("transaction.concurrency.retries").counter().count());
+    }
+
+    @Test
+    void testCreateTransactions_groupRetried_whenAnotherNodeDischargedMeanwhile() {
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(transactionRepository.save(any(TransactionEntity.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(accountRepository.findVersion(1L)).thenReturn(0L, 1L);
+        when(accountRepository.applyPayment(eq(1L), any(), any(), eq(0L))).thenReturn(0);
+        when(accountRepository.applyPayment(eq(1L), any(), any(), eq(1L))).thenReturn(1);
+
+        BatchTransactionResponse response = transactionService.createTransactions(List.of(
+                new TransactionRequest(1L, 4, new BigDecimal("10.00"))));
+
+        assertEquals(1, response.getSucceeded());
+        verify(accountRepository, times(2)).applyPayment(eq(1L), any(), any(), anyLong());
+        assertEquals(1.0, meterRegistry.get("transaction.concurrency.retries").counter().count());
+    }
+
+    @Test
+    void testCreateTransaction_conflictAfterLastAttempt_returns409() {
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account));
+        when(transactionRepository.save(any(TransactionEntity.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(accountRepository.applyPayment(eq(1L), any(), any(), eq(0L))).thenReturn(0);
+
+        ApiException exception = assertThrows(ApiException.class,
+                () -> transactionService.createTransaction(new TransactionRequest(1L, 4, new BigDecimal("10.00"))));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getHttpStatus());
+        assertEquals("CONCURRENT_UPDATE", exception.getCode());
+        verify(transactionRepository, times(3)).save(any(TransactionEntity.class));
+        verify(accountRepository, times(3)).applyPayment(eq(1L), any(), any(), eq(0L));
+        assertEquals(1.0, meterRegistry.get("transaction.concurrency.exhausted").counter().count());
+    }
+}
@@ -0,0 +1,137 @@
+package com.poc.transaction.service;
+
+import com.poc.transaction.model.request.TransactionRequest;
+import com.poc.transaction.model.response.TransactionStatusResponse;
+import com.poc.transaction.repository.entity.TransactionStatus;
+import com.poc.transaction.service.transaction.async.TransactionWriteAheadLog;
+import com.poc.transaction.service.transaction.async.TransactionWriteAheadLog.Replay;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplay_returnsAcceptedWithoutDone() throws Exception {
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(directory, Long.MAX_VALUE)) {
+            log.replay();
+            log.appendAccepted("r1", request(1L, "10.50"));
+            log.appendAccepted("r2", request(2L, "20"));
+            log.appendDone(TransactionStatusResponse.completed("r1", 7L));
+        }
+
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(directory, Long.MAX_VALUE)) {
+            Replay replay = log.replay();
+
+            assertEquals(1, replay.outstanding().size());
+            assertEquals("r2", replay.outstanding().get(0).reference());
+            assertEquals(2L, replay.outstanding().get(0).request().getAccountId());
+            assertEquals(new BigDecimal("20"), replay.outstanding().get(0).request().getAmount());
+            assertEquals(1, replay.finished().size());
+            assertEquals(TransactionStatus.COMPLETED, replay.finished().get(0).getStatus());
+            assertEquals(7L, replay.finished().get(0).getTransactionId());
+            assertEquals(1, log.outstanding());
+        }
+    }
+
+    @Test
+    void testReplay_truncatesTornRecord() throws Exception {
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(directory, Long.MAX_VALUE)) {
+            log.replay();
+            log.appendAccepted("r1", request(1L, "10"));
+        }
+        Path file = directory.resolve("transactions.wal");
+        long intact = Files.size(file);
+        // a record whose header made it to disk but not its payload
+        Files.write(file, new byte[]{0, 0, 0, 40, 1, 2, 3, 4, 1}, StandardOpenOption.APPEND);
+
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(directory, Long.MAX_VALUE)) {
+            assertEquals(1, log.replay().outstanding().size());
+            assertEquals(intact, Files.size(file));
+            log.appendAccepted("r2", request(1L, "5"));
+        }
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(directory, Long.MAX_VALUE)) {
+            assertEquals(2, log.replay().outstanding().size());
+        }
+    }
+
+    @Test
+    void testAppendDone_compactsToOutstandingRecords() throws Exception {
+        Path file = directory.resolve("transactions.wal");
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(directory, 1)) {
+            log.replay();
+            log.appendAccepted("r1", request(1L, "10"));
+            log.appendAccepted("r2", request(1L, "10"));
+            log.appendDone(TransactionStatusResponse.failed("r1", "INSUFFICIENT_BALANCE", "Insufficient balance"));
+            // only r2's ACCEPTED record is left
+            assertTrue(Files.size(file) > 0);
+            assertEquals(1, log.outstanding());
+
+            log.appendDone(TransactionStatusResponse.completed("r2", 3L));
+            assertEquals(0, Files.size(file));
+            assertEquals(0, log.outstanding());
+        }
+    }
+
+    @Test
+    void testAppendDone_staysBounded_whileRequestsAreAlwaysOutstanding() throws Exception {
+        Path file = directory.resolve("transactions.wal");
+        long threshold = 4 * 1024;
+        long largest = 0;
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(directory, threshold)) {
+            log.replay();
+            // steady load: a few requests always queued, each settled a little after the next ones were accepted
+            for (int i = 0; i < 5; i++) {
+                log.appendAccepted("r" + i, request(1L, "10"));
+            }
+            for (int i = 5; i < 2_000; i++) {
+                log.appendAccepted("r" + i, request(1L, "10"));
+                log.appendDone(TransactionStatusResponse.completed("r" + (i - 5), (long) i));
+                assertEquals(5, log.outstanding());
+                largest = Math.max(largest, Files.size(file));
+            }
+        }
+
+        // 2000 accepted and settled records would be well over 100KB
+        assertTrue(largest < 2 * threshold, "log grew to " + largest + " bytes");
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(directory, threshold)) {
+            Replay replay = log.replay();
+            assertEquals(List.of("r1995", "r1996", "r1997", "r1998", "r1999"),
+                    replay.outstanding().stream().map(TransactionWriteAheadLog.Accepted::reference).toList());
+            assertEquals(5, log.outstanding());
+        }
+    }
+
+    @Test
+    void testConstructor_dropsCheckpointThatWasNeverMovedIntoPlace() throws Exception {
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(directory, Long.MAX_VALUE)) {
+            log.replay();
+            log.appendAccepted("r1", request(1L, "10"));
+        }
+        // crash between writing the checkpoint and moving it over the log
+        Files.write(directory.resolve("transactions.wal.checkpoint"), new byte[]{1, 2, 3});
+
+        try (TransactionWriteAheadLog log = new TransactionWriteAheadLog(directory, Long.MAX_VALUE)) {
+            assertEquals(1, log.replay().outstanding().size());
+            assertFalse(Files.exists(directory.resolve("transactions.wal.checkpoint")));
+        }
+    }
+
+    private TransactionRequest request(Long accountId, String amount) {
+        return TransactionRequest.builder()
+                .accountId(accountId)
+                .operationTypeId(1)
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+}